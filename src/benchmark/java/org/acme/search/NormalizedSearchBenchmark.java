@@ -0,0 +1,69 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara a busca antiga ({@code lower(titulo) like}) com a coluna normalizada indexada.
+ *
+ * Fora da suíte padrão, pois insere muitas linhas:
+ * {@code ./mvnw test -Pbenchmark -Dtest=NormalizedSearchBenchmark}. O volume pode ser ajustado com
+ * {@code -Dbenchmark.rows=1000000}.
+ */
+@QuarkusTest
+class NormalizedSearchBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int RUNS = 20;
+
+    @Test
+    void compareLowerLikeWithNormalizedColumn() {
+        long maxId = QuarkusTransaction.requiringNew().call(() -> (Long) Panache.getEntityManager()
+                .createQuery("select coalesce(max(e.id), 0) from Jogo e").getSingleResult());
+        // Ids da sequence de Jogo, como nos inserts pelo Hibernate: cada linha consome um valor, que
+        // nunca cai em um bloco já reservado pelo otimizador pooled
+        QuarkusTransaction.requiringNew().run(() -> Panache.getEntityManager().createNativeQuery("""
+                insert into Jogo (id, titulo, tituloNormalizado, descricao, anoLancamento, classificacaoIndicativa)
+                select next value for jogo_seq,
+                       case mod(x, 2) when 0 then 'Ação ' else 'Aventura ' end || x,
+                       case mod(x, 2) when 0 then 'acao ' else 'aventura ' end || x,
+                       'Jogo gerado para benchmark', 1990 + mod(x, 35), 'LIVRE'
+                from system_range(1, :rows)
+                """).setParameter("rows", ROWS).executeUpdate());
+
+        try {
+            System.out.printf("Benchmark de busca por título (%d linhas, média de %d execuções)%n", ROWS, RUNS);
+            measure("prefixo  lower(titulo) like", "lower(e.titulo) like :termo", "aventura 4242%");
+            measure("prefixo  tituloNormalizado ", "e.tituloNormalizado like :termo", TextNormalizer.fold("Aventura 4242") + "%");
+            measure("contém   lower(titulo) like", "lower(e.titulo) like :termo", "%ação 4242%");
+            measure("contém   tituloNormalizado ", "e.tituloNormalizado like :termo", TextNormalizer.likePattern("Acao 4242"));
+        } finally {
+            QuarkusTransaction.requiringNew().run(() -> Panache.getEntityManager()
+                    .createQuery("delete from Jogo e where e.id > :maxId")
+                    .setParameter("maxId", maxId)
+                    .executeUpdate());
+        }
+    }
+
+    private static void measure(String label, String condition, String pattern) {
+        String hql = "select e.id from Jogo e where " + condition + " order by e.id";
+        long total = 0;
+        int found = 0;
+        for (int i = 0; i < RUNS + 2; i++) {
+            long start = System.nanoTime();
+            found = QuarkusTransaction.requiringNew().call(() -> Panache.getEntityManager()
+                    .createQuery(hql, Long.class)
+                    .setParameter("termo", pattern)
+                    .setMaxResults(50)
+                    .getResultList()
+                    .size());
+            // As duas primeiras execuções servem de aquecimento
+            if (i >= 2) {
+                total += System.nanoTime() - start;
+            }
+        }
+        System.out.printf("  %s: %.2f ms (%d resultados)%n", label, total / 1_000_000.0 / RUNS, found);
+    }
+}
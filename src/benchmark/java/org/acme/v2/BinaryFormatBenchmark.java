@@ -0,0 +1,118 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.acme.ClassificacaoIndicativa;
+import org.acme.Desenvolvedora;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.acme.SearchJogoResponse;
+import org.acme.format.BinaryFormats;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tamanho de uma página de GET /v2/jogos/search em JSON, CBOR, Smile e Protobuf, e tempo de
+ * codificação (pelos mesmos writers do servidor) e de decodificação (em árvore, como faria um
+ * cliente genérico) da mesma página em cada formato.
+ *
+ * Fora da suíte padrão: {@code ./mvnw test -Pbenchmark -Dtest=BinaryFormatBenchmark}.
+ */
+@QuarkusTest
+class BinaryFormatBenchmark {
+
+    private static final int JOGOS = 100;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    BinaryFormats formats;
+
+    @Test
+    void payloadSizeAndCodecTime() throws Exception {
+        QuarkusTransaction.requiringNew().run(() -> {
+            var desenvolvedora = new Desenvolvedora();
+            desenvolvedora.nome = "Estúdio Formatos " + System.nanoTime();
+            desenvolvedora.paisDeOrigem = "Brasil";
+            desenvolvedora.persist();
+            var genero = new Genero();
+            genero.nome = "Formatos " + System.nanoTime();
+            genero.persist();
+            for (int i = 0; i < JOGOS; i++) {
+                var jogo = new Jogo(null, "Formato " + System.nanoTime() + "-" + i,
+                        "Descrição do jogo " + i + " com algum texto para o payload", 1990 + i % 30, ClassificacaoIndicativa.DOZE);
+                jogo.desenvolvedora = desenvolvedora;
+                jogo.generos.add(genero);
+                jogo.persist();
+            }
+        });
+
+        SearchJogoResponse page = QuarkusTransaction.requiringNew().call(() -> {
+            var response = new SearchJogoResponse();
+            response.jogos = Jogo.listComRelacionamentos(null).stream().limit(JOGOS).toList();
+            response.totalJogos = response.jogos.size();
+            return response;
+        });
+
+        var protobufReader = new ProtobufMapper().readerFor(JsonNode.class)
+                .with(BinaryFormats.loadSchema().withRootType("SearchJogoResponse"));
+        Map<String, Codec> codecs = new LinkedHashMap<>();
+        codecs.put(MediaType.APPLICATION_JSON, new Codec(objectMapper.writer(), objectMapper.readerFor(JsonNode.class)));
+        codecs.put(BinaryFormats.CBOR, new Codec(formats.writer(BinaryFormats.CBOR_TYPE, SearchJogoResponse.class), new CBORMapper().readerFor(JsonNode.class)));
+        codecs.put(BinaryFormats.SMILE, new Codec(formats.writer(BinaryFormats.SMILE_TYPE, SearchJogoResponse.class), new SmileMapper().readerFor(JsonNode.class)));
+        codecs.put(BinaryFormats.PROTOBUF, new Codec(formats.writer(BinaryFormats.PROTOBUF_TYPE, SearchJogoResponse.class), protobufReader));
+
+        System.out.printf("%-28s %10s %10s %12s %12s%n", "formato", "HTTP (B)", "página (B)", "encode (µs)", "decode (µs)");
+        for (Map.Entry<String, Codec> entry : codecs.entrySet()) {
+            String mediaType = entry.getKey();
+            Codec codec = entry.getValue();
+
+            // Tamanho real da resposta, negociada pelo Accept
+            var http = given().accept(mediaType)
+                    .when().get("/api/v2/jogos/search?size=" + JOGOS)
+                    .then().statusCode(200).extract();
+            assertEquals(mediaType, http.contentType().split(";")[0]);
+            int httpBytes = http.asByteArray().length;
+
+            byte[] encoded = codec.writer.writeValueAsBytes(page);
+            // A página decodificada deve trazer todos os jogos em qualquer formato
+            assertEquals(JOGOS, codec.reader.<JsonNode>readValue(encoded).get("jogos").size());
+
+            for (int i = 0; i < WARMUP; i++) {
+                codec.writer.writeValueAsBytes(page);
+                codec.reader.readValue(encoded);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                codec.writer.writeValueAsBytes(page);
+            }
+            double encodeMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                codec.reader.readValue(encoded);
+            }
+            double decodeMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+
+            System.out.printf("%-28s %10d %10d %12.1f %12.1f%n", mediaType, httpBytes, encoded.length, encodeMicros, decodeMicros);
+        }
+    }
+
+    private record Codec(ObjectWriter writer, ObjectReader reader) {
+    }
+}
@@ -0,0 +1,86 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import java.io.UncheckedIOException;
+import java.util.List;
+import org.acme.ClassificacaoIndicativa;
+import org.acme.Desenvolvedora;
+import org.acme.FichaTecnica;
+import org.acme.Jogo;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Bytes por jogo em GET /v2/jogos com a ficha técnica fora da serialização, e quanto a ficha
+ * embutida na desenvolvedora de cada jogo acrescentava (a ficha de cada jogo da página serializada
+ * em JSON, mais o nome do campo). As fichas são medidas no processo, e não por
+ * GET /v2/desenvolvedoras/{id}/ficha, para não esbarrar no rate limit.
+ *
+ * Fora da suíte padrão: {@code ./mvnw test -Pbenchmark -Dtest=JogoPayloadBenchmark}.
+ */
+@QuarkusTest
+class JogoPayloadBenchmark {
+
+    private static final int DESENVOLVEDORAS = 50;
+    private static final int JOGOS_POR_DESENVOLVEDORA = 10;
+    private static final int CAMPO_FICHA = ",\"fichaTecnica\":".length();
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void bytesPerRow() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            for (int d = 0; d < DESENVOLVEDORAS; d++) {
+                var desenvolvedora = new Desenvolvedora();
+                desenvolvedora.nome = "Estúdio Payload " + d;
+                desenvolvedora.paisDeOrigem = "Brasil";
+                desenvolvedora.fichaTecnica = new FichaTecnica("Fundado em 1990. ".repeat(110),
+                        "Jogo A, Jogo B, Jogo C", "Prêmio do público, melhor trilha sonora, jogo do ano");
+                desenvolvedora.persist();
+                for (int j = 0; j < JOGOS_POR_DESENVOLVEDORA; j++) {
+                    var jogo = new Jogo(null, "Payload " + d + "-" + j, "Descrição do jogo " + j, 2000 + j, ClassificacaoIndicativa.LIVRE);
+                    jogo.desenvolvedora = desenvolvedora;
+                    jogo.persist();
+                }
+            }
+        });
+
+        ExtractableResponse<Response> pagina = given().when().get("/api/v2/jogos").then().statusCode(200).extract();
+        byte[] body = pagina.asByteArray();
+        List<Integer> desenvolvedoras = pagina.path("desenvolvedora.id");
+
+        long fichaBytes = QuarkusTransaction.requiringNew().call(() -> {
+            long total = 0;
+            for (Integer id : desenvolvedoras) {
+                Desenvolvedora desenvolvedora = id != null ? Desenvolvedora.findById(id.longValue()) : null;
+                if (desenvolvedora != null && desenvolvedora.fichaTecnica != null) {
+                    total += tamanho(Hibernate.unproxy(desenvolvedora.fichaTecnica)) + CAMPO_FICHA;
+                }
+            }
+            return total;
+        });
+
+        int rows = desenvolvedoras.size();
+        double perRow = (double) body.length / rows;
+        double savedPerRow = (double) fichaBytes / rows;
+        System.out.printf("GET /v2/jogos: %d jogos, %.0f bytes/jogo sem a ficha; a ficha embutida somava %.0f bytes/jogo (%.0f%% do payload anterior)%n",
+                rows, perRow, savedPerRow, 100 * savedPerRow / (perRow + savedPerRow));
+    }
+
+    private int tamanho(Object ficha) {
+        try {
+            return objectMapper.writeValueAsBytes(ficha).length;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
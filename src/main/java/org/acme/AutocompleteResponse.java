@@ -0,0 +1,10 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.acme.search.Suggestion;
+
+public class AutocompleteResponse {
+    public String q;
+    public List<Suggestion> sugestoes = new ArrayList<>();
+}
@@ -0,0 +1,47 @@
+package org.acme;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchJogoResponse {
+    public int criados;
+    public int conflitos;
+    public int invalidos;
+    // Itens de blocos cuja transação falhou ao gravar (nada do bloco foi gravado)
+    public int falhas;
+    // Um resultado por item, na ordem em que os jogos foram enviados
+    public List<Item> itens = new ArrayList<>();
+
+    public enum Status {
+        CREATED, CONFLICT, INVALID, ERROR
+    }
+
+    public static class Item {
+        public int indice;
+        public Status status;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Long id;
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        public List<String> erros;
+
+        static Item of(int indice, Status status, Long id, List<String> erros) {
+            var item = new Item();
+            item.indice = indice;
+            item.status = status;
+            item.id = id;
+            item.erros = erros;
+            return item;
+        }
+    }
+
+    void add(Item item) {
+        itens.add(item);
+        switch (item.status) {
+            case CREATED -> criados++;
+            case CONFLICT -> conflitos++;
+            case INVALID -> invalidos++;
+            case ERROR -> falhas++;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.acme;
+
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.QuarkusApplication;
+import io.quarkus.runtime.annotations.QuarkusMain;
+import jakarta.inject.Inject;
+import java.util.Arrays;
+import org.acme.importer.CatalogImporter;
+
+/**
+ * Ponto de entrada da aplicação. Sem argumentos sobe a API normalmente; com
+ * {@code import <arquivo> ...} executa a importação de catálogo e encerra com o código de saída
+ * dela.
+ *
+ * A aplicação inteira inicializa antes de {@link #run}, então a importação ativa o perfil
+ * {@code import} (somado ao perfil em uso) antes de subir: sem servidor HTTP, que disputaria a
+ * porta com a API já em execução, e sem carregar o catálogo existente nos índices de busca em
+ * memória, que a importação não usa. Em {@code quarkus:dev}, que não passa por {@link #main},
+ * o perfil é informado na linha de comando (veja o README).
+ */
+@QuarkusMain
+public class CatalogApplication implements QuarkusApplication {
+
+    static final String IMPORT_PROFILE = "import";
+
+    @Inject
+    CatalogImporter importer;
+
+    public static void main(String... args) {
+        if (isImport(args)) {
+            String profile = System.getProperty("quarkus.profile", System.getenv().getOrDefault("QUARKUS_PROFILE", "prod"));
+            System.setProperty("quarkus.profile", profile + "," + IMPORT_PROFILE);
+        }
+        Quarkus.run(CatalogApplication.class, args);
+    }
+
+    @Override
+    public int run(String... args) {
+        if (isImport(args)) {
+            return importer.run(Arrays.copyOfRange(args, 1, args.length));
+        }
+        Quarkus.waitForExit();
+        return 0;
+    }
+
+    private static boolean isImport(String... args) {
+        return args.length > 0 && args[0].equals("import");
+    }
+}
@@ -0,0 +1,13 @@
+package org.acme;
+
+import java.util.List;
+
+/**
+ * Várias alterações confirmadas juntas por uma operação em massa (DELETE/PATCH por filtro).
+ *
+ * Disparado uma única vez por operação, também observado em AFTER_SUCCESS, para que cada
+ * observador aplique o conjunto de uma vez (um lock, uma nova versão do índice) em vez de
+ * processar milhares de {@link CatalogChange} isolados.
+ */
+public record CatalogBulkChange(List<CatalogChange> changes) {
+}
@@ -0,0 +1,24 @@
+package org.acme;
+
+/**
+ * Evento disparado pelos caminhos de escrita (POST/PUT/DELETE) das resources V1 e V2.
+ *
+ * Os observadores usam {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}, de modo que
+ * caches e índices em memória só enxergam alterações efetivamente confirmadas no banco.
+ */
+public record CatalogChange(Class<?> entityType, Kind kind, Long id, Object entity) {
+
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    public static CatalogChange created(Class<?> entityType, Long id, Object entity) {
+        return new CatalogChange(entityType, Kind.CREATED, id, entity);
+    }
+
+    public static CatalogChange updated(Class<?> entityType, Long id, Object entity) {
+        return new CatalogChange(entityType, Kind.UPDATED, id, entity);
+    }
+
+    public static CatalogChange deleted(Class<?> entityType, Long id) {
+        return new CatalogChange(entityType, Kind.DELETED, id, null);
+    }
+}
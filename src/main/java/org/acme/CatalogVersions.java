@@ -0,0 +1,142 @@
+package org.acme;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Versões em memória do catálogo, usadas como ETag forte nos GETs V2 (entidade por id e
+ * listagens). Um If-None-Match com a versão atual é respondido com 304 sem consultar o banco.
+ *
+ * Um relógio único é avançado a cada escrita; cada tipo guarda o valor da sua última escrita e
+ * cada entidade, o da última escrita dela (só entidades escritas desde a inicialização entram no
+ * mapa; as demais estão na versão 0). O mapa é limitado ({@code catalog.versions.max-entities}):
+ * ao descartar uma entidade, o tipo passa a ter um piso com a versão dela, e toda entidade fora do
+ * mapa assume o piso do seu tipo. O piso só cresce e nunca fica abaixo da versão de uma entidade
+ * descartada, então uma ETag antiga não volta a valer; o custo é um 200 a mais para quem guardava
+ * a ETag de uma entidade não escrita. A representação de um jogo inclui desenvolvedora e gêneros,
+ * então a versão de um jogo também depende das versões desses dois tipos.
+ *
+ * A versão é avançada duas vezes por escrita: quando o evento é disparado, ainda dentro da
+ * transação, e de novo após o commit. Assim uma ETag calculada entre os dois momentos nunca volta
+ * a valer, e nenhuma ETag atual acompanha dados anteriores ao commit. Escritas fora da API (a
+ * importação pela linha de comando, SQL direto) não são vistas até a próxima inicialização.
+ */
+@ApplicationScoped
+public class CatalogVersions {
+
+    // Tipos cujo estado aparece na representação de outro
+    private static final Map<Class<?>, List<Class<?>>> DEPENDENCIAS = Map.of(
+            Jogo.class, List.of(Desenvolvedora.class, Genero.class)
+    );
+
+    // Distingue as ETags desta execução das de uma anterior, cujos contadores recomeçavam do zero
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    record Chave(Class<?> type, long id) {
+    }
+
+    @ConfigProperty(name = "catalog.versions.max-entities", defaultValue = "100000")
+    long maxEntities;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Class<?>, AtomicLong> tipos = new ConcurrentHashMap<>();
+    // Maior versão já descartada do mapa de entidades, por tipo
+    private final Map<Class<?>, AtomicLong> pisos = new ConcurrentHashMap<>();
+    Cache<Chave, Long> entidades;
+
+    @PostConstruct
+    void init() {
+        entidades = Caffeine.newBuilder()
+                .maximumSize(maxEntities)
+                // Síncrono, dentro da remoção: quem não encontra a entidade já vê o piso atualizado
+                .evictionListener((Chave chave, Long versao, RemovalCause causa) ->
+                        pisos.computeIfAbsent(chave.type(), k -> new AtomicLong()).accumulateAndGet(versao, Math::max))
+                .build();
+    }
+
+    /**
+     * ETag da representação de uma entidade. Varia com o Accept e o Accept-Encoding, já que
+     * JSON, CBOR etc. (e o JSON comprimido) são representações diferentes do mesmo recurso.
+     */
+    public EntityTag entityTag(Class<?> type, long id, HttpHeaders headers) {
+        StringBuilder tag = new StringBuilder(epoch).append('-')
+                .append(versao(type, id));
+        for (Class<?> dependencia : DEPENDENCIAS.getOrDefault(type, List.of())) {
+            tag.append('.').append(versao(dependencia));
+        }
+        return new EntityTag(variante(tag, headers));
+    }
+
+    /**
+     * ETag de uma listagem de um tipo: muda a cada escrita de qualquer entidade do tipo (ou das
+     * suas dependências).
+     */
+    public EntityTag collectionTag(Class<?> type, HttpHeaders headers) {
+        StringBuilder tag = new StringBuilder(epoch).append("-c").append(versao(type));
+        for (Class<?> dependencia : DEPENDENCIAS.getOrDefault(type, List.of())) {
+            tag.append('.').append(versao(dependencia));
+        }
+        return new EntityTag(variante(tag, headers));
+    }
+
+    void onCatalogChangeFired(@Observes CatalogChange change) {
+        avancar(change);
+    }
+
+    void onCatalogChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        avancar(change);
+    }
+
+    void onCatalogBulkChangeFired(@Observes CatalogBulkChange bulk) {
+        bulk.changes().forEach(this::avancar);
+    }
+
+    void onCatalogBulkChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogBulkChange bulk) {
+        bulk.changes().forEach(this::avancar);
+    }
+
+    private void avancar(CatalogChange change) {
+        long agora = clock.incrementAndGet();
+        tipos.computeIfAbsent(change.entityType(), k -> new AtomicLong()).accumulateAndGet(agora, Math::max);
+        if (change.id() != null) {
+            entidades.asMap().merge(new Chave(change.entityType(), change.id()), agora, Math::max);
+        }
+    }
+
+    private long versao(Class<?> type) {
+        AtomicLong versao = tipos.get(type);
+        return versao != null ? versao.get() : 0;
+    }
+
+    private long versao(Class<?> type, long id) {
+        Long versao = entidades.getIfPresent(new Chave(type, id));
+        if (versao != null) {
+            return versao;
+        }
+        AtomicLong piso = pisos.get(type);
+        return piso != null ? piso.get() : 0;
+    }
+
+    // O Accept-Encoding entra porque GET /jogos/{id} pode responder já comprimido (EntityResponseCache)
+    private static String variante(StringBuilder tag, HttpHeaders headers) {
+        String accept = headers.getHeaderString(HttpHeaders.ACCEPT);
+        String encoding = headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+        if ((accept != null && !accept.isBlank()) || encoding != null) {
+            tag.append('-').append(Integer.toHexString((accept + "|" + encoding).hashCode()));
+        }
+        return tag.toString();
+    }
+}
@@ -1,16 +1,24 @@
 package org.acme;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import org.acme.search.TextNormalizer;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 @Entity
+@Cacheable
+// Nome normalizado único: o índice é criado na inicialização (veja NormalizedColumnsBackfill)
 public class Desenvolvedora extends PanacheEntityBase {
+
+    /** Join da ficha técnica, para as respostas da V1, que a serializam (veja {@link DesenvolvedoraComFicha}). */
+    public static final String FETCH_FICHA = "left join fetch e.fichaTecnica";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Schema(readOnly = true)
@@ -20,6 +28,11 @@ public class Desenvolvedora extends PanacheEntityBase {
     @Size(min = 2, max = 100, message = "O nome da desenvolvedora deve ter entre 2 e 100 caracteres")
     public String nome;
 
+    // Nome sem acentos e em minúsculas, mantido pelos callbacks abaixo
+    @JsonIgnore
+    @Column(length = 100)
+    public String nomeNormalizado;
+
     @Past(message = "A data de fundação deve ser no passado")
     public LocalDate dataDeFundacao;
 
@@ -27,8 +40,18 @@ public class Desenvolvedora extends PanacheEntityBase {
     @Size(max = 80)
     public String paisDeOrigem;
 
-    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // País dobrado como o nome, para o LIKE da busca quando o índice em memória não está pronto
+    @JsonIgnore
+    @Column(length = 80)
+    public String paisDeOrigemNormalizado;
+
+    // Lazy e fora da serialização: a ficha (história de até 2000 caracteres, prêmios) é aceita no
+    // POST/PUT, mas na V2 só é lida em GET /v2/desenvolvedoras/{id}/ficha, e não a cada jogo listado.
+    // A V1 continua a devolvê-la (DesenvolvedoraComFicha)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "ficha_tecnica_id")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Schema(writeOnly = true)
     public FichaTecnica fichaTecnica;
 
     @OneToMany(mappedBy = "desenvolvedora", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
@@ -44,4 +67,19 @@ public class Desenvolvedora extends PanacheEntityBase {
         this.paisDeOrigem = paisDeOrigem;
         this.fichaTecnica = fichaTecnica;
     }
+
+    public static List<Desenvolvedora> listComFicha() {
+        return list("select e from Desenvolvedora e " + FETCH_FICHA + " order by e.id");
+    }
+
+    public static Desenvolvedora findComFicha(long id) {
+        return find("select e from Desenvolvedora e " + FETCH_FICHA + " where e.id = ?1", id).firstResult();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizar() {
+        nomeNormalizado = TextNormalizer.fold(nome);
+        paisDeOrigemNormalizado = TextNormalizer.fold(paisDeOrigem);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package org.acme;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.lang.reflect.Type;
+import java.util.function.BiFunction;
+
+/**
+ * Serialização das respostas de /v1/desenvolvedoras (via {@code @CustomSerialization}): a V1 sempre
+ * devolveu a ficha técnica junto da desenvolvedora. Na entidade a ficha é WRITE_ONLY, o que a mantém
+ * fora da V2 e da desenvolvedora embutida em cada jogo; aqui um mixin a torna legível de novo.
+ * Quem chama deve entregar a ficha já carregada ({@link Desenvolvedora#FETCH_FICHA}), e não o proxy lazy.
+ */
+public class DesenvolvedoraComFicha implements BiFunction<ObjectMapper, Type, ObjectWriter> {
+
+    @Override
+    public ObjectWriter apply(ObjectMapper objectMapper, Type type) {
+        return objectMapper.copy().addMixIn(Desenvolvedora.class, ComFicha.class).writer();
+    }
+
+    abstract static class ComFicha {
+        @JsonProperty(access = JsonProperty.Access.READ_WRITE)
+        public FichaTecnica fichaTecnica;
+    }
+}
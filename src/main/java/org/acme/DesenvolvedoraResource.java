@@ -1,7 +1,7 @@
 package org.acme;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import io.quarkus.resteasy.reactive.jackson.CustomSerialization;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
@@ -9,10 +9,20 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import java.net.URI;
-import java.util.List;
-import java.util.Set;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import jakarta.inject.Inject; // NOVO
+import org.acme.search.CountMode;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchExecutor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -25,8 +35,18 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 @Consumes(MediaType.APPLICATION_JSON)
 public class DesenvolvedoraResource {
 
-    @Inject // NOVO: Injeta o serviço de idempotência
-    IdempotencyService idempotencyService;
+    @Inject
+    SearchExecutor searchExecutor;
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    // Estratégia de contagem do total da busca (exact, window, cached ou estimated)
+    @ConfigProperty(name = "search.v1.desenvolvedoras.count-mode", defaultValue = "exact")
+    String countMode;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
 
     @GET
     @Path("/search")
@@ -41,6 +61,7 @@ public class DesenvolvedoraResource {
                     schema = @Schema(implementation = SearchDesenvolvedoraResponse.class)
             )
     )
+    @CustomSerialization(DesenvolvedoraComFicha.class)
     public Response search(
             @Parameter(description = "Query para buscar por nome ou país de origem")
             @QueryParam("q") String q,
@@ -55,50 +76,52 @@ public class DesenvolvedoraResource {
             @QueryParam("page") @DefaultValue("0") int page,
 
             @Parameter(description = "Quantidade de itens por página")
-            @QueryParam("size") @DefaultValue("5") int size
+            @QueryParam("size") @DefaultValue("5") int size,
+
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor
     ){
-        // Validação do campo de ordenação
-        Set<String> allowedSortFields = Set.of("id", "nome", "paisDeOrigem");
-        if (!allowedSortFields.contains(sort)) {
-            sort = "id";
+        SearchQuery<Desenvolvedora> query = SearchQuery.of(Desenvolvedora.class, SearchFields.DESENVOLVEDORA)
+                .fetchJoin(Desenvolvedora.FETCH_FICHA)
+                .sort(sort, direction)
+                .page(page, size);
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
+            }
         }
 
-        // Cria o objeto de ordenação do Panache
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
-
-        // Garante que a página não seja negativa
-        int effectivePage = Math.max(page, 0);
-
-        // Cria a query de busca com Panache
-        PanacheQuery<Desenvolvedora> query;
-        if (q == null || q.isBlank()) {
-            query = Desenvolvedora.findAll(sortObj);
-        } else {
+        if (q != null && !q.isBlank()) {
             // Busca por nome ou país de origem (case-insensitive)
-            query = Desenvolvedora.find(
-                    "lower(nome) like ?1 or lower(paisDeOrigem) like ?1",
-                    sortObj,
-                    "%" + q.toLowerCase() + "%"
-            );
+            long[] ids = searchIndexes.desenvolvedoraIds(q);
+            if (ids != null) {
+                query.whereIdIn(ids);
+            } else {
+                query.where("(e.nomeNormalizado like :termo escape '\\' or e.paisDeOrigemNormalizado like :termo escape '\\')")
+                        .param("termo", TextNormalizer.likePattern(q));
+            }
         }
 
-        // Aplica a paginação
-        List<Desenvolvedora> desenvolvedoras = query.page(effectivePage, size).list();
+        SearchResult<Desenvolvedora> result = searchExecutor.execute(query, CountMode.from(countMode));
 
-        // Monta o objeto de resposta
         var response = new SearchDesenvolvedoraResponse();
-        response.desenvolvedoras = desenvolvedoras;
-        response.totalDesenvolvedoras = query.count();
-        response.totalPages = query.pageCount();
-        response.hasMore = effectivePage < (query.pageCount() - 1);
+        response.desenvolvedoras = result.items;
+        response.totalDesenvolvedoras = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalDesenvolvedoras + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
 
         if (response.hasMore) {
-            String nextPageUrl = String.format("http://localhost:8080/v1/desenvolvedoras/search?q=%s&page=%d&size=%d&sort=%s&direction=%s",
-                    (q != null ? q : ""), (effectivePage + 1), size, sort, direction);
-            response.nextPage = nextPageUrl;
+            // O link da próxima página usa o cursor, evitando OFFSET em páginas profundas
+            response.nextPage = String.format("http://localhost:8080/v1/desenvolvedoras/search?q=%s&size=%d&sort=%s&direction=%s&cursor=%s",
+                    URLEncoder.encode(q != null ? q : "", StandardCharsets.UTF_8), query.size(),
+                    query.sortName(), query.direction(), result.nextCursor);
         } else {
             response.nextPage = "";
         }
@@ -109,8 +132,9 @@ public class DesenvolvedoraResource {
     @GET
     @Operation(summary = "Retorna todas as desenvolvedoras (V1)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Desenvolvedora.class, type = SchemaType.ARRAY)))
+    @CustomSerialization(DesenvolvedoraComFicha.class)
     public Response getAll() {
-        return Response.ok(Desenvolvedora.listAll()).build();
+        return Response.ok(Desenvolvedora.listComFicha()).build();
     }
 
     @GET
@@ -118,8 +142,9 @@ public class DesenvolvedoraResource {
     @Operation(summary = "Retorna uma desenvolvedora por ID (V1)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Desenvolvedora.class)))
     @APIResponse(responseCode = "404", description = "Desenvolvedora não encontrada")
+    @CustomSerialization(DesenvolvedoraComFicha.class)
     public Response getById(@Parameter(description = "ID da desenvolvedora", required = true) @PathParam("id") long id) {
-        Desenvolvedora entity = Desenvolvedora.findById(id);
+        Desenvolvedora entity = Desenvolvedora.findComFicha(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -132,41 +157,21 @@ public class DesenvolvedoraResource {
     @APIResponse(responseCode = "201", description = "Desenvolvedora criada", content = @Content(schema = @Schema(implementation = Desenvolvedora.class)))
     @APIResponse(responseCode = "400", description = "Requisição inválida")
     @APIResponse(responseCode = "409", description = "Conflito - Desenvolvedora com o mesmo nome já existe")
-    public Response insert(@Valid Desenvolvedora desenvolvedora,
-                           @Parameter(description = "Chave única para garantir a idempotência da requisição.")
-                           @HeaderParam("Idempotency-Key") String idempotencyKey) { // NOVO
-
-        // 1. Lógica de Idempotência: Verifica se a chave já existe no cache
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Response cachedResponse = idempotencyService.getResponse(idempotencyKey);
-            if (cachedResponse != null) {
-                return cachedResponse; // Retorna a resposta armazenada
-            }
-        }
-
-        // 2. Lógica de Negócio: Validação e Persistência
-        if (Desenvolvedora.find("nome", desenvolvedora.nome).count() > 0) {
-            Response conflictResponse = Response.status(Response.Status.CONFLICT)
-                    .entity("{\"message\": \"Uma desenvolvedora com o nome '" + desenvolvedora.nome + "' já está cadastrada.\"}")
-                    .build();
-
-            // Cacha a resposta de erro
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                idempotencyService.cacheResponse(idempotencyKey, conflictResponse);
-            }
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência da requisição.")
+    @CustomSerialization(DesenvolvedoraComFicha.class)
+    public Response insert(@Valid Desenvolvedora desenvolvedora) {
+        // Persistência: a unicidade do nome é garantida pelo índice único; o flush leva o insert
+        // ao banco aqui para que uma violação (inclusive de uma requisição concorrente) vire 409
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.DESENVOLVEDORA_NOME,
+                "Uma desenvolvedora com o nome '" + desenvolvedora.nome + "' já está cadastrada.", desenvolvedora::persistAndFlush);
+        if (conflictResponse != null) {
             return conflictResponse;
         }
 
-        Desenvolvedora.persist(desenvolvedora);
+        catalogChanges.fire(CatalogChange.created(Desenvolvedora.class, desenvolvedora.id, desenvolvedora));
         URI location = UriBuilder.fromResource(DesenvolvedoraResource.class).path("{id}").build(desenvolvedora.id);
-        Response response = Response.created(location).entity(desenvolvedora).build();
-
-        // 3. Cache a Resposta
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyService.cacheResponse(idempotencyKey, response);
-        }
-
-        return response;
+        return Response.created(location).entity(desenvolvedora).build();
     }
 
     @PUT
@@ -175,8 +180,11 @@ public class DesenvolvedoraResource {
     @Operation(summary = "Atualiza uma desenvolvedora existente (V1)")
     @APIResponse(responseCode = "200", description = "Desenvolvedora atualizada", content = @Content(schema = @Schema(implementation = Desenvolvedora.class)))
     @APIResponse(responseCode = "404", description = "Desenvolvedora não encontrada")
+    @APIResponse(responseCode = "409", description = "Conflito - Outra desenvolvedora já usa o nome")
+    @CustomSerialization(DesenvolvedoraComFicha.class)
     public Response update(@PathParam("id") long id, @Valid Desenvolvedora newDesenvolvedora) {
-        Desenvolvedora entity = Desenvolvedora.findById(id);
+        // Com a ficha já carregada: a resposta a serializa, e um proxy lazy não seria serializável
+        Desenvolvedora entity = Desenvolvedora.findComFicha(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -195,6 +203,13 @@ public class DesenvolvedoraResource {
             entity.fichaTecnica = null;
         }
 
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.DESENVOLVEDORA_NOME,
+                "Uma desenvolvedora com o nome '" + newDesenvolvedora.nome + "' já está cadastrada.", Desenvolvedora::flush);
+        if (conflictResponse != null) {
+            return conflictResponse;
+        }
+
+        catalogChanges.fire(CatalogChange.updated(Desenvolvedora.class, entity.id, entity));
         return Response.ok(entity).build();
     }
 
@@ -217,6 +232,7 @@ public class DesenvolvedoraResource {
                     .build();
         }
         Desenvolvedora.deleteById(id);
+        catalogChanges.fire(CatalogChange.deleted(Desenvolvedora.class, id));
         return Response.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package org.acme;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.acme.format.BinaryFormats;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Respostas JSON já serializadas de GET /jogos/{id} (V1 e V2), por tipo e id da entidade.
+ *
+ * Um acerto devolve os bytes guardados sem consultar o banco nem passar pelo Jackson; com
+ * {@code response-cache.gzip} habilitado, também a versão comprimida, para clientes que aceitam
+ * gzip. Na V2, CBOR, Smile e Protobuf são transcodificados da mesma entrada JSON: a leitura do
+ * banco continua uma só por jogo, compartilhada pelas requisições de qualquer formato. O cache é limitado pelo total de bytes e o Caffeine escolhe o que descartar (W-TinyLFU).
+ *
+ * Cada entrada guarda as entidades embutidas na resposta (a desenvolvedora e os gêneros do jogo),
+ * e uma escrita confirmada remove a própria entidade e as entradas que a embutem, e nada mais.
+ * Para que uma leitura feita antes de um commit não grave no cache dados que o commit acabou de
+ * substituir, a entrada recém-gravada é descartada se alguma invalidação ocorreu durante a
+ * leitura.
+ */
+@ApplicationScoped
+public class EntityResponseCache {
+
+    public record Key(Class<?> type, long id) {
+    }
+
+    record Entry(byte[] json, byte[] gzip, Set<Key> embutidas) {
+        int weight() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    @ConfigProperty(name = "response-cache.max-bytes", defaultValue = "33554432")
+    long maxBytes;
+
+    @ConfigProperty(name = "response-cache.gzip", defaultValue = "false")
+    boolean gzip;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    @Inject
+    BinaryFormats binaryFormats;
+
+    private Cache<Key, Entry> cache;
+    // Tipos que aparecem embutidos em alguma entrada; só escritas deles exigem varrer o cache
+    private final Set<Class<?>> tiposEmbutidos = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidacoes = new AtomicLong();
+    private final AtomicLong insercoes = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param etag ETag a enviar com a resposta, ou null
+     * @return a resposta (200 ou 404), ou null se o cliente não negociou JSON e a resposta deve
+     *         seguir o caminho normal de serialização
+     */
+    public Response jogo(long id, HttpHeaders headers, EntityTag etag) {
+        if (!negociaJson(headers)) {
+            return null;
+        }
+        Entry entry = entrada(id);
+        if (entry == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        Response.ResponseBuilder response;
+        if (entry.gzip() != null && aceitaGzip(headers)) {
+            response = Response.ok(entry.gzip(), MediaType.APPLICATION_JSON_TYPE)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else {
+            response = Response.ok(entry.json(), MediaType.APPLICATION_JSON_TYPE);
+        }
+        if (entry.gzip() != null) {
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (etag != null) {
+            response.tag(etag);
+        }
+        return response.build();
+    }
+
+    /**
+     * O jogo em um formato binário (veja {@link BinaryFormats#negotiated(HttpHeaders)}), codificado a
+     * partir da árvore do JSON guardado, sem voltar ao banco.
+     *
+     * @param etag ETag a enviar com a resposta, ou null
+     * @return a resposta (200 ou 404)
+     */
+    public Response jogo(long id, MediaType formato, EntityTag etag) {
+        Entry entry = entrada(id);
+        if (entry == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        byte[] bytes;
+        try {
+            bytes = binaryFormats.writer(formato, Jogo.class).writeValueAsBytes(objectMapper.readTree(entry.json()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Response.ResponseBuilder response = Response.ok(bytes, formato);
+        if (etag != null) {
+            response.tag(etag);
+        }
+        return response.build();
+    }
+
+    /**
+     * Entrada do jogo, lida do banco em caso de falha, ou null se o jogo não existir. Requisições
+     * simultâneas pelo mesmo jogo compartilham uma única leitura e serialização.
+     */
+    Entry entrada(long id) {
+        Key key = new Key(Jogo.class, id);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            return entry;
+        }
+        long antes = invalidacoes.get();
+        // O contador entra na chave: quem chega depois de uma invalidação não espera por uma leitura anterior a ela
+        return singleFlight.execute(List.of(key, antes), () -> {
+            // Outra requisição pode ter gravado a entrada entre a consulta acima e o início desta carga
+            Entry gravada = cache.asMap().get(key);
+            if (gravada != null) {
+                return gravada;
+            }
+            Jogo jogo = Jogo.findById(id);
+            if (jogo == null) {
+                return null;
+            }
+            Set<Key> embutidas = new HashSet<>();
+            if (jogo.desenvolvedora != null) {
+                embutidas.add(new Key(Desenvolvedora.class, jogo.desenvolvedora.id));
+            }
+            for (Genero genero : jogo.generos) {
+                embutidas.add(new Key(Genero.class, genero.id));
+            }
+            Entry carregada = serializar(jogo, embutidas);
+            embutidas.forEach(k -> tiposEmbutidos.add(k.type()));
+            cache.put(key, carregada);
+            insercoes.incrementAndGet();
+            if (invalidacoes.get() != antes) {
+                cache.invalidate(key);
+            }
+            return carregada;
+        });
+    }
+
+    /**
+     * Esvazia o cache (as próximas leituras voltam ao banco e ao Jackson).
+     */
+    public void clear() {
+        invalidacoes.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public StatsResource.CacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new StatsResource.CacheStats(stats.hitCount(), stats.missCount(), insercoes.get(), cache.estimatedSize());
+    }
+
+    void onCatalogChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        invalidar(List.of(new Key(change.entityType(), change.id())));
+    }
+
+    void onCatalogBulkChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogBulkChange bulk) {
+        invalidar(bulk.changes().stream().map(c -> new Key(c.entityType(), c.id())).toList());
+    }
+
+    private void invalidar(Collection<Key> alteradas) {
+        // Incrementado antes de remover: uma leitura em andamento que grave depois disso se descarta
+        invalidacoes.incrementAndGet();
+        cache.invalidateAll(alteradas);
+        if (alteradas.stream().anyMatch(k -> tiposEmbutidos.contains(k.type()))) {
+            Set<Key> conjunto = new HashSet<>(alteradas);
+            cache.asMap().values().removeIf(entry -> !Collections.disjoint(entry.embutidas(), conjunto));
+        }
+    }
+
+    private Entry serializar(Object entity, Set<Key> embutidas) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(entity);
+            return new Entry(json, gzip ? comprimir(json) : null, Set.copyOf(embutidas));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) {
+        var bytes = new ByteArrayOutputStream(json.length / 3);
+        try (var out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Primeiro tipo aceito pelo cliente (o Accept ausente equivale a */*)
+    private static boolean negociaJson(HttpHeaders headers) {
+        List<MediaType> aceitos = headers.getAcceptableMediaTypes();
+        return aceitos.isEmpty() || aceitos.get(0).isCompatible(MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    private static boolean aceitaGzip(HttpHeaders headers) {
+        String acceptEncoding = headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] partes = token.trim().split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                return partes.length == 1 || !partes[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contagens por faceta retornadas junto com a busca de jogos (V2).
+ */
+public class Facets {
+    public List<Contagem> generos = new ArrayList<>();
+    public List<Contagem> classificacoes = new ArrayList<>();
+    // Anos de lançamento agrupados por década ("2010" = 2010 a 2019)
+    public List<Contagem> anos = new ArrayList<>();
+    public List<Contagem> desenvolvedoras = new ArrayList<>();
+
+    public static class Contagem {
+        public String valor;
+        public String rotulo;
+        public long total;
+
+        public Contagem() {}
+
+        public Contagem(String valor, String rotulo, long total) {
+            this.valor = valor;
+            this.rotulo = rotulo;
+            this.total = total;
+        }
+    }
+}
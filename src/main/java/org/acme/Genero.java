@@ -7,9 +7,12 @@ import jakarta.validation.constraints.*;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import java.util.HashSet;
 import java.util.Set;
+import org.acme.search.TextNormalizer;
 
 
 @Entity
+@Cacheable
+// Nome normalizado único: o índice é criado na inicialização (veja NormalizedColumnsBackfill)
 public class Genero extends PanacheEntityBase {
 
     @Id
@@ -21,12 +24,29 @@ public class Genero extends PanacheEntityBase {
     @Size(min = 2, max = 50, message = "Nome do gênero deve ter entre 2 e 50 caracteres")
     public String nome;
 
+    // Nome sem acentos e em minúsculas ("Ação" -> "acao"), mantido pelos callbacks abaixo
+    @JsonIgnore
+    @Column(length = 50)
+    public String nomeNormalizado;
+
     @Size(max = 200, message = "A descrição não pode ultrapassar 200 caracteres")
     public String descricao;
 
+    // Descrição dobrada como o nome, para o LIKE da busca quando o índice em memória não está pronto
+    @JsonIgnore
+    @Column(length = 200)
+    public String descricaoNormalizada;
+
     @ManyToMany(mappedBy = "generos", fetch = FetchType.LAZY)
     @JsonIgnore
     public Set<Jogo> jogos = new HashSet<>();
 
     public Genero() {}
+
+    @PrePersist
+    @PreUpdate
+    void normalizar() {
+        nomeNormalizado = TextNormalizer.fold(nome);
+        descricaoNormalizada = TextNormalizer.fold(descricao);
+    }
 }
\ No newline at end of file
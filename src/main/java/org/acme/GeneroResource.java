@@ -1,7 +1,6 @@
 package org.acme;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
@@ -9,10 +8,20 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import java.net.URI;
-import java.util.List;
-import java.util.Set;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import jakarta.inject.Inject; // NOVO
+import org.acme.search.CountMode;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchExecutor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -25,8 +34,18 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 @Consumes(MediaType.APPLICATION_JSON)
 public class GeneroResource {
 
-    @Inject // NOVO: Injeta o serviço de idempotência
-    IdempotencyService idempotencyService;
+    @Inject
+    SearchExecutor searchExecutor;
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    // Estratégia de contagem do total da busca (exact, window, cached ou estimated)
+    @ConfigProperty(name = "search.v1.generos.count-mode", defaultValue = "exact")
+    String countMode;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
 
     @GET
     @Path("/search")
@@ -55,48 +74,50 @@ public class GeneroResource {
             @QueryParam("page") @DefaultValue("0") int page,
 
             @Parameter(description = "Quantidade de itens por página")
-            @QueryParam("size") @DefaultValue("5") int size
+            @QueryParam("size") @DefaultValue("5") int size,
+
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor
     ){
-        // Validação do campo de ordenação
-        Set<String> allowedSortFields = Set.of("id", "nome", "descricao");
-        if (!allowedSortFields.contains(sort)) {
-            sort = "id";
+        SearchQuery<Genero> query = SearchQuery.of(Genero.class, SearchFields.GENERO)
+                .sort(sort, direction)
+                .page(page, size);
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
+            }
         }
 
-        // Cria o objeto de ordenação do Panache
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
-
-        int effectivePage = Math.max(page, 0);
-
-        // Cria a query de busca com Panache
-        PanacheQuery<Genero> query;
-        if (q == null || q.isBlank()) {
-            query = Genero.findAll(sortObj);
-        } else {
-            query = Genero.find(
-                    "lower(nome) like ?1 or lower(descricao) like ?1",
-                    sortObj,
-                    "%" + q.toLowerCase() + "%"
-            );
+        if (q != null && !q.isBlank()) {
+            long[] ids = searchIndexes.generoIds(q);
+            if (ids != null) {
+                query.whereIdIn(ids);
+            } else {
+                query.where("(e.nomeNormalizado like :termo escape '\\' or e.descricaoNormalizada like :termo escape '\\')")
+                        .param("termo", TextNormalizer.likePattern(q));
+            }
         }
 
-        // Aplica a paginação
-        List<Genero> generos = query.page(effectivePage, size).list();
+        SearchResult<Genero> result = searchExecutor.execute(query, CountMode.from(countMode));
 
-        // Monta o objeto de resposta
         var response = new SearchGeneroResponse();
-        response.generos = generos;
-        response.totalGeneros = query.count();
-        response.totalPages = query.pageCount();
-        response.hasMore = effectivePage < (query.pageCount() - 1);
+        response.generos = result.items;
+        response.totalGeneros = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalGeneros + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
 
         if (response.hasMore) {
-            String nextPageUrl = String.format("http://localhost:8080/v1/generos/search?q=%s&page=%d&size=%d&sort=%s&direction=%s",
-                    (q != null ? q : ""), (effectivePage + 1), size, sort, direction);
-            response.nextPage = nextPageUrl;
+            // O link da próxima página usa o cursor, evitando OFFSET em páginas profundas
+            response.nextPage = String.format("http://localhost:8080/v1/generos/search?q=%s&size=%d&sort=%s&direction=%s&cursor=%s",
+                    URLEncoder.encode(q != null ? q : "", StandardCharsets.UTF_8), query.size(),
+                    query.sortName(), query.direction(), result.nextCursor);
         } else {
             response.nextPage = "";
         }
@@ -130,41 +151,20 @@ public class GeneroResource {
     @APIResponse(responseCode = "201", description = "Gênero criado", content = @Content(schema = @Schema(implementation = Genero.class)))
     @APIResponse(responseCode = "400", description = "Requisição inválida")
     @APIResponse(responseCode = "409", description = "Conflito - Gênero com o mesmo nome já existe")
-    public Response insert(@Valid Genero genero,
-                           @Parameter(description = "Chave única para garantir a idempotência da requisição.")
-                           @HeaderParam("Idempotency-Key") String idempotencyKey) { // NOVO
-
-        // 1. Lógica de Idempotência: Verifica se a chave já existe no cache
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Response cachedResponse = idempotencyService.getResponse(idempotencyKey);
-            if (cachedResponse != null) {
-                return cachedResponse; // Retorna a resposta armazenada
-            }
-        }
-
-        // 2. Lógica de Negócio: Validação e Persistência
-        if (Genero.find("nome", genero.nome).count() > 0) {
-            Response conflictResponse = Response.status(Response.Status.CONFLICT)
-                    .entity("{\"message\": \"Um gênero com o nome '" + genero.nome + "' já está cadastrado.\"}")
-                    .build();
-
-            // Cacha a resposta de erro
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                idempotencyService.cacheResponse(idempotencyKey, conflictResponse);
-            }
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência da requisição.")
+    public Response insert(@Valid Genero genero) {
+        // Persistência: a unicidade do nome é garantida pelo índice único; o flush leva o insert
+        // ao banco aqui para que uma violação (inclusive de uma requisição concorrente) vire 409
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.GENERO_NOME,
+                "Um gênero com o nome '" + genero.nome + "' já está cadastrado.", genero::persistAndFlush);
+        if (conflictResponse != null) {
             return conflictResponse;
         }
 
-        Genero.persist(genero);
+        catalogChanges.fire(CatalogChange.created(Genero.class, genero.id, genero));
         URI location = UriBuilder.fromResource(GeneroResource.class).path("{id}").build(genero.id);
-        Response response = Response.created(location).entity(genero).build();
-
-        // 3. Cache a Resposta
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyService.cacheResponse(idempotencyKey, response);
-        }
-
-        return response;
+        return Response.created(location).entity(genero).build();
     }
 
     @PUT
@@ -173,6 +173,7 @@ public class GeneroResource {
     @Operation(summary = "Atualiza um gênero existente (V1)")
     @APIResponse(responseCode = "200", description = "Gênero atualizado", content = @Content(schema = @Schema(implementation = Genero.class)))
     @APIResponse(responseCode = "404", description = "Gênero não encontrado")
+    @APIResponse(responseCode = "409", description = "Conflito - Outro gênero já usa o nome")
     public Response update(@PathParam("id") long id, @Valid Genero newGenero) {
         Genero entity = Genero.findById(id);
         if (entity == null) {
@@ -180,6 +181,13 @@ public class GeneroResource {
         }
         entity.nome = newGenero.nome;
         entity.descricao = newGenero.descricao;
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.GENERO_NOME,
+                "Um gênero com o nome '" + newGenero.nome + "' já está cadastrado.", Genero::flush);
+        if (conflictResponse != null) {
+            return conflictResponse;
+        }
+
+        catalogChanges.fire(CatalogChange.updated(Genero.class, entity.id, entity));
         return Response.ok(entity).build();
     }
 
@@ -203,6 +211,7 @@ public class GeneroResource {
                     .build();
         }
         Genero.deleteById(id);
+        catalogChanges.fire(CatalogChange.deleted(Genero.class, id));
         return Response.noContent().build();
     }
 }
\ No newline at end of file
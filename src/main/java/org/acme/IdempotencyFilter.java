@@ -0,0 +1,76 @@
+package org.acme;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.resteasy.reactive.jackson.CustomSerialization;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Response;
+import java.lang.reflect.Method;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+
+/**
+ * Aplica o Idempotency-Key aos métodos marcados com {@link Idempotent}: repete a resposta guardada,
+ * faz repetições simultâneas esperarem a primeira requisição e guarda a resposta dela ao final.
+ * Roda depois da autenticação (ApiKeyFilter), para que uma chave não revele respostas a quem não
+ * poderia fazer o POST.
+ */
+public class IdempotencyFilter {
+
+    private static final String HEADER = "Idempotency-Key";
+
+    private static final String CLAIM = IdempotencyFilter.class.getName() + ".claim";
+
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ServerRequestFilter
+    public Uni<Response> claim(ContainerRequestContext request, ResourceInfo resourceInfo) {
+        String key = request.getHeaderString(HEADER);
+        if (key == null || key.isBlank() || !resourceInfo.getResourceMethod().isAnnotationPresent(Idempotent.class)) {
+            return Uni.createFrom().nullItem();
+        }
+        return Uni.createFrom().completionStage(() -> idempotencyService.acquire(key))
+                // Quem esperou é liberado na thread da requisição que terminou (ou do timer do claim);
+                // a execução continua em uma thread do pool, e não na dela
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .map(acquisition -> {
+                    if (acquisition.replay() != null) {
+                        return acquisition.replay();
+                    }
+                    request.setProperty(CLAIM, acquisition.claim());
+                    return null;
+                });
+    }
+
+    @ServerResponseFilter
+    public void store(ContainerRequestContext request, ContainerResponseContext response, ResourceInfo resourceInfo) {
+        if (request.getProperty(CLAIM) instanceof IdempotencyService.Claim claim) {
+            request.removeProperty(CLAIM);
+            idempotencyService.complete(claim, response.getStatus(), response.getMediaType(),
+                    response.getStringHeaders(), response.getEntity(), jsonWriter(resourceInfo.getResourceMethod()));
+        }
+    }
+
+    // O corpo guardado é serializado como a resposta: métodos com @CustomSerialization (a V1 de
+    // desenvolvedoras, que inclui a ficha técnica) usam o writer deles
+    private ObjectWriter jsonWriter(Method method) {
+        CustomSerialization custom = method.getAnnotation(CustomSerialization.class);
+        if (custom == null) {
+            return null;
+        }
+        try {
+            return custom.value().getDeclaredConstructor().newInstance().apply(objectMapper, method.getGenericReturnType());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Serialização de " + method + " não pôde ser criada", e);
+        }
+    }
+}
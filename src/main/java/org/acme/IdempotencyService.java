@@ -1,36 +1,251 @@
 package org.acme;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.acme.format.BinaryFormats;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * Serviço responsável por gerenciar chaves de idempotência em operações POST.
  * Em produção, o cache seria tipicamente feito via Redis ou um banco de dados dedicado.
+ *
+ * Cada chave guarda apenas status, cabeçalhos e o corpo já serializado da primeira resposta, e
+ * não o {@link Response} (que prenderia a entidade e o grafo carregado com ela). As entradas
+ * expiram após {@code idempotency.ttl}, removidas pela roda de temporizadores do Caffeine mesmo
+ * sem novos acessos, e o armazenamento é limitado em número de chaves e em bytes: cada entrada pesa
+ * o tamanho do corpo e dos cabeçalhos, mas nunca menos que max-bytes / max-entries, o que mantém
+ * as duas contas dentro dos limites.
+ *
+ * Enquanto a primeira requisição de uma chave executa, ela detém um claim da chave; repetições
+ * simultâneas esperam pelo resultado dela (sem ocupar thread: a espera é um CompletableFuture) em
+ * vez de executarem o POST de novo. O claim vence após {@code idempotency.claim-timeout}: se quem o
+ * detém travar ou cair, a próxima requisição assume a chave. Os claims ficam em um
+ * ConcurrentHashMap, então chaves diferentes não disputam o mesmo lock.
  */
 @ApplicationScoped
 public class IdempotencyService {
 
-    // Simula um repositório: armazena a chave e a resposta HTTP da primeira requisição
-    private final Map<String, Response> cache = new ConcurrentHashMap<>();
+    record StoredResponse(int status, MediaType mediaType, List<Map.Entry<String, String>> headers, byte[] body) {
+        int weight() {
+            int weight = body.length;
+            for (Map.Entry<String, String> header : headers) {
+                weight += header.getKey().length() + header.getValue().length();
+            }
+            return weight;
+        }
+    }
+
+    /**
+     * Posse de uma chave pela requisição que a está executando.
+     */
+    static final class Claim {
+        final String key;
+        final long expiresAt;
+        // Completado com a resposta guardada, ou com null se a requisição terminou sem guardar nada
+        final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        Claim(String key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+
+    /**
+     * Resultado de {@link #acquire}: a resposta a repetir, ou o claim para executar a requisição.
+     */
+    record Acquisition(Response replay, Claim claim) {
+    }
+
+    @ConfigProperty(name = "idempotency.ttl", defaultValue = "24H")
+    Duration ttl;
+
+    @ConfigProperty(name = "idempotency.max-entries", defaultValue = "100000")
+    long maxEntries;
+
+    @ConfigProperty(name = "idempotency.max-bytes", defaultValue = "67108864")
+    long maxBytes;
+
+    @ConfigProperty(name = "idempotency.claim-timeout", defaultValue = "30S")
+    Duration claimTimeout;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    BinaryFormats formats;
+
+    private Cache<String, StoredResponse> cache;
+    private final Map<String, Claim> claims = new ConcurrentHashMap<>();
+    private final AtomicLong aguardaram = new AtomicLong();
+    private final AtomicLong claimsVencidos = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        int pesoMinimo = (int) Math.max(1, maxBytes / maxEntries);
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                // Sem o scheduler, entradas expiradas só sairiam da memória em acessos ao cache
+                .scheduler(Scheduler.systemScheduler())
+                .maximumWeight(maxBytes)
+                .weigher((String key, StoredResponse stored) -> Math.max(pesoMinimo, stored.weight() + key.length()))
+                .recordStats()
+                .build();
+    }
 
     /**
-     * Retorna a resposta armazenada se a chave de idempotência já tiver sido usada.
-     * * @param idempotencyKey A chave única fornecida pelo cliente.
-     * @return A resposta da requisição original ou null se a chave for nova.
+     * Resposta guardada para a chave, ou o claim dela. Se outra requisição detém a chave, o
+     * resultado só fica pronto quando ela terminar (ou quando o claim dela vencer).
      */
-    public Response getResponse(String idempotencyKey) {
-        return cache.get(idempotencyKey);
+    CompletionStage<Acquisition> acquire(String key) {
+        StoredResponse stored = cache.getIfPresent(key);
+        if (stored != null) {
+            return CompletableFuture.completedFuture(new Acquisition(replay(stored), null));
+        }
+
+        Claim nova = new Claim(key, System.nanoTime() + claimTimeout.toNanos());
+        Claim atual = claims.compute(key, (k, existente) -> existente == null || existente.expired() ? nova : existente);
+        if (atual == nova) {
+            // O dono anterior pode ter guardado a resposta e liberado a chave entre a consulta acima e o claim
+            stored = cache.asMap().get(key);
+            if (stored != null) {
+                claims.remove(key, nova);
+                nova.result.complete(stored);
+                return CompletableFuture.completedFuture(new Acquisition(replay(stored), null));
+            }
+            return CompletableFuture.completedFuture(new Acquisition(null, nova));
+        }
+
+        aguardaram.incrementAndGet();
+        long restante = Math.max(0, atual.expiresAt - System.nanoTime());
+        return atual.result.copy()
+                .orTimeout(restante, TimeUnit.NANOSECONDS)
+                .<CompletionStage<Acquisition>>handle((resposta, erro) -> {
+                    if (resposta != null) {
+                        return CompletableFuture.completedFuture(new Acquisition(replay(resposta), null));
+                    }
+                    if (erro != null) {
+                        // O dono não terminou a tempo: o claim vencido é descartado e a chave é disputada de novo
+                        if (claims.remove(key, atual)) {
+                            claimsVencidos.incrementAndGet();
+                        }
+                    }
+                    // Sem resposta guardada (ex.: 400 ou 500), a requisição tenta a chave de novo
+                    return acquire(key);
+                })
+                .thenCompose(Function.identity());
     }
 
     /**
-     * Armazena a chave de idempotência e a resposta HTTP da operação recém-concluída.
-     * * @param idempotencyKey A chave única fornecida pelo cliente.
-     * @param response A resposta HTTP bem-sucedida (ex: 201 Created).
+     * Encerra o claim com a resposta da requisição. São guardadas as respostas de sucesso e de
+     * conflito (409); erros de validação e do servidor não, e a próxima tentativa com a mesma
+     * chave executa de novo.
+     *
+     * @param json writer JSON do método (de {@code @CustomSerialization}), ou null para o padrão
      */
-    public void cacheResponse(String idempotencyKey, Response response) {
-        // Armazena a resposta, impedindo que requisições duplicadas sejam processadas.
-        cache.putIfAbsent(idempotencyKey, response);
+    void complete(Claim claim, int status, MediaType mediaType, MultivaluedMap<String, String> headers, Object entity, ObjectWriter json) {
+        StoredResponse stored = null;
+        if (status < 300 || status == Response.Status.CONFLICT.getStatusCode()) {
+            try {
+                StoredResponse nova = store(status, mediaType, headers, entity, json);
+                StoredResponse anterior = cache.asMap().putIfAbsent(claim.key, nova);
+                stored = anterior != null ? anterior : nova;
+            } catch (RuntimeException e) {
+                Log.warnf(e, "Resposta da chave de idempotência %s não pôde ser guardada", claim.key);
+            }
+        }
+        // Guardada antes de liberar a chave: quem assumir a chave em seguida já encontra a resposta
+        claims.remove(claim.key, claim);
+        claim.result.complete(stored);
+    }
+
+    public Stats stats() {
+        CacheStats stats = cache.stats();
+        long bytes = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+        return new Stats(cache.estimatedSize(), bytes, stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                claims.size(), aguardaram.get(), claimsVencidos.get());
+    }
+
+    /**
+     * @param bytes          peso total das entradas (inclui o peso mínimo das respostas pequenas)
+     * @param remocoes       entradas removidas por expiração ou pelos limites
+     * @param emAndamento    chaves com uma requisição executando agora
+     * @param aguardaram     requisições que esperaram outra com a mesma chave
+     * @param claimsVencidos claims descartados porque o dono não terminou dentro do timeout
+     */
+    public record Stats(long chaves, long bytes, long acertos, long falhas, long remocoes,
+                        int emAndamento, long aguardaram, long claimsVencidos) {
+    }
+
+    private static Response replay(StoredResponse stored) {
+        Response.ResponseBuilder response = Response.status(stored.status());
+        for (Map.Entry<String, String> header : stored.headers()) {
+            response.header(header.getKey(), header.getValue());
+        }
+        if (stored.body().length > 0) {
+            response.entity(stored.body()).type(stored.mediaType());
+        }
+        return response.build();
+    }
+
+    private StoredResponse store(int status, MediaType mediaType, MultivaluedMap<String, String> headers, Object entity, ObjectWriter json) {
+        List<Map.Entry<String, String>> copia = new ArrayList<>();
+        headers.forEach((name, values) -> {
+            if (!name.equalsIgnoreCase("Content-Type")) {
+                values.forEach(value -> copia.add(Map.entry(name, value)));
+            }
+        });
+        MediaType type = mediaType != null ? mediaType : MediaType.APPLICATION_JSON_TYPE;
+        return new StoredResponse(status, type, List.copyOf(copia), body(type, entity, json));
+    }
+
+    // Serializado no formato negociado (o mesmo da resposta original), já que a repetição o anuncia no Content-Type
+    private byte[] body(MediaType mediaType, Object entity, ObjectWriter json) {
+        if (entity == null) {
+            return new byte[0];
+        }
+        if (entity instanceof byte[] bytes) {
+            return bytes;
+        }
+        try {
+            if (formats.supports(mediaType, entity.getClass())) {
+                Object value = formats.encodable(entity, mediaType);
+                return formats.writer(mediaType, value.getClass()).writeValueAsBytes(value);
+            }
+            // Corpos de erro montados como texto já são o JSON pronto
+            if (entity instanceof String text) {
+                return text.getBytes(StandardCharsets.UTF_8);
+            }
+            return (json != null ? json : objectMapper.writer()).writeValueAsBytes(entity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
\ No newline at end of file
+}
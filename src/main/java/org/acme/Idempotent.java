@@ -0,0 +1,16 @@
+package org.acme;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um POST que aceita o cabeçalho Idempotency-Key. O {@link IdempotencyFilter} cuida de
+ * repetir a resposta guardada e de serializar requisições simultâneas com a mesma chave; o método
+ * do recurso não precisa tratar a chave.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -1,5 +1,6 @@
 package org.acme;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -15,12 +16,36 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import java.util.List;
 import java.util.Set;
+import java.util.Collection;
+import org.acme.search.TextNormalizer;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 @Entity
+// O título normalizado é único ("Zelda" e "ZELDA" são o mesmo jogo); o índice único é criado na
+// inicialização (veja NormalizedColumnsBackfill). O índice por desenvolvedora inclui o id para que
+// GET /v2/desenvolvedoras/{id}/jogos leia a página por faixa, já ordenada
+@Table(indexes = @Index(name = "idx_jogo_desenvolvedora", columnList = "desenvolvedora_id, id"))
 public class Jogo extends PanacheEntityBase {
 
+    /**
+     * Join da associação a-um de um jogo (desenvolvedora), seguro para usar em queries paginadas.
+     * A ficha técnica da desenvolvedora é lazy e não faz parte da resposta. O alias do jogo deve
+     * ser "e".
+     */
+    public static final String FETCH_A_UM = "left join fetch e.desenvolvedora d";
+
+    static final String ID_SEQUENCE = "jogo_seq";
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence com blocos de 50 ids (otimizador pooled): o id é conhecido sem ir ao banco a cada
+    // persist, o que permite ao Hibernate agrupar os inserts em lotes JDBC (IDENTITY impede isso).
+    // Em bancos que já tinham ids, a sequence é posta à frente deles na inicialização (JogoSequence)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Schema(readOnly = true, example = "1")
     public Long id;
 
@@ -28,6 +53,11 @@ public class Jogo extends PanacheEntityBase {
     @Size(min = 1, max = 200)
     public String titulo;
 
+    // Título sem acentos e em minúsculas, usado pelas buscas para comparar sem lower() por linha
+    @JsonIgnore
+    @Column(length = 200)
+    public String tituloNormalizado;
+
     @NotBlank(message = "A descrição é obrigatória")
     @Size(max = 2000)
     @Column(length = 2000)
@@ -40,15 +70,22 @@ public class Jogo extends PanacheEntityBase {
     @NotNull(message = "A classificação indicativa é obrigatória")
     public ClassificacaoIndicativa classificacaoIndicativa;
 
+    // Lida por select separado (e não por join) para que o findById resolva a desenvolvedora
+    // pelo cache de segundo nível; as listagens continuam usando join fetch explícito
     @ManyToOne(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "desenvolvedora_id")
     public Desenvolvedora desenvolvedora;
 
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(
             name = "jogo_genero",
             joinColumns = @JoinColumn(name = "jogo_id"),
-            inverseJoinColumns = @JoinColumn(name = "genero_id")
+            inverseJoinColumns = @JoinColumn(name = "genero_id"),
+            // A chave primária (jogo_id, genero_id) só serve à busca pelo jogo; este índice atende
+            // a direção inversa, os jogos de um gênero
+            indexes = @Index(name = "idx_jogo_genero_genero", columnList = "genero_id, jogo_id")
     )
     public Set<Genero> generos = new HashSet<>();
 
@@ -61,4 +98,34 @@ public class Jogo extends PanacheEntityBase {
         this.anoLancamento = anoLancamento;
         this.classificacaoIndicativa = classificacaoIndicativa;
     }
+
+    /**
+     * Lista jogos com desenvolvedora e gêneros em uma única query, evitando uma
+     * consulta por jogo durante a serialização. Sem paginação, o join fetch da coleção é seguro.
+     *
+     * @param condicao condição HQL sobre o alias "e", ou null para todos os jogos
+     */
+    public static List<Jogo> listComRelacionamentos(String condicao, Object... params) {
+        return list("select distinct e from Jogo e " + FETCH_A_UM + " left join fetch e.generos"
+                + (condicao != null ? " where " + condicao : "") + " order by e.id", params);
+    }
+
+    /**
+     * Inicializa os gêneros de uma página de jogos já carregados com uma única query.
+     */
+    public static void carregarGeneros(Collection<Jogo> jogos) {
+        if (jogos.isEmpty()) {
+            return;
+        }
+        getEntityManager()
+                .createQuery("select distinct e from Jogo e left join fetch e.generos where e.id in :ids", Jogo.class)
+                .setParameter("ids", jogos.stream().map(j -> j.id).toList())
+                .getResultList();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizar() {
+        tituloNormalizado = TextNormalizer.fold(titulo);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package org.acme;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Criação de jogos em lote (POST /v2/jogos/batch).
+ *
+ * O corpo é lido por inteiro antes de qualquer escrita, para que um JSON malformado não deixe o
+ * lote gravado pela metade. Os jogos são gravados em blocos, um bloco por transação: dentro do
+ * bloco os ids vêm da sequence em memória e o flush único envia os inserts de jogo e de
+ * jogo_genero em lotes JDBC (quarkus.hibernate-orm.jdbc.statement-batch-size). Se o índice único
+ * de título recusar o bloco (um POST concorrente gravou o título depois da consulta), o bloco é
+ * refeito com uma transação por jogo e só os itens em conflito voltam como CONFLICT.
+ */
+@ApplicationScoped
+public class JogoBatchService {
+
+    // Detalhes da exceção ficam no log, não na resposta
+    private static final String FALHA_AO_GRAVAR = "Falha ao gravar o jogo; nada foi gravado para este item";
+
+    @ConfigProperty(name = "jogos.batch.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "jogos.batch.max-items", defaultValue = "10000")
+    int maxItems;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ReferenceResolver referenceResolver;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    /**
+     * Lê um array JSON ou NDJSON (um jogo por linha) sem montar a árvore do documento.
+     *
+     * @throws IOException se o corpo não for JSON válido
+     * @throws IllegalArgumentException se o lote passar do limite de itens
+     */
+    public List<Jogo> read(InputStream body) throws IOException {
+        List<Jogo> jogos = new ArrayList<>();
+        try (MappingIterator<Jogo> values = objectMapper.readerFor(Jogo.class).readValues(body)) {
+            while (values.hasNextValue()) {
+                if (jogos.size() == maxItems) {
+                    throw new IllegalArgumentException("O lote aceita no máximo " + maxItems + " jogos");
+                }
+                jogos.add(values.nextValue());
+            }
+        }
+        return jogos;
+    }
+
+    public BatchJogoResponse persist(List<Jogo> jogos) {
+        var response = new BatchJogoResponse();
+        // Títulos (normalizados) já aceitos neste lote: o mesmo título repetido no corpo também é conflito
+        Set<String> titulosDoLote = new HashSet<>();
+        for (int from = 0; from < jogos.size(); from += chunkSize) {
+            List<Jogo> chunk = jogos.subList(from, Math.min(from + chunkSize, jogos.size()));
+            int offset = from;
+            Set<String> titulosAntes = new HashSet<>(titulosDoLote);
+            try {
+                QuarkusTransaction.requiringNew()
+                        .call(() -> persistChunk(chunk, offset, titulosDoLote))
+                        .forEach(response::add);
+            } catch (RuntimeException e) {
+                titulosDoLote.retainAll(titulosAntes);
+                if (UniqueConstraints.isViolation(e, UniqueConstraints.JOGO_TITULO)) {
+                    // Um título foi gravado por outra requisição entre a consulta e o flush: o bloco
+                    // é refeito item a item, e só os títulos em conflito deixam de ser gravados
+                    persistOneByOne(chunk, offset, titulosDoLote).forEach(response::add);
+                } else {
+                    Log.errorf(e, "Falha ao gravar o bloco de %d jogos iniciado no item %d", chunk.size(), offset);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        response.add(BatchJogoResponse.Item.of(offset + i, BatchJogoResponse.Status.ERROR, null,
+                                List.of(FALHA_AO_GRAVAR)));
+                    }
+                }
+            }
+        }
+        return response;
+    }
+
+    private List<BatchJogoResponse.Item> persistOneByOne(List<Jogo> chunk, int offset, Set<String> titulosDoLote) {
+        List<BatchJogoResponse.Item> itens = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Jogo jogo = chunk.get(i);
+            int indice = offset + i;
+            Set<String> titulosAntes = new HashSet<>(titulosDoLote);
+            try {
+                itens.addAll(QuarkusTransaction.requiringNew()
+                        .call(() -> persistChunk(List.of(jogo), indice, titulosDoLote)));
+            } catch (RuntimeException e) {
+                titulosDoLote.retainAll(titulosAntes);
+                if (UniqueConstraints.isViolation(e, UniqueConstraints.JOGO_TITULO)) {
+                    itens.add(conflict(indice, jogo));
+                } else {
+                    Log.errorf(e, "Falha ao gravar o item %d do lote", indice);
+                    itens.add(BatchJogoResponse.Item.of(indice, BatchJogoResponse.Status.ERROR, null, List.of(FALHA_AO_GRAVAR)));
+                }
+            }
+        }
+        return itens;
+    }
+
+    private static BatchJogoResponse.Item conflict(int indice, Jogo jogo) {
+        return BatchJogoResponse.Item.of(indice, BatchJogoResponse.Status.CONFLICT, null,
+                List.of("Um jogo com o título '" + jogo.titulo + "' já está cadastrado."));
+    }
+
+    private List<BatchJogoResponse.Item> persistChunk(List<Jogo> chunk, int offset, Set<String> titulosDoLote) {
+        // Uma única consulta de títulos existentes por bloco, pela mesma coluna do índice único
+        List<String> titulos = chunk.stream().map(j -> TextNormalizer.fold(j.titulo)).filter(Objects::nonNull).distinct().toList();
+        Set<String> existentes = titulos.isEmpty() ? Set.of() : new HashSet<>(Panache.getEntityManager()
+                .createQuery("select e.tituloNormalizado from Jogo e where e.tituloNormalizado in :titulos", String.class)
+                .setParameter("titulos", titulos)
+                .getResultList());
+
+        // E um único carregamento das desenvolvedoras e gêneros referenciados pelo bloco
+        ReferenceResolver.Carregadas carregadas = referenceResolver.load(chunk);
+
+        List<BatchJogoResponse.Item> itens = new ArrayList<>(chunk.size());
+        List<Jogo> criados = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Jogo jogo = chunk.get(i);
+            int indice = offset + i;
+
+            List<String> violacoes = validator.validate(jogo).stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .toList();
+            if (!violacoes.isEmpty()) {
+                itens.add(BatchJogoResponse.Item.of(indice, BatchJogoResponse.Status.INVALID, null, violacoes));
+                continue;
+            }
+            ReferenceResolver.Referencias referencias = carregadas.resolve(jogo.desenvolvedora, jogo.generos);
+            if (!referencias.valid()) {
+                itens.add(BatchJogoResponse.Item.of(indice, BatchJogoResponse.Status.INVALID, null, referencias.erros()));
+                continue;
+            }
+            String titulo = TextNormalizer.fold(jogo.titulo);
+            if (existentes.contains(titulo) || !titulosDoLote.add(titulo)) {
+                itens.add(conflict(indice, jogo));
+                continue;
+            }
+
+            jogo.id = null;
+            jogo.desenvolvedora = referencias.desenvolvedora();
+            jogo.generos = referencias.generos();
+            jogo.persist();
+            criados.add(jogo);
+            itens.add(BatchJogoResponse.Item.of(indice, BatchJogoResponse.Status.CREATED, jogo.id, null));
+        }
+
+        // Um flush por bloco: os inserts saem agrupados em lotes JDBC
+        Panache.getEntityManager().flush();
+        for (Jogo jogo : criados) {
+            catalogChanges.fire(CatalogChange.created(Jogo.class, jogo.id, jogo));
+        }
+        return itens;
+    }
+}
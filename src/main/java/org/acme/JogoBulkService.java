@@ -0,0 +1,159 @@
+package org.acme;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.acme.search.JogoFilter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
+
+/**
+ * Remoção e alteração de jogos em massa (DELETE/PATCH /v2/jogos?filter=).
+ *
+ * Os ids que atendem ao filtro são lidos uma vez; a partir deles tudo é feito com statements
+ * por conjunto, em blocos de {@value #ID_CHUNK} ids (um único statement de cada tipo até esse
+ * tamanho): as linhas de jogo_genero saem primeiro, num DELETE nativo, e depois os jogos, num
+ * DELETE/UPDATE JPQL. Trabalhar sobre os ids lidos, e não sobre o filtro de novo, garante que o
+ * evento {@link CatalogBulkChange} cubra exatamente as linhas afetadas.
+ */
+@ApplicationScoped
+public class JogoBulkService {
+
+    static final int ID_CHUNK = 1000;
+
+    @ConfigProperty(name = "jogos.bulk.max-items", defaultValue = "10000")
+    int maxItems;
+
+    @Inject
+    Event<CatalogBulkChange> bulkChanges;
+
+    /**
+     * @throws IllegalArgumentException se o filtro selecionar mais jogos que o limite
+     */
+    @Transactional
+    public int delete(JogoFilter.Condition filtro) {
+        // Ids lidos nesta transação: todos existem
+        return delete(ids(filtro));
+    }
+
+    /**
+     * Remove os jogos com os ids informados; ids inexistentes são ignorados e não geram evento.
+     *
+     * @return quantidade de jogos removidos
+     */
+    @Transactional
+    public int deleteByIds(List<Long> ids) {
+        EntityManager em = Panache.getEntityManager();
+        List<Long> existentes = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunks(ids)) {
+            existentes.addAll(em.createQuery("select e.id from Jogo e where e.id in :ids", Long.class)
+                    .setParameter("ids", chunk)
+                    .getResultList());
+        }
+        return delete(existentes);
+    }
+
+    private int delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        EntityManager em = Panache.getEntityManager();
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            // O espaço de query restringe a invalidação do cache de segundo nível às regiões que
+            // usam jogo_genero (a coleção Jogo.generos); sem ele um statement nativo limpa todas
+            em.createNativeQuery("delete from jogo_genero where jogo_id in (:ids)")
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedQuerySpace("jogo_genero")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+            deleted += em.createQuery("delete from Jogo e where e.id in :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        // Removidos por outra transação entre a leitura dos ids e o DELETE: o evento já partiu dela
+        if (deleted == 0) {
+            return 0;
+        }
+
+        List<CatalogChange> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            changes.add(CatalogChange.deleted(Jogo.class, id));
+        }
+        bulkChanges.fire(new CatalogBulkChange(changes));
+        return deleted;
+    }
+
+    /**
+     * @param desenvolvedora desenvolvedora já resolvida, ou null para não alterar
+     * @throws IllegalArgumentException se o filtro selecionar mais jogos que o limite
+     */
+    @Transactional
+    public int update(JogoFilter.Condition filtro, JogoPatch patch, Desenvolvedora desenvolvedora) {
+        List<Long> ids = ids(filtro);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<String> set = new ArrayList<>();
+        if (patch.descricao != null) set.add("e.descricao = :descricao");
+        if (patch.anoLancamento != null) set.add("e.anoLancamento = :anoLancamento");
+        if (patch.classificacaoIndicativa != null) set.add("e.classificacaoIndicativa = :classificacaoIndicativa");
+        if (desenvolvedora != null) set.add("e.desenvolvedora = :desenvolvedora");
+
+        EntityManager em = Panache.getEntityManager();
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            Query update = em.createQuery("update Jogo e set " + String.join(", ", set) + " where e.id in :ids")
+                    .setParameter("ids", chunk);
+            if (patch.descricao != null) update.setParameter("descricao", patch.descricao);
+            if (patch.anoLancamento != null) update.setParameter("anoLancamento", patch.anoLancamento);
+            if (patch.classificacaoIndicativa != null) update.setParameter("classificacaoIndicativa", patch.classificacaoIndicativa);
+            if (desenvolvedora != null) update.setParameter("desenvolvedora", desenvolvedora);
+            updated += update.executeUpdate();
+        }
+
+        // Os índices em memória precisam do estado novo (facetas de ano, classificação e
+        // desenvolvedora): os jogos alterados são relidos com uma query por bloco. O UPDATE em massa
+        // não passa pelo contexto de persistência, então ele é limpo antes para não reler cópias velhas
+        em.clear();
+        List<CatalogChange> changes = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunks(ids)) {
+            for (Jogo jogo : Jogo.listComRelacionamentos("e.id in ?1", chunk)) {
+                changes.add(CatalogChange.updated(Jogo.class, jogo.id, jogo));
+            }
+        }
+        bulkChanges.fire(new CatalogBulkChange(changes));
+        return updated;
+    }
+
+    private List<Long> ids(JogoFilter.Condition filtro) {
+        var query = Panache.getEntityManager()
+                .createQuery("select e.id from Jogo e where " + filtro.jpql() + " order by e.id", Long.class)
+                .setMaxResults(maxItems + 1);
+        for (Map.Entry<String, Object> param : filtro.params().entrySet()) {
+            query.setParameter(param.getKey(), param.getValue());
+        }
+        List<Long> ids = query.getResultList();
+        if (ids.size() > maxItems) {
+            throw new IllegalArgumentException("O filtro seleciona mais de " + maxItems
+                    + " jogos; restrinja o filtro ou divida a operação");
+        }
+        return ids;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + ID_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+}
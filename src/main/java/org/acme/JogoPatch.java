@@ -0,0 +1,29 @@
+package org.acme;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * Campos alteráveis em massa por PATCH /v2/jogos?filter=. Campos ausentes (null) não são
+ * alterados. O título não faz parte: é único por jogo.
+ */
+public class JogoPatch {
+
+    @Size(max = 2000)
+    public String descricao;
+
+    @Min(value = 1950, message = "Ano de lançamento inválido")
+    public Integer anoLancamento;
+
+    public ClassificacaoIndicativa classificacaoIndicativa;
+
+    @Schema(description = "Referência pelo id, ex.: {\"id\": 1}")
+    public Desenvolvedora desenvolvedora;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return descricao == null && anoLancamento == null && classificacaoIndicativa == null && desenvolvedora == null;
+    }
+}
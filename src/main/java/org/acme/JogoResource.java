@@ -1,19 +1,30 @@
 package org.acme;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import java.net.URI;
-import java.util.HashSet;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Set;
 import jakarta.inject.Inject; // NOVO
+import org.acme.search.CountMode;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchExecutor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -26,8 +37,27 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 @Consumes(MediaType.APPLICATION_JSON)
 public class JogoResource {
 
-    @Inject // NOVO: Injeta o serviço de idempotência
-    IdempotencyService idempotencyService;
+    @Inject
+    ReferenceResolver referenceResolver;
+
+    @Inject
+    JogoBulkService jogoBulkService;
+
+    @Inject
+    EntityResponseCache responseCache;
+
+    @Inject
+    SearchExecutor searchExecutor;
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    // Estratégia de contagem do total da busca (exact, window, cached ou estimated)
+    @ConfigProperty(name = "search.v1.jogos.count-mode", defaultValue = "exact")
+    String countMode;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
 
     @GET
     @Path("/search")
@@ -56,55 +86,58 @@ public class JogoResource {
             @QueryParam("page") @DefaultValue("0") int page,
 
             @Parameter(description = "Quantidade de itens por página")
-            @QueryParam("size") @DefaultValue("5") int size
-    ){
-        // Validação do campo de ordenação
-        Set<String> allowedSortFields = Set.of("id", "titulo", "anoLancamento");
-        if (!allowedSortFields.contains(sort)) {
-            sort = "id";
-        }
+            @QueryParam("size") @DefaultValue("5") int size,
 
-        // Cria o objeto de ordenação do Panache
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor
+    ){
+        SearchQuery<Jogo> query = SearchQuery.of(Jogo.class, SearchFields.JOGO)
+                .fetchJoin(Jogo.FETCH_A_UM)
+                .sort(sort, direction)
+                .page(page, size);
 
-        int effectivePage = Math.max(page, 0);
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
+            }
+        }
 
-        // Cria a query de busca com Panache
-        PanacheQuery<Jogo> query;
-        if (q == null || q.isBlank()) {
-            query = Jogo.findAll(sortObj);
-        } else {
+        if (q != null && !q.isBlank()) {
             try {
                 // Tenta converter a query para um número (para buscar por ano)
                 int ano = Integer.parseInt(q);
-                query = Jogo.find("anoLancamento = ?1", sortObj, ano);
+                query.where("e.anoLancamento = :ano").param("ano", ano);
             } catch (NumberFormatException e) {
-                // Se não for um número, busca por título
-                query = Jogo.find(
-                        "lower(titulo) like ?1",
-                        sortObj,
-                        "%" + q.toLowerCase() + "%"
-                );
+                // Se não for um número, busca por título: os candidatos vêm do índice de trigramas
+                long[] ids = searchIndexes.jogoIds(q);
+                if (ids != null) {
+                    query.whereIdIn(ids);
+                } else {
+                    query.where("e.tituloNormalizado like :termo escape '\\'").param("termo", TextNormalizer.likePattern(q));
+                }
             }
         }
 
-        // Aplica a paginação
-        List<Jogo> jogos = query.page(effectivePage, size).list();
+        SearchResult<Jogo> result = searchExecutor.execute(query, CountMode.from(countMode));
+        Jogo.carregarGeneros(result.items);
 
-        // Monta o objeto de resposta
         var response = new SearchJogoResponse();
-        response.jogos = jogos;
-        response.totalJogos = query.count();
-        response.totalPages = query.pageCount();
-        response.hasMore = effectivePage < (query.pageCount() - 1);
+        response.jogos = result.items;
+        response.totalJogos = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalJogos + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
 
         if (response.hasMore) {
-            String nextPageUrl = String.format("http://localhost:8080/v1/jogos/search?q=%s&page=%d&size=%d&sort=%s&direction=%s",
-                    (q != null ? q : ""), (effectivePage + 1), size, sort, direction);
-            response.nextPage = nextPageUrl;
+            // O link da próxima página usa o cursor, evitando OFFSET em páginas profundas
+            response.nextPage = String.format("http://localhost:8080/v1/jogos/search?q=%s&size=%d&sort=%s&direction=%s&cursor=%s",
+                    URLEncoder.encode(q != null ? q : "", StandardCharsets.UTF_8), query.size(),
+                    query.sortName(), query.direction(), result.nextCursor);
         } else {
             response.nextPage = "";
         }
@@ -116,7 +149,7 @@ public class JogoResource {
     @Operation(summary = "Retorna todos os jogos (V1)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Jogo.class, type = SchemaType.ARRAY)))
     public Response getAll() {
-        return Response.ok(Jogo.listAll()).build();
+        return Response.ok(Jogo.listComRelacionamentos(null)).build();
     }
 
     @GET
@@ -124,7 +157,12 @@ public class JogoResource {
     @Operation(summary = "Retorna um jogo por ID (V1)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Jogo.class)))
     @APIResponse(responseCode = "404", description = "Jogo não encontrado")
-    public Response getById(@PathParam("id") long id) {
+    public Response getById(@PathParam("id") long id, @Context HttpHeaders headers) {
+        // Mesma representação da V2: as duas versões compartilham o cache de respostas
+        Response cached = responseCache.jogo(id, headers, null);
+        if (cached != null) {
+            return cached;
+        }
         Jogo entity = Jogo.findById(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
@@ -138,69 +176,28 @@ public class JogoResource {
     @APIResponse(responseCode = "201", description = "Jogo criado", content = @Content(schema = @Schema(implementation = Jogo.class)))
     @APIResponse(responseCode = "400", description = "Requisição inválida")
     @APIResponse(responseCode = "409", description = "Conflito - Jogo com o mesmo título já existe")
-    public Response insert(@Valid Jogo jogo,
-                           @Parameter(description = "Chave única para garantir a idempotência da requisição.")
-                           @HeaderParam("Idempotency-Key") String idempotencyKey) { // NOVO
-
-        // 1. Lógica de Idempotência: Verifica se a chave já existe no cache
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Response cachedResponse = idempotencyService.getResponse(idempotencyKey);
-            if (cachedResponse != null) {
-                return cachedResponse; // Retorna a resposta armazenada
-            }
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência da requisição.")
+    public Response insert(@Valid Jogo jogo) {
+        // Desenvolvedora e gêneros resolvidos de uma vez; todos os ids inexistentes voltam no mesmo 400
+        ReferenceResolver.Referencias referencias = referenceResolver.resolve(jogo.desenvolvedora, jogo.generos);
+        if (!referencias.valid()) {
+            return referencias.badRequest();
         }
-
-        // 2. Lógica de Negócio: Validação e Persistência
-        if (Jogo.find("titulo", jogo.titulo).count() > 0) {
-            Response conflictResponse = Response.status(Response.Status.CONFLICT)
-                    .entity("{\"message\": \"Um jogo com o título '" + jogo.titulo + "' já está cadastrado.\"}")
-                    .build();
-
-            // Cacha a resposta de erro
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                idempotencyService.cacheResponse(idempotencyKey, conflictResponse);
-            }
+        jogo.desenvolvedora = referencias.desenvolvedora();
+        jogo.generos = referencias.generos();
+
+        // Persistência: a unicidade do título é garantida pelo índice único; o flush leva o insert
+        // ao banco aqui para que uma violação (inclusive de uma requisição concorrente) vire 409
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.JOGO_TITULO,
+                "Um jogo com o título '" + jogo.titulo + "' já está cadastrado.", jogo::persistAndFlush);
+        if (conflictResponse != null) {
             return conflictResponse;
         }
 
-        // --- (Seu código original para validação de Desenvolvedora e Gêneros) ---
-        if (jogo.desenvolvedora != null && jogo.desenvolvedora.id != null) {
-            Desenvolvedora d = Desenvolvedora.findById(jogo.desenvolvedora.id);
-            if (d == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Desenvolvedora com id " + jogo.desenvolvedora.id + " não existe").build();
-            }
-            jogo.desenvolvedora = d;
-        } else {
-            jogo.desenvolvedora = null;
-        }
-
-        if (jogo.generos != null && !jogo.generos.isEmpty()) {
-            Set<Genero> resolved = new HashSet<>();
-            for (Genero g : jogo.generos) {
-                if (g == null || g.id == 0) continue;
-                Genero fetched = Genero.findById(g.id);
-                if (fetched == null) {
-                    return Response.status(Response.Status.BAD_REQUEST)
-                            .entity("Gênero com id " + g.id + " não existe").build();
-                }
-                resolved.add(fetched);
-            }
-            jogo.generos = resolved;
-        } else {
-            jogo.generos = new HashSet<>();
-        }
-
-        Jogo.persist(jogo);
+        catalogChanges.fire(CatalogChange.created(Jogo.class, jogo.id, jogo));
         URI location = UriBuilder.fromResource(JogoResource.class).path("{id}").build(jogo.id);
-        Response response = Response.created(location).entity(jogo).build();
-
-        // 3. Cache a Resposta (apenas se a operação foi bem-sucedida e a chave foi fornecida)
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyService.cacheResponse(idempotencyKey, response);
-        }
-
-        return response;
+        return Response.created(location).entity(jogo).build();
     }
 
     @PUT
@@ -209,43 +206,32 @@ public class JogoResource {
     @Operation(summary = "Atualiza um jogo existente (V1)")
     @APIResponse(responseCode = "200", description = "Jogo atualizado", content = @Content(schema = @Schema(implementation = Jogo.class)))
     @APIResponse(responseCode = "404", description = "Jogo não encontrado")
+    @APIResponse(responseCode = "409", description = "Conflito - Outro jogo já usa o título")
     public Response update(@PathParam("id") long id, @Valid Jogo newJogo) {
         Jogo entity = Jogo.findById(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
+        // Referências validadas antes de alterar a entidade: um 400 não deixa alterações pendentes
+        ReferenceResolver.Referencias referencias = referenceResolver.resolve(newJogo.desenvolvedora, newJogo.generos);
+        if (!referencias.valid()) {
+            return referencias.badRequest();
+        }
         entity.titulo = newJogo.titulo;
         entity.descricao = newJogo.descricao;
         entity.anoLancamento = newJogo.anoLancamento;
         entity.classificacaoIndicativa = newJogo.classificacaoIndicativa;
+        entity.desenvolvedora = referencias.desenvolvedora();
+        entity.generos.clear();
+        entity.generos.addAll(referencias.generos());
 
-        if (newJogo.desenvolvedora != null && newJogo.desenvolvedora.id != null) {
-            Desenvolvedora d = Desenvolvedora.findById(newJogo.desenvolvedora.id);
-            if (d == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Desenvolvedora com id " + newJogo.desenvolvedora.id + " não existe").build();
-            }
-            entity.desenvolvedora = d;
-        } else {
-            entity.desenvolvedora = null;
-        }
-
-        if (newJogo.generos != null) {
-            Set<Genero> resolved = new HashSet<>();
-            for (Genero g : newJogo.generos) {
-                if (g == null || g.id == 0) continue;
-                Genero fetched = Genero.findById(g.id);
-                if (fetched == null) {
-                    return Response.status(Response.Status.BAD_REQUEST)
-                            .entity("Gênero com id " + g.id + " não existe").build();
-                }
-                resolved.add(fetched);
-            }
-            entity.generos = resolved;
-        } else {
-            entity.generos = new HashSet<>();
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.JOGO_TITULO,
+                "Um jogo com o título '" + newJogo.titulo + "' já está cadastrado.", Jogo::flush);
+        if (conflictResponse != null) {
+            return conflictResponse;
         }
 
+        catalogChanges.fire(CatalogChange.updated(Jogo.class, entity.id, entity));
         return Response.ok(entity).build();
     }
 
@@ -256,13 +242,10 @@ public class JogoResource {
     @APIResponse(responseCode = "204", description = "Jogo removido")
     @APIResponse(responseCode = "404", description = "Jogo não encontrado")
     public Response delete(@PathParam("id") long id) {
-        Jogo entity = Jogo.findById(id);
-        if (entity == null) {
+        // Remove as linhas de jogo_genero e o jogo com dois DELETEs, sem carregar a entidade
+        if (jogoBulkService.deleteByIds(List.of(id)) == 0) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        entity.generos.clear();
-        entity.persist();
-        Jogo.deleteById(id);
         return Response.noContent().build();
     }
 }
\ No newline at end of file
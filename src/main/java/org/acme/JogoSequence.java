@@ -0,0 +1,43 @@
+package org.acme;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Põe a sequence dos ids de {@link Jogo} à frente do maior id gravado.
+ *
+ * Em um banco em que a tabela já existia com coluna IDENTITY, o {@code update} do Hibernate cria a
+ * sequence começando em 1 e os primeiros inserts colidiriam com os ids existentes. O mesmo vale
+ * para jogos inseridos por SQL direto com id explícito. Roda na inicialização, como o
+ * {@link org.acme.search.NormalizedColumnsBackfill}: lê um valor da sequence (o bloco lido é
+ * descartado) e, se ele não passar do maior id, reinicia a sequence em maior id + tamanho do bloco.
+ */
+@ApplicationScoped
+public class JogoSequence {
+
+    void onStart(@Observes @Priority(1) StartupEvent ev) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            var em = Panache.getEntityManager();
+            Dialect dialect = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect();
+            // Com o otimizador pooled, o valor da sequence é o fim do próximo bloco de ids
+            long proximo = ((Number) em.createNativeQuery(
+                            dialect.getSequenceSupport().getSequenceNextValString(Jogo.ID_SEQUENCE))
+                    .getSingleResult()).longValue();
+            Long maior = em.createQuery("select max(e.id) from Jogo e", Long.class).getSingleResult();
+            if (maior != null && proximo < maior) {
+                long reinicio = maior + Jogo.ID_ALLOCATION_SIZE;
+                em.createNativeQuery("alter sequence " + Jogo.ID_SEQUENCE + " restart with " + reinicio)
+                        .executeUpdate();
+                Log.infof("Sequence %s ajustada de %d para %d (maior id de Jogo: %d)", Jogo.ID_SEQUENCE, proximo, reinicio, maior);
+            }
+        });
+    }
+}
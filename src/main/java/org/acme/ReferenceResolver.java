@@ -0,0 +1,119 @@
+package org.acme;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.Session;
+
+/**
+ * Resolve as referências de um jogo enviadas apenas com id (desenvolvedora e gêneros).
+ *
+ * Desenvolvedoras e gêneros são carregados com multi-load: o Hibernate procura primeiro no
+ * contexto de persistência e no cache de segundo nível (id -> entidade) e busca os que faltarem
+ * em uma só query IN. Todos os ids inexistentes são reportados juntos, em vez de parar no
+ * primeiro. Em lotes, {@link #load} carrega as referências de todos os jogos de uma vez.
+ */
+@ApplicationScoped
+public class ReferenceResolver {
+
+    public Referencias resolve(Desenvolvedora desenvolvedora, Collection<Genero> generos) {
+        List<Long> desenvolvedoraIds = desenvolvedora != null && desenvolvedora.id != null ? List.of(desenvolvedora.id) : List.of();
+        return carregar(desenvolvedoraIds, generoIds(generos)).resolve(desenvolvedora, generos);
+    }
+
+    /**
+     * Carrega de uma vez as referências de vários jogos (um multi-load de desenvolvedoras e um de
+     * gêneros); cada jogo é depois resolvido por {@link Carregadas#resolve} sem novas consultas.
+     */
+    public Carregadas load(Collection<Jogo> jogos) {
+        List<Long> desenvolvedoraIds = jogos.stream()
+                .filter(j -> j.desenvolvedora != null && j.desenvolvedora.id != null)
+                .map(j -> j.desenvolvedora.id)
+                .distinct()
+                .toList();
+        List<Long> generoIds = jogos.stream()
+                .flatMap(j -> generoIds(j.generos).stream())
+                .distinct()
+                .toList();
+        return carregar(desenvolvedoraIds, generoIds);
+    }
+
+    private static Carregadas carregar(List<Long> desenvolvedoraIds, List<Long> generoIds) {
+        return new Carregadas(porId(Desenvolvedora.class, desenvolvedoraIds), porId(Genero.class, generoIds));
+    }
+
+    private static <T> Map<Long, T> porId(Class<T> type, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<T> carregados = Panache.getEntityManager().unwrap(Session.class)
+                .byMultipleIds(type)
+                .enableSessionCheck(true)
+                .multiLoad(ids);
+        // A lista vem na ordem dos ids, com null para os que não existem
+        Map<Long, T> porId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (carregados.get(i) != null) {
+                porId.put(ids.get(i), carregados.get(i));
+            }
+        }
+        return porId;
+    }
+
+    private static List<Long> generoIds(Collection<Genero> generos) {
+        return generos == null ? List.of() : generos.stream()
+                .filter(g -> g != null && g.id != null && g.id != 0)
+                .map(g -> g.id)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Desenvolvedoras e gêneros já carregados, por id.
+     */
+    public record Carregadas(Map<Long, Desenvolvedora> desenvolvedoras, Map<Long, Genero> generos) {
+
+        public Referencias resolve(Desenvolvedora desenvolvedora, Collection<Genero> generos) {
+            List<String> erros = new ArrayList<>();
+
+            Desenvolvedora resolvida = null;
+            if (desenvolvedora != null && desenvolvedora.id != null) {
+                resolvida = desenvolvedoras.get(desenvolvedora.id);
+                if (resolvida == null) {
+                    erros.add("Desenvolvedora com id " + desenvolvedora.id + " não existe");
+                }
+            }
+
+            Set<Genero> resolvidos = new HashSet<>();
+            for (Long id : generoIds(generos)) {
+                Genero genero = this.generos.get(id);
+                if (genero == null) {
+                    erros.add("Gênero com id " + id + " não existe");
+                } else {
+                    resolvidos.add(genero);
+                }
+            }
+            return new Referencias(resolvida, resolvidos, erros);
+        }
+    }
+
+    public record Referencias(Desenvolvedora desenvolvedora, Set<Genero> generos, List<String> erros) {
+
+        public boolean valid() {
+            return erros.isEmpty();
+        }
+
+        public Response badRequest() {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Referências inválidas: " + String.join("; ", erros), "erros", erros))
+                    .build();
+        }
+    }
+}
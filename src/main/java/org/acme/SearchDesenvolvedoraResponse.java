@@ -2,12 +2,21 @@ package org.acme;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.acme.search.CountMode;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 public class SearchDesenvolvedoraResponse {
-    public List<Desenvolvedora> desenvolvedoras = new ArrayList<Desenvolvedora>();
+    // Entidades completas ou, com fields=, mapas apenas com os campos pedidos
+    @Schema(type = SchemaType.ARRAY, implementation = Desenvolvedora.class)
+    public List<?> desenvolvedoras = new ArrayList<>();
     public long totalDesenvolvedoras;
+    // Estratégia que produziu o total (EXACT, WINDOW, CACHED ou ESTIMATED)
+    public CountMode countMode;
     public int totalPages;
     public boolean hasMore;
     public String nextPage;
+    // Cursor opaco para a próxima página (paginação por keyset)
+    public String nextCursor;
     public long totalItens;
 }
\ No newline at end of file
@@ -2,11 +2,20 @@ package org.acme;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.acme.search.CountMode;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 public class SearchGeneroResponse {
-    public List<Genero> generos = new ArrayList<>();
+    // Entidades completas ou, com fields=, mapas apenas com os campos pedidos
+    @Schema(type = SchemaType.ARRAY, implementation = Genero.class)
+    public List<?> generos = new ArrayList<>();
     public long totalGeneros;
+    // Estratégia que produziu o total (EXACT, WINDOW, CACHED ou ESTIMATED)
+    public CountMode countMode;
     public int totalPages;
     public boolean hasMore;
     public String nextPage;
+    // Cursor opaco para a próxima página (paginação por keyset)
+    public String nextCursor;
 }
\ No newline at end of file
@@ -1,12 +1,25 @@
 package org.acme;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.ArrayList;
 import java.util.List;
+import org.acme.search.CountMode;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 public class SearchJogoResponse {
-    public List<Jogo> jogos = new ArrayList<>();
+    // Entidades completas ou, com fields=, mapas apenas com os campos pedidos
+    @Schema(type = SchemaType.ARRAY, implementation = Jogo.class)
+    public List<?> jogos = new ArrayList<>();
     public long totalJogos;
+    // Estratégia que produziu o total (EXACT, WINDOW, CACHED ou ESTIMATED)
+    public CountMode countMode;
     public int totalPages;
     public boolean hasMore;
     public String nextPage;
+    // Cursor opaco para a próxima página (paginação por keyset)
+    public String nextCursor;
+    // Preenchido apenas quando a busca é feita com facets=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Facets facets;
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.acme;
+
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Coalescência de leituras idênticas simultâneas: enquanto uma carga de uma chave está em
+ * andamento, as requisições que chegam com a mesma chave esperam por ela e recebem o mesmo
+ * resultado (ou a mesma exceção), em vez de irem cada uma ao banco.
+ *
+ * O resultado é entregue a outras threads, então deve ser imutável e não pode ser uma entidade
+ * gerenciada pela sessão de quem carregou: os chamadores compartilham bytes já serializados, ids,
+ * ou apenas aquecem um cache compartilhado (o de segundo nível) e leem dele em seguida. Chaves que
+ * dependem da versão dos dados devem incluí-la, para que uma requisição posterior a uma escrita não
+ * aproveite uma carga iniciada antes dela.
+ *
+ * A espera é limitada por {@code single-flight.wait-timeout}: se a carga em andamento travar (banco
+ * lento, lock), quem espera desiste dela e carrega por conta própria, em vez de prender a thread
+ * junto com a carga.
+ */
+@ApplicationScoped
+public class SingleFlight {
+
+    @ConfigProperty(name = "single-flight.wait-timeout", defaultValue = "5S")
+    Duration waitTimeout;
+
+    private final Map<Object, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+    private final AtomicLong cargas = new AtomicLong();
+    private final AtomicLong coalescidas = new AtomicLong();
+    private final AtomicLong esperasEsgotadas = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> load) {
+        CompletableFuture<Object> nova = new CompletableFuture<>();
+        CompletableFuture<Object> atual = emAndamento.putIfAbsent(key, nova);
+        if (atual != null) {
+            coalescidas.incrementAndGet();
+            try {
+                return (T) atual.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Carga direta, fora do mapa: não substitui a carga travada para quem já espera por ela
+                esperasEsgotadas.incrementAndGet();
+                Log.warnf("Carga de %s não terminou em %s; carregando sem coalescer", key, waitTimeout);
+                return load.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido esperando a carga de " + key, e);
+            }
+        }
+
+        cargas.incrementAndGet();
+        try {
+            T value = load.get();
+            nova.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(key, nova);
+        }
+    }
+
+    /**
+     * Para cargas que só aquecem um cache compartilhado, lido por cada requisição em seguida.
+     */
+    public void run(Object key, Runnable load) {
+        execute(key, () -> {
+            load.run();
+            return Boolean.TRUE;
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(cargas.get(), coalescidas.get(), esperasEsgotadas.get(), emAndamento.size());
+    }
+
+    /**
+     * @param cargas           cargas executadas (uma por grupo de requisições simultâneas)
+     * @param coalescidas      requisições que esperaram pela carga de outra
+     * @param esperasEsgotadas requisições que desistiram de esperar e carregaram por conta própria
+     */
+    public record Stats(long cargas, long coalescidas, long esperasEsgotadas, int emAndamento) {
+    }
+}
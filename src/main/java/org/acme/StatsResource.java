@@ -0,0 +1,113 @@
+package org.acme;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchResultCache;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+@Path("/management/stats")
+@Produces(MediaType.APPLICATION_JSON)
+public class StatsResource {
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    EntityResponseCache responseCache;
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @GET
+    @Path("/indices")
+    @Operation(summary = "Estatísticas dos índices de busca em memória (documentos, trigramas, memória e tempo de construção)")
+    public Map<String, SearchIndexes.IndexStats> indices() {
+        return searchIndexes.stats();
+    }
+
+    @GET
+    @Path("/cache")
+    @Operation(summary = "Acertos e falhas do cache de segundo nível do Hibernate, por região e no total")
+    @APIResponse(responseCode = "404", description = "Estatísticas do Hibernate desligadas (quarkus.hibernate-orm.statistics)")
+    public Response cache() {
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            // Desligadas, as contagens ficam em zero: melhor não responder do que mostrar um cache sem acertos
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("message", "Estatísticas do Hibernate desativadas neste perfil."))
+                    .build();
+        }
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("total", new CacheStats(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                null));
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+            stats.put(region, new CacheStats(
+                    regionStats.getHitCount(),
+                    regionStats.getMissCount(),
+                    regionStats.getPutCount(),
+                    regionStats.getElementCountInMemory()));
+        }
+        return Response.ok(stats).build();
+    }
+
+    @GET
+    @Path("/respostas")
+    @Operation(summary = "Acertos e falhas do cache de respostas serializadas de GET /jogos/{id}")
+    public CacheStats respostas() {
+        return responseCache.stats();
+    }
+
+    @GET
+    @Path("/buscas")
+    @Operation(summary = "Acertos e falhas do cache de resultados das buscas V2 (acertos incluem páginas obsoletas servidas durante o recálculo)")
+    public CacheStats buscas() {
+        return searchResultCache.stats();
+    }
+
+    @GET
+    @Path("/coalescencia")
+    @Operation(summary = "Cargas executadas e requisições que aproveitaram uma carga idêntica já em andamento (leituras por id e buscas V2)")
+    public SingleFlight.Stats coalescencia() {
+        return singleFlight.stats();
+    }
+
+    @GET
+    @Path("/idempotencia")
+    @Operation(summary = "Chaves de idempotência guardadas, bytes ocupados, acertos (requisições repetidas) e remoções por expiração ou limite")
+    public IdempotencyService.Stats idempotencia() {
+        return idempotencyService.stats();
+    }
+
+    public record CacheStats(long acertos, long falhas, long insercoes, Long elementosEmMemoria) {
+        @JsonProperty("taxaDeAcerto")
+        public double taxaDeAcerto() {
+            long total = acertos + falhas;
+            return total == 0 ? 0 : (double) acertos / total;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.persistence.PersistenceException;
+import jakarta.ws.rs.core.Response;
+import java.util.Locale;
+import java.util.Map;
+import org.hibernate.exception.ConstraintViolationException;
+
+/**
+ * Índices únicos sobre as colunas normalizadas (TextNormalizer.fold): títulos e nomes são únicos
+ * sem diferenciar maiúsculas nem acentos. O banco garante a unicidade mesmo com requisições
+ * concorrentes; as escritas só traduzem a violação para o 409 de sempre, sem consultar antes.
+ * Os índices são criados na inicialização, depois do preenchimento das colunas (veja
+ * {@link org.acme.search.NormalizedColumnsBackfill}).
+ */
+public final class UniqueConstraints {
+
+    public static final String JOGO_TITULO = "uk_jogo_titulo_normalizado";
+    public static final String GENERO_NOME = "uk_genero_nome_normalizado";
+    public static final String DESENVOLVEDORA_NOME = "uk_desenvolvedora_nome_normalizado";
+
+    /**
+     * Executa a escrita (que deve chegar ao banco, ex.: persistAndFlush) e traduz uma violação do
+     * índice informado em 409 com a mensagem. A transação corrente fica marcada para rollback.
+     *
+     * @return a resposta de conflito, ou null se a escrita passou
+     */
+    public static Response conflictOn(String constraint, String message, Runnable write) {
+        try {
+            write.run();
+            return null;
+        } catch (PersistenceException e) {
+            if (!isViolation(e, constraint)) {
+                throw e;
+            }
+            QuarkusTransaction.setRollbackOnly();
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("message", message))
+                    .build();
+        }
+    }
+
+    /**
+     * Verdadeiro se a exceção (ou uma de suas causas) é a violação do índice informado. O nome é
+     * comparado por conteúdo porque cada banco o reporta de um jeito (o H2 em maiúsculas e com
+     * sufixo, o PostgreSQL como declarado).
+     */
+    public static boolean isViolation(Throwable e, String constraint) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName() != null ? violation.getConstraintName() : violation.getMessage();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        return false;
+    }
+
+    private UniqueConstraints() {}
+}
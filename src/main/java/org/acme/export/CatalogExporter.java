@@ -0,0 +1,197 @@
+package org.acme.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import org.acme.Desenvolvedora;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+/**
+ * Exportação do catálogo completo (GET /v2/jogos/export, /v2/desenvolvedoras/export e
+ * /v2/generos/export) com memória constante.
+ *
+ * As linhas são lidas de uma {@link StatelessSession}, sem contexto de persistência, por um
+ * cursor forward-only com fetch size limitado, e cada entidade é escrita no corpo da resposta
+ * assim que lida. A escrita é bloqueante: com o cliente lento, o stream da resposta segura a
+ * thread até o buffer esvaziar, e a leitura do cursor para junto. Se o cliente desconectar, a
+ * escrita falha, o cursor é fechado (o que cancela a consulta no banco) e a transação de leitura
+ * é desfeita.
+ */
+@ApplicationScoped
+public class CatalogExporter {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    public enum Format {
+        // Um objeto por linha
+        NDJSON,
+        // Um único array JSON
+        JSON;
+
+        /**
+         * @throws IllegalArgumentException para formatos desconhecidos
+         */
+        public static Format of(String value) {
+            if (value == null || value.isBlank()) {
+                return JSON;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportação inválido: " + value + " (use json ou ndjson)");
+            }
+        }
+
+        public String mediaType() {
+            return this == NDJSON ? CatalogExporter.NDJSON : "application/json";
+        }
+    }
+
+    // Linhas trazidas do banco por ida; no PostgreSQL só vale dentro de uma transação (autocommit
+    // desligado), senão o driver lê o resultado inteiro de uma vez
+    @ConfigProperty(name = "catalog.export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    @ConfigProperty(name = "catalog.export.transaction-timeout", defaultValue = "3600")
+    int transactionTimeout;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    public StreamingOutput jogos(Format format) {
+        return out -> export(out, format, this::scrollJogos);
+    }
+
+    public StreamingOutput desenvolvedoras(Format format) {
+        return out -> export(out, format, (session, sink) -> scroll(session, "from Desenvolvedora e order by e.id", Desenvolvedora.class, sink));
+    }
+
+    public StreamingOutput generos(Format format) {
+        return out -> export(out, format, (session, sink) -> scroll(session, "from Genero e order by e.id", Genero.class, sink));
+    }
+
+    private void export(OutputStream out, Format format, Source source) throws IOException {
+        // Sem flush por entidade: o gerador só descarrega quando o buffer enche
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format == Format.NDJSON) {
+            // O separador padrão entre valores raiz é um espaço; em NDJSON cada linha termina com \n
+            generator.setRootValueSeparator(null);
+        }
+
+        Sink sink = entity -> {
+            try {
+                writer.writeValue(generator, entity);
+                if (format == Format.NDJSON) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        try {
+            if (format == Format.JSON) {
+                generator.writeStartArray();
+            }
+            QuarkusTransaction.requiringNew().timeout(transactionTimeout).run(() -> {
+                try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                    source.scroll(session, sink);
+                }
+            });
+            if (format == Format.JSON) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            // Cliente desconectou no meio do stream; a consulta já foi encerrada com o cursor
+            Log.debugf("Exportação interrompida: %s", e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Jogos com desenvolvedora (join fetch, sem um select por linha) e gêneros. A coleção não pode
+     * ser inicializada numa sessão stateless, então os gêneros vêm como ids na própria linha
+     * (uma linha por par jogo/gênero, em ordem de jogo) e são resolvidos por um mapa carregado
+     * antes; a tabela de gêneros é pequena.
+     */
+    private void scrollJogos(StatelessSession session, Sink sink) {
+        Map<Long, Genero> generos = new HashMap<>();
+        for (Genero genero : session.createSelectionQuery("from Genero", Genero.class).getResultList()) {
+            generos.put(genero.id, genero);
+        }
+
+        try (ScrollableResults<Object[]> rows = session
+                .createSelectionQuery("select e, g.id from Jogo e left join fetch e.desenvolvedora"
+                        + " left join e.generos g order by e.id", Object[].class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            Jogo atual = null;
+            while (rows.next()) {
+                Object[] row = rows.get();
+                Jogo jogo = (Jogo) row[0];
+                if (atual == null || !atual.id.equals(jogo.id)) {
+                    if (atual != null) {
+                        sink.accept(atual);
+                    }
+                    atual = jogo;
+                    atual.generos = new HashSet<>();
+                }
+                if (row[1] != null) {
+                    // Gênero gravado depois da carga do mapa: lido pela chave; se já foi removido, fica de fora
+                    Genero genero = generos.computeIfAbsent((Long) row[1], id -> session.get(Genero.class, id));
+                    if (genero != null) {
+                        atual.generos.add(genero);
+                    }
+                }
+            }
+            if (atual != null) {
+                sink.accept(atual);
+            }
+        }
+    }
+
+    private <T> void scroll(StatelessSession session, String hql, Class<T> type, Sink sink) {
+        try (ScrollableResults<T> rows = session.createSelectionQuery(hql, type)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                sink.accept(rows.get());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void accept(Object entity);
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        void scroll(StatelessSession session, Sink sink);
+    }
+}
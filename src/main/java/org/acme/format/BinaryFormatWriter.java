@@ -0,0 +1,38 @@
+package org.acme.format;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Escreve as respostas em CBOR, Smile ou Protobuf quando um desses tipos é o negociado pelo
+ * Accept (veja {@link BinaryFormats}).
+ */
+@Provider
+@Produces({BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
+public class BinaryFormatWriter implements MessageBodyWriter<Object> {
+
+    @Inject
+    BinaryFormats formats;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return formats.supports(mediaType, type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        Object value = formats.encodable(entity, mediaType);
+        ObjectWriter writer = formats.writer(mediaType, value.getClass());
+        writer.writeValue(entityStream, value);
+    }
+}
@@ -0,0 +1,183 @@
+package org.acme.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.acme.Desenvolvedora;
+import org.acme.FichaTecnica;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.acme.SearchDesenvolvedoraResponse;
+import org.acme.SearchGeneroResponse;
+import org.acme.SearchJogoResponse;
+
+/**
+ * Formatos binários das respostas V2, escolhidos pelo cabeçalho Accept. JSON continua o padrão.
+ *
+ * CBOR e Smile são codificações binárias do mesmo modelo do JSON e servem para qualquer resposta.
+ * Protobuf depende do esquema em {@code proto/catalogo.proto} e só é oferecido pelos endpoints
+ * cujas respostas têm mensagem nele (entidades por id, buscas e listagens paginadas).
+ *
+ * Os três mappers são cópias do ObjectMapper da aplicação, com os mesmos módulos e configurações
+ * (datas ISO, propriedades ignoradas etc.), trocando apenas o formato de saída.
+ */
+@ApplicationScoped
+public class BinaryFormats {
+
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String PROTOBUF = "application/x-protobuf";
+
+    public static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    public static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+    public static final MediaType PROTOBUF_TYPE = MediaType.valueOf(PROTOBUF);
+
+    // Mensagem raiz do esquema para cada tipo de resposta
+    private static final Map<Class<?>, String> PROTOBUF_ROOTS = Map.of(
+            Jogo.class, "Jogo",
+            Desenvolvedora.class, "Desenvolvedora",
+            Genero.class, "Genero",
+            FichaTecnica.class, "FichaTecnica",
+            SearchJogoResponse.class, "SearchJogoResponse",
+            SearchGeneroResponse.class, "SearchGeneroResponse",
+            SearchDesenvolvedoraResponse.class, "SearchDesenvolvedoraResponse",
+            // Mensagens de erro: mapas, corpos montados como texto e a árvore em que eles viram
+            Map.class, "Mensagem",
+            String.class, "Mensagem",
+            JsonNode.class, "Mensagem"
+    );
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private ObjectWriter cbor;
+    private ObjectWriter smile;
+    // Um writer por mensagem raiz, montados uma vez
+    private final Map<String, ObjectWriter> protobuf = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        // O stream da resposta é do servidor: o writer não deve fechá-lo
+        cbor = objectMapper.copyWith(new CBORFactory()).writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        smile = objectMapper.copyWith(new SmileFactory()).writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        ObjectMapper protobufMapper = objectMapper.copyWith(new ProtobufFactory());
+        ProtobufSchema schema = loadSchema();
+        for (String root : PROTOBUF_ROOTS.values()) {
+            // IGNORE_UNKNOWN: propriedades sem campo no esquema são omitidas em vez de falhar
+            protobuf.put(root, protobufMapper.writer(schema.withRootType(root))
+                    .with(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+        }
+    }
+
+    public static ProtobufSchema loadSchema() {
+        try (InputStream proto = BinaryFormats.class.getResourceAsStream("/proto/catalogo.proto")) {
+            return ProtobufSchemaLoader.std.load(proto);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Esquema proto/catalogo.proto não encontrado ou inválido", e);
+        }
+    }
+
+    /**
+     * Formato binário do primeiro tipo aceito pelo cliente, ou null se for JSON, um curinga ou
+     * outro tipo (a resposta segue a negociação normal).
+     */
+    public static MediaType negotiated(HttpHeaders headers) {
+        List<MediaType> aceitos = headers.getAcceptableMediaTypes();
+        if (aceitos.isEmpty() || aceitos.get(0).isWildcardType() || aceitos.get(0).isWildcardSubtype()) {
+            return null;
+        }
+        for (MediaType formato : List.of(CBOR_TYPE, SMILE_TYPE, PROTOBUF_TYPE)) {
+            if (aceitos.get(0).isCompatible(formato)) {
+                return formato;
+            }
+        }
+        return null;
+    }
+
+    public boolean supports(MediaType mediaType, Class<?> type) {
+        // Bytes já codificados (ex.: pelo EntityResponseCache) saem como estão
+        if (type == byte[].class) {
+            return false;
+        }
+        if (mediaType.isCompatible(PROTOBUF_TYPE)) {
+            return protobufRoot(type) != null;
+        }
+        return mediaType.isCompatible(CBOR_TYPE) || mediaType.isCompatible(SMILE_TYPE);
+    }
+
+    /**
+     * @return o writer do formato, ou null se o tipo não puder ser escrito nele
+     */
+    public ObjectWriter writer(MediaType mediaType, Class<?> type) {
+        if (mediaType.isCompatible(CBOR_TYPE)) {
+            return cbor;
+        }
+        if (mediaType.isCompatible(SMILE_TYPE)) {
+            return smile;
+        }
+        if (mediaType.isCompatible(PROTOBUF_TYPE)) {
+            String root = protobufRoot(type);
+            return root != null ? protobuf.get(root) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Valor a codificar para a entidade. Corpos montados como texto JSON (as mensagens de erro, ex.:
+     * {@code "{\"message\": ...}"}) viram a árvore equivalente, para sair como objeto e não como
+     * uma string com o JSON dentro. Em Protobuf, que só codifica mensagens, um texto simples vira
+     * o campo message de uma {@code Mensagem}; o mesmo vale, em qualquer formato, para um texto
+     * que parece JSON mas não é válido.
+     */
+    public Object encodable(Object entity, MediaType mediaType) {
+        if (entity instanceof String text) {
+            String trimmed = text.strip();
+            if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+                try {
+                    return objectMapper.readTree(trimmed);
+                } catch (JsonProcessingException e) {
+                    return Map.of("message", text);
+                }
+            }
+            if (mediaType.isCompatible(PROTOBUF_TYPE)) {
+                return Map.of("message", text);
+            }
+        }
+        return entity;
+    }
+
+    // Sobe pela hierarquia para aceitar proxies do Hibernate e implementações de Map
+    private static String protobufRoot(Class<?> type) {
+        if (Map.class.isAssignableFrom(type)) {
+            return PROTOBUF_ROOTS.get(Map.class);
+        }
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            String root = PROTOBUF_ROOTS.get(c);
+            if (root != null) {
+                return root;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,375 @@
+package org.acme.importer;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import org.acme.ClassificacaoIndicativa;
+import org.acme.Desenvolvedora;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Importação de um catálogo completo (NDJSON ou CSV) direto no banco, sem passar pela API REST.
+ * Executada pelo modo de linha de comando: {@code java -jar quarkus-run.jar import <arquivo>}.
+ *
+ * O arquivo é lido por janelas mapeadas em memória e cada linha é convertida sem árvore
+ * intermediária. Desenvolvedoras e gêneros são resolvidos por nome em mapas nome -> id carregados
+ * uma vez no início, e os jogos viram referências (getReference) sem consultar o banco. Cada lote
+ * de registros é gravado em uma transação; depois do commit a posição do arquivo é salva em
+ * {@code <arquivo>.checkpoint}, de onde uma nova execução continua após uma falha.
+ *
+ * Registros já existentes (mesmo nome ou título) são contados como duplicados e ignorados, então
+ * reprocessar o último lote após uma queda entre o commit e o checkpoint não duplica dados.
+ */
+@ApplicationScoped
+public class CatalogImporter {
+
+    @ConfigProperty(name = "catalog.import.batch-size", defaultValue = "5000")
+    int defaultBatchSize;
+
+    @ConfigProperty(name = "catalog.import.transaction-timeout", defaultValue = "600")
+    int transactionTimeout;
+
+    @Inject
+    Validator validator;
+
+    // Nome normalizado (TextNormalizer.fold) -> id, apenas com o que já foi commitado
+    private final Map<String, Long> desenvolvedoras = new HashMap<>();
+    private final Map<String, Long> generos = new HashMap<>();
+
+    /**
+     * @param args {@code <arquivo> [--format=ndjson|csv] [--batch-size=N] [--restart]}
+     * @return código de saída do processo
+     */
+    public int run(String... args) {
+        Path file = null;
+        CatalogRecordParser.Format format = null;
+        int batchSize = defaultBatchSize;
+        boolean restart = false;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--format=")) {
+                    format = CatalogRecordParser.Format.of(arg.substring("--format=".length()));
+                } else if (arg.startsWith("--batch-size=")) {
+                    batchSize = Integer.parseInt(arg.substring("--batch-size=".length()));
+                } else if (arg.equals("--restart")) {
+                    restart = true;
+                } else if (file == null && !arg.startsWith("--")) {
+                    file = Path.of(arg);
+                } else {
+                    throw new IllegalArgumentException("Argumento desconhecido: " + arg);
+                }
+            }
+            if (file == null) {
+                throw new IllegalArgumentException("Informe o arquivo do catálogo");
+            }
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("--batch-size deve ser positivo");
+            }
+        } catch (IllegalArgumentException e) {
+            Log.errorf("%s%nUso: import <arquivo> [--format=ndjson|csv] [--batch-size=N] [--restart]", e.getMessage());
+            return 2;
+        }
+        if (format == null) {
+            format = file.toString().toLowerCase().endsWith(".csv")
+                    ? CatalogRecordParser.Format.CSV
+                    : CatalogRecordParser.Format.NDJSON;
+        }
+        if (!Files.isRegularFile(file)) {
+            Log.errorf("Arquivo não encontrado: %s", file);
+            return 2;
+        }
+
+        try {
+            return importar(file, format, batchSize, restart);
+        } catch (IOException e) {
+            Log.errorf(e, "Falha de leitura de %s", file);
+            return 1;
+        }
+    }
+
+    int importar(Path file, CatalogRecordParser.Format format, int batchSize, boolean restart) throws IOException {
+        Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        Progresso progresso = restart ? new Progresso() : Progresso.load(checkpointFile);
+        if (progresso.offset > 0) {
+            Log.infof("Retomando %s a partir do byte %d (checkpoint %s)", file, progresso.offset, checkpointFile);
+        }
+        carregarNomes();
+
+        var parser = new CatalogRecordParser(format);
+        long start = System.nanoTime();
+        long registrosNestaExecucao = 0;
+        List<CatalogRecord> lote = new ArrayList<>(batchSize);
+        try (var reader = new MappedLineReader(file, progresso.offset, MappedLineReader.DEFAULT_WINDOW)) {
+            boolean fim = false;
+            while (!fim) {
+                fim = !reader.next();
+                if (!fim) {
+                    try {
+                        CatalogRecord record = parser.parse(reader.line(), reader.lineLength());
+                        record.offset = reader.lineOffset();
+                        lote.add(record);
+                    } catch (IllegalArgumentException e) {
+                        progresso.rejeitados++;
+                        Log.warnf("Linha no byte %d ignorada: %s", reader.lineOffset(), e.getMessage());
+                    }
+                }
+                if (lote.size() == batchSize || (fim && !lote.isEmpty())) {
+                    try {
+                        gravar(lote, progresso);
+                    } catch (RuntimeException e) {
+                        Log.errorf(e, "Falha ao gravar o lote iniciado no byte %d; execute novamente para retomar a partir do byte %d",
+                                lote.get(0).offset, progresso.offset);
+                        return 1;
+                    }
+                    registrosNestaExecucao += lote.size();
+                    lote.clear();
+                    progresso.offset = reader.offset();
+                    progresso.save(checkpointFile);
+
+                    double segundos = (System.nanoTime() - start) / 1e9;
+                    Log.infof("Importação %.1f%% (%d de %d bytes): %s, %.0f registros/s",
+                            reader.size() == 0 ? 100.0 : 100.0 * progresso.offset / reader.size(),
+                            progresso.offset, reader.size(), progresso, registrosNestaExecucao / Math.max(segundos, 0.001));
+                }
+            }
+        }
+
+        Files.deleteIfExists(checkpointFile);
+        Log.infof("Importação de %s concluída em %d s: %s", file, (System.nanoTime() - start) / 1_000_000_000, progresso);
+        return 0;
+    }
+
+    private void carregarNomes() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            EntityManager em = Panache.getEntityManager();
+            for (Object[] row : em.createQuery("select e.nome, e.id from Desenvolvedora e", Object[].class).getResultList()) {
+                desenvolvedoras.putIfAbsent(TextNormalizer.fold((String) row[0]), (Long) row[1]);
+            }
+            for (Object[] row : em.createQuery("select e.nome, e.id from Genero e", Object[].class).getResultList()) {
+                generos.putIfAbsent(TextNormalizer.fold((String) row[0]), (Long) row[1]);
+            }
+        });
+        Log.infof("Referências carregadas: %d desenvolvedoras, %d gêneros", desenvolvedoras.size(), generos.size());
+    }
+
+    /**
+     * Grava um lote em uma transação. Os nomes criados só entram nos mapas depois do commit, para
+     * que um rollback não deixe ids inexistentes neles.
+     */
+    private void gravar(List<CatalogRecord> lote, Progresso progresso) {
+        Map<String, Long> novasDesenvolvedoras = new HashMap<>();
+        Map<String, Long> novosGeneros = new HashMap<>();
+        Progresso parcial = QuarkusTransaction.requiringNew()
+                .timeout(transactionTimeout)
+                .call(() -> gravarNaTransacao(lote, novasDesenvolvedoras, novosGeneros));
+        desenvolvedoras.putAll(novasDesenvolvedoras);
+        generos.putAll(novosGeneros);
+        progresso.add(parcial);
+    }
+
+    private Progresso gravarNaTransacao(List<CatalogRecord> lote, Map<String, Long> novasDesenvolvedoras,
+                                        Map<String, Long> novosGeneros) {
+        EntityManager em = Panache.getEntityManager();
+        var parcial = new Progresso();
+
+        // Uma única consulta de títulos existentes por lote (normalizados, como o índice único)
+        List<String> titulos = lote.stream()
+                .filter(r -> r.tipo == CatalogRecord.Tipo.JOGO)
+                .map(r -> TextNormalizer.fold(r.titulo))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Set<String> titulosUsados = titulos.isEmpty() ? new HashSet<>() : new HashSet<>(em
+                .createQuery("select e.tituloNormalizado from Jogo e where e.tituloNormalizado in :titulos", String.class)
+                .setParameter("titulos", titulos)
+                .getResultList());
+
+        for (CatalogRecord record : lote) {
+            try {
+                switch (record.tipo) {
+                    case DESENVOLVEDORA -> {
+                        String chave = TextNormalizer.fold(record.nome);
+                        if (buscar(chave, desenvolvedoras, novasDesenvolvedoras) != null) {
+                            parcial.duplicados++;
+                            continue;
+                        }
+                        var desenvolvedora = new Desenvolvedora();
+                        desenvolvedora.nome = record.nome;
+                        desenvolvedora.paisDeOrigem = record.paisDeOrigem;
+                        desenvolvedora.dataDeFundacao = record.dataDeFundacao == null || record.dataDeFundacao.isBlank()
+                                ? null : LocalDate.parse(record.dataDeFundacao.trim());
+                        if (validar(desenvolvedora, record, parcial)) {
+                            desenvolvedora.persist();
+                            novasDesenvolvedoras.put(chave, desenvolvedora.id);
+                            parcial.desenvolvedoras++;
+                        }
+                    }
+                    case GENERO -> {
+                        String chave = TextNormalizer.fold(record.nome);
+                        if (buscar(chave, generos, novosGeneros) != null) {
+                            parcial.duplicados++;
+                            continue;
+                        }
+                        var genero = new Genero();
+                        genero.nome = record.nome;
+                        genero.descricao = record.descricao == null || record.descricao.isBlank() ? null : record.descricao;
+                        if (validar(genero, record, parcial)) {
+                            genero.persist();
+                            novosGeneros.put(chave, genero.id);
+                            parcial.generos++;
+                        }
+                    }
+                    case JOGO -> {
+                        if (record.titulo != null && !titulosUsados.add(TextNormalizer.fold(record.titulo))) {
+                            parcial.duplicados++;
+                            continue;
+                        }
+                        var jogo = new Jogo();
+                        jogo.titulo = record.titulo;
+                        jogo.descricao = record.descricao;
+                        jogo.anoLancamento = record.anoLancamento == null ? 0 : record.anoLancamento;
+                        jogo.classificacaoIndicativa = record.classificacaoIndicativa == null
+                                ? null : ClassificacaoIndicativa.valueOf(record.classificacaoIndicativa.trim());
+                        if (!validar(jogo, record, parcial) || !referenciar(jogo, record, novasDesenvolvedoras, novosGeneros, em, parcial)) {
+                            continue;
+                        }
+                        jogo.persist();
+                        parcial.jogos++;
+                    }
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                rejeitar(record, parcial, e.getMessage());
+            }
+        }
+        return parcial;
+    }
+
+    private boolean referenciar(Jogo jogo, CatalogRecord record, Map<String, Long> novasDesenvolvedoras,
+                                Map<String, Long> novosGeneros, EntityManager em, Progresso parcial) {
+        List<String> faltando = new ArrayList<>();
+        if (record.desenvolvedora != null && !record.desenvolvedora.isBlank()) {
+            Long id = buscar(TextNormalizer.fold(record.desenvolvedora), desenvolvedoras, novasDesenvolvedoras);
+            if (id == null) {
+                faltando.add("desenvolvedora '" + record.desenvolvedora + "'");
+            } else {
+                jogo.desenvolvedora = em.getReference(Desenvolvedora.class, id);
+            }
+        }
+        for (String nome : record.generos) {
+            Long id = buscar(TextNormalizer.fold(nome), generos, novosGeneros);
+            if (id == null) {
+                faltando.add("gênero '" + nome + "'");
+            } else {
+                jogo.generos.add(em.getReference(Genero.class, id));
+            }
+        }
+        if (!faltando.isEmpty()) {
+            rejeitar(record, parcial, "referências não encontradas: " + String.join(", ", faltando));
+            return false;
+        }
+        return true;
+    }
+
+    private boolean validar(Object entidade, CatalogRecord record, Progresso parcial) {
+        List<String> violacoes = validator.validate(entidade).stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .toList();
+        if (violacoes.isEmpty()) {
+            return true;
+        }
+        rejeitar(record, parcial, String.join("; ", violacoes));
+        return false;
+    }
+
+    private static void rejeitar(CatalogRecord record, Progresso parcial, String motivo) {
+        parcial.rejeitados++;
+        Log.warnf("Registro no byte %d (%s) ignorado: %s", record.offset, record.rotulo(), motivo);
+    }
+
+    private static Long buscar(String chave, Map<String, Long> commitados, Map<String, Long> doLote) {
+        Long id = commitados.get(chave);
+        return id != null ? id : doLote.get(chave);
+    }
+
+    /** Posição no arquivo e contadores acumulados entre execuções, persistidos no checkpoint. */
+    static class Progresso {
+        long offset;
+        long desenvolvedoras;
+        long generos;
+        long jogos;
+        long duplicados;
+        long rejeitados;
+
+        void add(Progresso outro) {
+            desenvolvedoras += outro.desenvolvedoras;
+            generos += outro.generos;
+            jogos += outro.jogos;
+            duplicados += outro.duplicados;
+            rejeitados += outro.rejeitados;
+        }
+
+        static Progresso load(Path file) throws IOException {
+            var progresso = new Progresso();
+            if (!Files.exists(file)) {
+                return progresso;
+            }
+            var properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            progresso.offset = Long.parseLong(properties.getProperty("offset", "0"));
+            progresso.desenvolvedoras = Long.parseLong(properties.getProperty("desenvolvedoras", "0"));
+            progresso.generos = Long.parseLong(properties.getProperty("generos", "0"));
+            progresso.jogos = Long.parseLong(properties.getProperty("jogos", "0"));
+            progresso.duplicados = Long.parseLong(properties.getProperty("duplicados", "0"));
+            progresso.rejeitados = Long.parseLong(properties.getProperty("rejeitados", "0"));
+            return progresso;
+        }
+
+        /** Grava em um arquivo temporário e renomeia, para nunca deixar um checkpoint pela metade. */
+        void save(Path file) throws IOException {
+            var properties = new Properties();
+            properties.setProperty("offset", Long.toString(offset));
+            properties.setProperty("desenvolvedoras", Long.toString(desenvolvedoras));
+            properties.setProperty("generos", Long.toString(generos));
+            properties.setProperty("jogos", Long.toString(jogos));
+            properties.setProperty("duplicados", Long.toString(duplicados));
+            properties.setProperty("rejeitados", Long.toString(rejeitados));
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, "Checkpoint da importação de catálogo");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public String toString() {
+            return desenvolvedoras + " desenvolvedoras, " + generos + " gêneros, " + jogos + " jogos criados; "
+                    + duplicados + " duplicados, " + rejeitados + " rejeitados";
+        }
+    }
+}
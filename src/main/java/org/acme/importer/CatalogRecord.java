@@ -0,0 +1,37 @@
+package org.acme.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Um registro do arquivo de catálogo. Só os campos do tipo do registro são preenchidos; as
+ * referências de um jogo (desenvolvedora e gêneros) vêm pelo nome, não pelo id.
+ */
+class CatalogRecord {
+
+    enum Tipo {
+        DESENVOLVEDORA, GENERO, JOGO
+    }
+
+    Tipo tipo;
+    // Posição da linha no arquivo, para as mensagens de erro
+    long offset;
+
+    // Desenvolvedora e gênero
+    String nome;
+    String descricao;
+    String dataDeFundacao;
+    String paisDeOrigem;
+
+    // Jogo (descricao é compartilhada com gênero)
+    String titulo;
+    Integer anoLancamento;
+    String classificacaoIndicativa;
+    String desenvolvedora;
+    List<String> generos = new ArrayList<>();
+
+    /** Nome usado nas mensagens de progresso e de erro. */
+    String rotulo() {
+        return tipo == Tipo.JOGO ? "jogo '" + titulo + "'" : tipo.name().toLowerCase() + " '" + nome + "'";
+    }
+}
@@ -0,0 +1,169 @@
+package org.acme.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converte uma linha do arquivo de catálogo em {@link CatalogRecord}.
+ *
+ * NDJSON é lido token a token com o JsonParser do Jackson, direto dos bytes da linha, sem montar
+ * árvore (JsonNode) nem mapear por reflexão. CSV não tem cabeçalho: a primeira coluna é o tipo e
+ * as demais dependem dele (veja o README). Campos entre aspas seguem o RFC 4180, mas um registro
+ * não pode ocupar mais de uma linha.
+ */
+final class CatalogRecordParser {
+
+    enum Format {
+        NDJSON, CSV;
+
+        static Format of(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Format format;
+
+    CatalogRecordParser(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * @throws IllegalArgumentException se a linha não for um registro válido
+     */
+    CatalogRecord parse(byte[] line, int length) {
+        try {
+            return format == Format.NDJSON ? parseJson(line, length) : parseCsv(new String(line, 0, length, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static CatalogRecord parseJson(byte[] line, int length) throws IOException {
+        var record = new CatalogRecord();
+        try (JsonParser parser = JSON.createParser(line, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("O registro deve ser um objeto JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "tipo" -> record.tipo = tipo(parser.getValueAsString());
+                    case "nome" -> record.nome = parser.getValueAsString();
+                    case "descricao" -> record.descricao = parser.getValueAsString();
+                    case "dataDeFundacao" -> record.dataDeFundacao = parser.getValueAsString();
+                    case "paisDeOrigem" -> record.paisDeOrigem = parser.getValueAsString();
+                    case "titulo" -> record.titulo = parser.getValueAsString();
+                    case "anoLancamento" -> record.anoLancamento = value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                    case "classificacaoIndicativa" -> record.classificacaoIndicativa = parser.getValueAsString();
+                    case "desenvolvedora" -> record.desenvolvedora = parser.getValueAsString();
+                    case "generos" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                record.generos.add(parser.getValueAsString());
+                            }
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        if (record.tipo == null) {
+            throw new IllegalArgumentException("Campo 'tipo' ausente");
+        }
+        return record;
+    }
+
+    private static CatalogRecord parseCsv(String line) {
+        List<String> columns = splitCsv(line);
+        var record = new CatalogRecord();
+        record.tipo = tipo(columns.get(0));
+        switch (record.tipo) {
+            // desenvolvedora,nome,dataDeFundacao,paisDeOrigem
+            case DESENVOLVEDORA -> {
+                expect(columns, 4);
+                record.nome = columns.get(1);
+                record.dataDeFundacao = columns.get(2);
+                record.paisDeOrigem = columns.get(3);
+            }
+            // genero,nome,descricao
+            case GENERO -> {
+                expect(columns, 3);
+                record.nome = columns.get(1);
+                record.descricao = columns.get(2);
+            }
+            // jogo,titulo,descricao,anoLancamento,classificacaoIndicativa,desenvolvedora,generos separados por |
+            case JOGO -> {
+                expect(columns, 7);
+                record.titulo = columns.get(1);
+                record.descricao = columns.get(2);
+                record.anoLancamento = columns.get(3).isEmpty() ? null : Integer.valueOf(columns.get(3).trim());
+                record.classificacaoIndicativa = columns.get(4);
+                record.desenvolvedora = columns.get(5);
+                if (!columns.get(6).isBlank()) {
+                    for (String genero : columns.get(6).split("\\|")) {
+                        record.generos.add(genero.trim());
+                    }
+                }
+            }
+        }
+        return record;
+    }
+
+    private static void expect(List<String> columns, int count) {
+        if (columns.size() != count) {
+            throw new IllegalArgumentException("Registro '" + columns.get(0) + "' deve ter " + count
+                    + " colunas, mas tem " + columns.size());
+        }
+    }
+
+    private static CatalogRecord.Tipo tipo(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Campo 'tipo' ausente");
+        }
+        try {
+            return CatalogRecord.Tipo.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de registro desconhecido: '" + value + "'");
+        }
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> columns = new ArrayList<>();
+        var current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Aspas não fechadas no registro CSV");
+        }
+        columns.add(current.toString());
+        return columns;
+    }
+}
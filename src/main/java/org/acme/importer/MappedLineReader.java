@@ -0,0 +1,134 @@
+package org.acme.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lê um arquivo linha a linha através de janelas mapeadas em memória (FileChannel.map), sem
+ * decodificar o conteúdo: cada linha é entregue como bytes UTF-8 para o parser.
+ *
+ * Uma linha que atravessa o fim da janela faz a janela ser remapeada a partir do início dela.
+ * {@link #offset()} é a posição em bytes da próxima linha e serve como ponto de retomada.
+ */
+final class MappedLineReader implements Closeable {
+
+    static final int DEFAULT_WINDOW = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+    private long position;
+    private long lineOffset;
+    private byte[] line = new byte[8 * 1024];
+    private int lineLength;
+
+    MappedLineReader(Path file, long startOffset, int window) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.window = window;
+        this.position = Math.min(startOffset, size);
+    }
+
+    /**
+     * Avança para a próxima linha não vazia.
+     *
+     * @return false no fim do arquivo
+     */
+    boolean next() throws IOException {
+        while (position < size) {
+            if (buffer == null || position < bufferStart || position >= bufferStart + buffer.limit()) {
+                map(position);
+            }
+            int start = (int) (position - bufferStart);
+            int end = indexOfNewline(start);
+            if (end < 0) {
+                if (bufferStart + buffer.limit() < size) {
+                    if (start == 0) {
+                        throw new IOException("Linha maior que a janela de leitura (" + window + " bytes) na posição " + position);
+                    }
+                    // Linha cortada pelo fim da janela: remapeia a partir do início dela
+                    map(position);
+                    continue;
+                }
+                // Última linha do arquivo, sem quebra de linha no final
+                end = buffer.limit();
+            }
+
+            lineOffset = position;
+            position = bufferStart + end + 1;
+            int length = end - start;
+            if (length > 0 && buffer.get(start + length - 1) == '\r') {
+                length--;
+            }
+            if (isBlank(start, length)) {
+                continue;
+            }
+            if (line.length < length) {
+                line = Arrays.copyOf(line, Math.max(length, line.length * 2));
+            }
+            buffer.get(start, line, 0, length);
+            lineLength = length;
+            return true;
+        }
+        return false;
+    }
+
+    byte[] line() {
+        return line;
+    }
+
+    int lineLength() {
+        return lineLength;
+    }
+
+    /** Posição em bytes da linha atual (para mensagens de erro). */
+    long lineOffset() {
+        return lineOffset;
+    }
+
+    /** Posição em bytes da próxima linha: retomar daqui não repete nem pula registros. */
+    long offset() {
+        return Math.min(position, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long from) throws IOException {
+        bufferStart = from;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(window, size - from));
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isBlank(int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
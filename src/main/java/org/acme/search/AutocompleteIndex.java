@@ -0,0 +1,131 @@
+package org.acme.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estrutura de prefixos imutável para autocomplete.
+ *
+ * Cada sugestão é indexada pelo texto dobrado (sem acentos, minúsculo) e por cada sufixo que
+ * começa em início de palavra, de modo que "wit" encontra "The Witcher 3". As chaves ficam em um
+ * array ordenado: a consulta é uma busca binária pelo prefixo seguida de uma varredura curta.
+ *
+ * Alterações produzem uma nova instância por intercalação linear com a anterior, sem reordenar
+ * o índice inteiro nem consultar o banco.
+ */
+public final class AutocompleteIndex {
+
+    public static final AutocompleteIndex EMPTY = new AutocompleteIndex(new String[0], new Suggestion[0]);
+
+    private final String[] keys;
+    private final Suggestion[] suggestions;
+
+    private AutocompleteIndex(String[] keys, Suggestion[] suggestions) {
+        this.keys = keys;
+        this.suggestions = suggestions;
+    }
+
+    public static AutocompleteIndex build(Collection<Suggestion> entries) {
+        return EMPTY.withChanges(Set.of(), entries);
+    }
+
+    /**
+     * Até {@code limit} sugestões distintas cujo texto (ou alguma palavra dele) começa com o prefixo.
+     */
+    public List<Suggestion> complete(String prefix, int limit) {
+        String folded = TextNormalizer.fold(prefix).strip();
+        List<Suggestion> result = new ArrayList<>(limit);
+        if (folded.isEmpty()) {
+            return result;
+        }
+        for (int i = lowerBound(folded); i < keys.length && result.size() < limit && keys[i].startsWith(folded); i++) {
+            if (!result.contains(suggestions[i])) {
+                result.add(suggestions[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nova versão do índice sem as sugestões dos donos removidos e com as entradas adicionadas.
+     *
+     * @param removedOwners chaves {@link Suggestion#ownerKey()} a retirar (também usadas em atualizações)
+     */
+    public AutocompleteIndex withChanges(Set<Long> removedOwners, Collection<Suggestion> added) {
+        List<Object[]> additions = new ArrayList<>();
+        for (Suggestion suggestion : added) {
+            for (String key : keysOf(suggestion.texto())) {
+                additions.add(new Object[]{key, suggestion});
+            }
+        }
+        additions.sort(Comparator.comparing(a -> (String) a[0]));
+
+        int capacity = keys.length + additions.size();
+        String[] newKeys = new String[capacity];
+        Suggestion[] newSuggestions = new Suggestion[capacity];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < keys.length || j < additions.size()) {
+            if (i < keys.length && removedOwners.contains(suggestions[i].ownerKey())) {
+                i++;
+                continue;
+            }
+            boolean takeOld = j >= additions.size()
+                    || (i < keys.length && keys[i].compareTo((String) additions.get(j)[0]) <= 0);
+            if (takeOld) {
+                newKeys[n] = keys[i];
+                newSuggestions[n++] = suggestions[i++];
+            } else {
+                newKeys[n] = (String) additions.get(j)[0];
+                newSuggestions[n++] = (Suggestion) additions.get(j++)[1];
+            }
+        }
+        return new AutocompleteIndex(Arrays.copyOf(newKeys, n), Arrays.copyOf(newSuggestions, n));
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Primeira posição com chave &gt;= {@code key}. Chaves se repetem (uma por sugestão que tem a
+     * palavra), e Arrays.binarySearch poderia parar no meio da sequência de iguais.
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Texto completo dobrado e cada sufixo iniciado em começo de palavra.
+     */
+    private static Set<String> keysOf(String text) {
+        Set<String> result = new HashSet<>();
+        if (text == null) {
+            return result;
+        }
+        String folded = TextNormalizer.fold(text).strip();
+        for (int k = 0; k < folded.length(); k++) {
+            boolean wordStart = k == 0 || !Character.isLetterOrDigit(folded.charAt(k - 1));
+            if (wordStart && Character.isLetterOrDigit(folded.charAt(k))) {
+                result.add(folded.substring(k));
+            }
+        }
+        return result;
+    }
+}
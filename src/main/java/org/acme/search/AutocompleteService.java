@@ -0,0 +1,99 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.acme.CatalogBulkChange;
+import org.acme.CatalogChange;
+import org.acme.Desenvolvedora;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Mantém o {@link AutocompleteIndex} de títulos de jogos, nomes de desenvolvedoras e de gêneros.
+ *
+ * As consultas leem apenas a referência volátil para o índice imutável atual, sem lock e sem
+ * acesso ao banco. As escritas (eventos {@link CatalogChange}) publicam uma nova versão.
+ */
+@ApplicationScoped
+public class AutocompleteService {
+
+    private volatile AutocompleteIndex index = AutocompleteIndex.EMPTY;
+
+    @ConfigProperty(name = "search.indexes.load-on-start", defaultValue = "true")
+    boolean loadOnStart;
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        if (!loadOnStart) {
+            return;
+        }
+        List<Suggestion> entries = new ArrayList<>();
+        load(entries, Suggestion.Kind.JOGO, "select e.id, e.titulo from Jogo e");
+        load(entries, Suggestion.Kind.DESENVOLVEDORA, "select e.id, e.nome from Desenvolvedora e");
+        load(entries, Suggestion.Kind.GENERO, "select e.id, e.nome from Genero e");
+        index = AutocompleteIndex.build(entries);
+    }
+
+    public List<Suggestion> complete(String prefix, int limit) {
+        return index.complete(prefix, limit);
+    }
+
+    void onCatalogChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        apply(List.of(change));
+    }
+
+    void onCatalogBulkChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogBulkChange bulk) {
+        apply(bulk.changes());
+    }
+
+    /** Publica uma única nova versão do índice com todas as alterações. */
+    private synchronized void apply(List<CatalogChange> changes) {
+        Set<Long> removed = new HashSet<>();
+        List<Suggestion> added = new ArrayList<>();
+        for (CatalogChange change : changes) {
+            Suggestion.Kind kind;
+            String texto = null;
+            if (change.entityType() == Jogo.class) {
+                kind = Suggestion.Kind.JOGO;
+                if (change.entity() instanceof Jogo jogo) {
+                    texto = jogo.titulo;
+                }
+            } else if (change.entityType() == Desenvolvedora.class) {
+                kind = Suggestion.Kind.DESENVOLVEDORA;
+                if (change.entity() instanceof Desenvolvedora desenvolvedora) {
+                    texto = desenvolvedora.nome;
+                }
+            } else if (change.entityType() == Genero.class) {
+                kind = Suggestion.Kind.GENERO;
+                if (change.entity() instanceof Genero genero) {
+                    texto = genero.nome;
+                }
+            } else {
+                continue;
+            }
+            removed.add(Suggestion.ownerKey(kind, change.id()));
+            if (texto != null) {
+                added.add(new Suggestion(kind, change.id(), texto));
+            }
+        }
+        if (!removed.isEmpty()) {
+            index = index.withChanges(removed, added);
+        }
+    }
+
+    private static void load(List<Suggestion> entries, Suggestion.Kind kind, String hql) {
+        List<Object[]> rows = Panache.getEntityManager().createQuery(hql, Object[].class).getResultList();
+        for (Object[] row : rows) {
+            entries.add(new Suggestion(kind, ((Number) row[0]).longValue(), (String) row[1]));
+        }
+    }
+}
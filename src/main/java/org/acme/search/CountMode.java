@@ -0,0 +1,21 @@
+package org.acme.search;
+
+import java.util.Locale;
+
+/**
+ * Estratégia usada para calcular o total de registros de uma busca.
+ */
+public enum CountMode {
+    /** COUNT(*) separado, executado uma única vez por requisição. */
+    EXACT,
+    /** count(*) over() na própria query da página: uma ida ao banco para página + total. */
+    WINDOW,
+    /** Total memorizado por query normalizada e descartado quando a entidade é escrita. */
+    CACHED,
+    /** Estimativa das estatísticas do banco; apenas para listagens sem filtro. */
+    ESTIMATED;
+
+    public static CountMode from(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,357 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.acme.CatalogBulkChange;
+import org.acme.CatalogChange;
+import org.acme.ClassificacaoIndicativa;
+import org.acme.Desenvolvedora;
+import org.acme.Facets;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Bitmaps de ids de jogos por valor de faceta (gênero, classificação, ano de lançamento e
+ * desenvolvedora). As contagens de uma busca saem da interseção de cada bitmap com o conjunto de
+ * ids do resultado, em memória, em vez de um GROUP BY por faceta; os anos são somados por década.
+ *
+ * Os mesmos bitmaps resolvem os campos do filtro estruturado (veja {@link JogoFilter#matchingIds}),
+ * e as contagens sem filtro são calculadas uma vez e reaproveitadas até a próxima escrita.
+ *
+ * O índice guarda também o estado facetado de cada jogo para poder retirar os bits antigos
+ * quando um jogo muda de gêneros, classificação ou desenvolvedora.
+ */
+@ApplicationScoped
+public class FacetIndex {
+
+    private final Map<Long, BitSet> porGenero = new HashMap<>();
+    private final Map<ClassificacaoIndicativa, BitSet> porClassificacao = new EnumMap<>(ClassificacaoIndicativa.class);
+    private final Map<Integer, BitSet> porAno = new HashMap<>();
+    private final Map<Long, BitSet> porDesenvolvedora = new HashMap<>();
+    private final Map<Long, FacetDoc> docs = new HashMap<>();
+    private final Map<Long, String> nomesGeneros = new HashMap<>();
+    private final Map<Long, String> nomesDesenvolvedoras = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Contagens do catálogo inteiro, descartadas a cada escrita
+    private volatile Facets todas;
+
+    // Falso no perfil "import", em que os bitmaps ficam vazios
+    @ConfigProperty(name = "search.indexes.load-on-start", defaultValue = "true")
+    boolean loadOnStart;
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        if (!loadOnStart) {
+            return;
+        }
+        var em = Panache.getEntityManager();
+        Map<Long, List<Long>> generosPorJogo = new HashMap<>();
+        for (Object[] row : em.createQuery("select j.id, g.id from Jogo j join j.generos g", Object[].class).getResultList()) {
+            generosPorJogo.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : em.createQuery("select e.id, e.nome from Genero e", Object[].class).getResultList()) {
+                nomesGeneros.put((Long) row[0], (String) row[1]);
+            }
+            for (Object[] row : em.createQuery("select e.id, e.nome from Desenvolvedora e", Object[].class).getResultList()) {
+                nomesDesenvolvedoras.put((Long) row[0], (String) row[1]);
+            }
+            List<Object[]> jogos = em.createQuery(
+                    "select j.id, j.classificacaoIndicativa, j.anoLancamento, d.id from Jogo j left join j.desenvolvedora d",
+                    Object[].class).getResultList();
+            for (Object[] row : jogos) {
+                long id = (Long) row[0];
+                List<Long> generos = generosPorJogo.getOrDefault(id, List.of());
+                add(id, new FacetDoc(
+                        generos.stream().mapToLong(Long::longValue).toArray(),
+                        (ClassificacaoIndicativa) row[1],
+                        (Integer) row[2],
+                        (Long) row[3]));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Contagens de todas as facetas restritas ao conjunto de ids do resultado.
+     */
+    public Facets count(BitSet resultado) {
+        lock.readLock().lock();
+        try {
+            var facets = new Facets();
+            facets.generos = count(porGenero, resultado, id -> String.valueOf(id), nomesGeneros::get);
+            facets.classificacoes = count(porClassificacao, resultado, Enum::name, ClassificacaoIndicativa::getDescricao);
+            facets.anos = countDecadas(resultado);
+            facets.desenvolvedoras = count(porDesenvolvedora, resultado, id -> String.valueOf(id), nomesDesenvolvedoras::get);
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Contagens do catálogo inteiro (busca sem filtro), sem ler ids do banco. O resultado é
+     * compartilhado entre as requisições até a próxima escrita e não deve ser alterado.
+     */
+    public Facets countAll() {
+        Facets facets = todas;
+        if (facets == null) {
+            lock.readLock().lock();
+            try {
+                BitSet catalogo = new BitSet();
+                docs.keySet().forEach(id -> catalogo.set(Math.toIntExact(id)));
+                facets = count(catalogo);
+                // Uma escrita concorrente só pode descartar o valor depois de obter o write lock
+                todas = facets;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return facets;
+    }
+
+    /**
+     * Conjunto de ids já resolvido em memória (ex.: candidatos do índice de trigramas), no formato
+     * aceito por {@link #count}.
+     */
+    public static BitSet bits(long[] ids) {
+        BitSet bits = new BitSet();
+        for (long id : ids) {
+            bits.set(Math.toIntExact(id));
+        }
+        return bits;
+    }
+
+    /** Jogos com algum dos gêneros. */
+    BitSet generos(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            for (Long id : ids) {
+                or(bits, porGenero.get(id));
+            }
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Jogos com algum dos gêneros, pelo nome normalizado ({@link TextNormalizer#fold}). */
+    BitSet generosPorNome(Collection<String> nomes) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            nomesGeneros.forEach((id, nome) -> {
+                if (nomes.contains(TextNormalizer.fold(nome))) {
+                    or(bits, porGenero.get(id));
+                }
+            });
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Jogos lançados no intervalo; um limite nulo não restringe aquele lado. */
+    public BitSet anos(Integer min, Integer max) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            porAno.forEach((ano, anoBits) -> {
+                if ((min == null || ano >= min) && (max == null || ano <= max)) {
+                    bits.or(anoBits);
+                }
+            });
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BitSet classificacoes(Collection<ClassificacaoIndicativa> valores) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            for (ClassificacaoIndicativa valor : valores) {
+                or(bits, porClassificacao.get(valor));
+            }
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BitSet desenvolvedora(long id) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            or(bits, porDesenvolvedora.get(id));
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Jogos da desenvolvedora com o nome normalizado informado. */
+    BitSet desenvolvedoraPorNome(String nome) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            nomesDesenvolvedoras.forEach((id, atual) -> {
+                if (nome.equals(TextNormalizer.fold(atual))) {
+                    or(bits, porDesenvolvedora.get(id));
+                }
+            });
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void onCatalogChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        onCatalogBulkChange(new CatalogBulkChange(List.of(change)));
+    }
+
+    void onCatalogBulkChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogBulkChange bulk) {
+        lock.writeLock().lock();
+        try {
+            bulk.changes().forEach(this::apply);
+            todas = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(CatalogChange change) {
+        if (change.entityType() == Jogo.class) {
+            remove(change.id());
+            if (change.entity() instanceof Jogo jogo) {
+                add(jogo.id, FacetDoc.of(jogo));
+            }
+        } else if (change.entityType() == Genero.class) {
+            if (change.entity() instanceof Genero genero) {
+                nomesGeneros.put(genero.id, genero.nome);
+            } else {
+                nomesGeneros.remove(change.id());
+            }
+        } else if (change.entityType() == Desenvolvedora.class) {
+            if (change.entity() instanceof Desenvolvedora desenvolvedora) {
+                nomesDesenvolvedoras.put(desenvolvedora.id, desenvolvedora.nome);
+            } else {
+                nomesDesenvolvedoras.remove(change.id());
+            }
+        }
+    }
+
+    private void add(long id, FacetDoc doc) {
+        int bit = Math.toIntExact(id);
+        docs.put(id, doc);
+        for (long genero : doc.generos()) {
+            porGenero.computeIfAbsent(genero, k -> new BitSet()).set(bit);
+        }
+        if (doc.classificacao() != null) {
+            porClassificacao.computeIfAbsent(doc.classificacao(), k -> new BitSet()).set(bit);
+        }
+        porAno.computeIfAbsent(doc.ano(), k -> new BitSet()).set(bit);
+        if (doc.desenvolvedora() != null) {
+            porDesenvolvedora.computeIfAbsent(doc.desenvolvedora(), k -> new BitSet()).set(bit);
+        }
+    }
+
+    private void remove(long id) {
+        FacetDoc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        int bit = Math.toIntExact(id);
+        for (long genero : doc.generos()) {
+            clear(porGenero, genero, bit);
+        }
+        clear(porClassificacao, doc.classificacao(), bit);
+        clear(porAno, doc.ano(), bit);
+        clear(porDesenvolvedora, doc.desenvolvedora(), bit);
+    }
+
+    private static <K> void clear(Map<K, BitSet> facet, K value, int bit) {
+        if (value == null) {
+            return;
+        }
+        BitSet bits = facet.get(value);
+        if (bits != null) {
+            bits.clear(bit);
+            if (bits.isEmpty()) {
+                facet.remove(value);
+            }
+        }
+    }
+
+    private static void or(BitSet bits, BitSet other) {
+        if (other != null) {
+            bits.or(other);
+        }
+    }
+
+    // Cada jogo tem um só ano, então somar os anos de uma década não conta ninguém duas vezes
+    private List<Facets.Contagem> countDecadas(BitSet resultado) {
+        Map<Integer, Long> porDecada = new TreeMap<>();
+        for (Map.Entry<Integer, BitSet> entry : porAno.entrySet()) {
+            if (!entry.getValue().intersects(resultado)) {
+                continue;
+            }
+            BitSet intersection = (BitSet) entry.getValue().clone();
+            intersection.and(resultado);
+            int ano = entry.getKey();
+            porDecada.merge(ano - Math.floorMod(ano, 10), (long) intersection.cardinality(), Long::sum);
+        }
+        List<Facets.Contagem> contagens = new ArrayList<>();
+        porDecada.forEach((decada, total) ->
+                contagens.add(new Facets.Contagem(String.valueOf(decada), decada + "-" + (decada + 9), total)));
+        contagens.sort(Comparator.comparingLong((Facets.Contagem c) -> c.total).reversed());
+        return contagens;
+    }
+
+    private static <K> List<Facets.Contagem> count(Map<K, BitSet> facet, BitSet resultado,
+                                                   Function<K, String> valor, Function<K, String> rotulo) {
+        List<Facets.Contagem> contagens = new ArrayList<>();
+        for (Map.Entry<K, BitSet> entry : facet.entrySet()) {
+            if (!entry.getValue().intersects(resultado)) {
+                continue;
+            }
+            BitSet intersection = (BitSet) entry.getValue().clone();
+            intersection.and(resultado);
+            contagens.add(new Facets.Contagem(valor.apply(entry.getKey()), rotulo.apply(entry.getKey()), intersection.cardinality()));
+        }
+        contagens.sort(Comparator.comparingLong((Facets.Contagem c) -> c.total).reversed());
+        return contagens;
+    }
+
+    private record FacetDoc(long[] generos, ClassificacaoIndicativa classificacao, int ano, Long desenvolvedora) {
+
+        static FacetDoc of(Jogo jogo) {
+            long[] generos = jogo.generos == null ? new long[0]
+                    : jogo.generos.stream().filter(g -> g != null && g.id != null).mapToLong(g -> g.id).toArray();
+            Long desenvolvedora = jogo.desenvolvedora != null ? jogo.desenvolvedora.id : null;
+            return new FacetDoc(generos, jogo.classificacaoIndicativa, jogo.anoLancamento, desenvolvedora);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de campos pedido em {@code fields=} (ex.: "id,titulo,anoLancamento"), validado contra
+ * o whitelist da entidade. Estreita tanto a lista do select quanto o JSON de saída: cada linha
+ * vira um mapa apenas com os campos pedidos, sempre incluindo o id.
+ */
+public final class FieldSelection {
+
+    private final List<ProjectedField> fields;
+
+    private FieldSelection(List<ProjectedField> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @return null quando nenhum campo foi pedido (o endpoint devolve a entidade completa)
+     * @throws IllegalArgumentException com todos os campos desconhecidos
+     */
+    public static FieldSelection parse(String csv, Map<String, ProjectedField> allowed) {
+        if (csv == null || csv.isBlank()) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        List<String> unknown = new ArrayList<>();
+        for (String raw : csv.split(",")) {
+            String name = raw.strip();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (allowed.containsKey(name)) {
+                names.add(name);
+            } else {
+                unknown.add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Campos desconhecidos: " + String.join(", ", unknown)
+                    + ". Permitidos: " + String.join(", ", allowed.keySet()));
+        }
+        return new FieldSelection(names.stream().map(allowed::get).toList());
+    }
+
+    /**
+     * Expressões do select, na ordem dos campos (coleções ficam de fora).
+     */
+    String selectList() {
+        List<String> expressions = new ArrayList<>();
+        for (ProjectedField field : fields) {
+            expressions.addAll(field.expressions());
+        }
+        return String.join(", ", expressions);
+    }
+
+    /**
+     * Joins exigidos pelos campos de objeto (não são join fetch: a entidade não é carregada).
+     */
+    String joins() {
+        StringBuilder joins = new StringBuilder();
+        for (ProjectedField field : fields) {
+            if (field.join() != null) {
+                joins.append(' ').append(field.join());
+            }
+        }
+        return joins.toString();
+    }
+
+    int columnCount() {
+        int count = 0;
+        for (ProjectedField field : fields) {
+            count += field.expressions().size();
+        }
+        return count;
+    }
+
+    Map<String, Object> toMap(Object[] row, int offset) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        int column = offset;
+        for (ProjectedField field : fields) {
+            if (field.isCollection()) {
+                item.put(field.name(), new ArrayList<>());
+                continue;
+            }
+            item.put(field.name(), field.read(row, column));
+            column += field.expressions().size();
+        }
+        return item;
+    }
+
+    /**
+     * Preenche os campos de coleção das linhas com uma query por campo para a página inteira.
+     */
+    @SuppressWarnings("unchecked")
+    void loadCollections(List<Map<String, Object>> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Object, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> item : items) {
+            byId.put(item.get("id"), item);
+        }
+        for (ProjectedField field : fields) {
+            if (!field.isCollection()) {
+                continue;
+            }
+            List<Object[]> rows = Panache.getEntityManager()
+                    .createQuery(field.collectionQuery(), Object[].class)
+                    .setParameter("ids", byId.keySet())
+                    .getResultList();
+            for (Object[] row : rows) {
+                Map<String, Object> owner = byId.get(row[0]);
+                if (owner != null) {
+                    ((List<Object>) owner.get(field.name())).add(field.toObject(row, 1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.acme.search;
+
+import java.util.List;
+
+/**
+ * Filtro estruturado inválido. Reúne todos os problemas encontrados, não apenas o primeiro.
+ */
+public class FilterSyntaxException extends IllegalArgumentException {
+
+    private final List<String> errors;
+
+    public FilterSyntaxException(List<String> errors) {
+        super(String.join("; ", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
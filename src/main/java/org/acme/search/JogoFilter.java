@@ -0,0 +1,460 @@
+package org.acme.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.acme.ClassificacaoIndicativa;
+import org.acme.Jogo;
+
+/**
+ * Filtro estruturado da busca de jogos (V2), por exemplo:
+ *
+ * <pre>genero:RPG ano:2010..2015 classificacao:&lt;=DEZESSEIS dev:3 titulo:witcher</pre>
+ *
+ * Campos aceitos:
+ * - genero: ids ou nomes separados por vírgula (qualquer um deles); repetir o campo exige todos;
+ * - ano: valor exato, intervalo (2010..2015, 2010.., ..2015) ou comparação (&gt;=2010, &lt;2015);
+ * - classificacao: valor, lista (LIVRE,DEZ), intervalo (DEZ..DEZESSEIS) ou comparação (&lt;=DEZESSEIS);
+ * - dev: id ou nome da desenvolvedora;
+ * - titulo: trecho do título. Palavras soltas também são tratadas como trecho do título.
+ * Nomes e títulos são comparados sem acentos e sem diferenciar maiúsculas.
+ *
+ * O texto é analisado uma vez e validado por completo; o resultado é compilado em uma única
+ * condição JPQL com parâmetros nomeados. As cláusulas são ordenadas de forma canônica e o texto
+ * da condição é memorizado por "formato" (campos e operadores, sem os valores), de modo que
+ * combinações repetidas geram exatamente o mesmo JPQL e reaproveitam o plano já interpretado
+ * pelo Hibernate.
+ */
+public final class JogoFilter {
+
+    private static final int MAX_CACHED_SHAPES = 1_000;
+    private static final Map<String, String> CONDITIONS_BY_SHAPE = new ConcurrentHashMap<>();
+
+    private static final Pattern TOKEN = Pattern.compile("([\\p{L}]+):(\"([^\"]*)\"|\\S*)|\"([^\"]*)\"|(\\S+)");
+    private static final Pattern STRUCTURED = Pattern.compile(
+            "(^|\\s)(genero|gênero|ano|classificacao|classificação|dev|desenvolvedora|titulo|título):",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    private static final Pattern RANGE = Pattern.compile("(.*)\\.\\.(.*)");
+    private static final Pattern COMPARISON = Pattern.compile("(<=|>=|<|>|=)(.+)");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    // Limite dos anos aceitos: além de não transbordar o int, mantém ano+1 (em ">ano") representável
+    private static final int MAX_YEAR = 9999;
+
+    private final List<Clause> clauses;
+    private final List<String> titulos;
+
+    private JogoFilter(List<Clause> clauses, List<String> titulos) {
+        this.clauses = clauses;
+        this.titulos = titulos;
+    }
+
+    /**
+     * Indica se a query usa a sintaxe estruturada (algum "campo:" conhecido). Caso contrário a
+     * busca mantém o comportamento original (ano inteiro ou trecho do título).
+     */
+    public static boolean isStructured(String q) {
+        return q != null && STRUCTURED.matcher(q).find();
+    }
+
+    /**
+     * @throws FilterSyntaxException com todos os erros encontrados.
+     */
+    public static JogoFilter parse(String text) {
+        List<Clause> clauses = new ArrayList<>();
+        List<String> titulos = new ArrayList<>();
+        List<String> bareWords = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+
+        Matcher m = TOKEN.matcher(text);
+        while (m.find()) {
+            if (m.group(1) == null) {
+                bareWords.add(m.group(4) != null ? m.group(4) : m.group(5));
+                continue;
+            }
+            String field = TextNormalizer.fold(m.group(1));
+            String value = m.group(3) != null ? m.group(3) : m.group(2);
+            if (value.isBlank()) {
+                errors.add("Valor ausente para o campo '" + m.group(1) + "'");
+                continue;
+            }
+            switch (field) {
+                case "genero" -> parseGenero(value, clauses, errors);
+                case "ano" -> parseAno(value, clauses, errors);
+                case "classificacao" -> parseClassificacao(value, clauses, errors);
+                case "dev", "desenvolvedora" -> {
+                    if (!NUMBER.matcher(value).matches()) {
+                        clauses.add(new DevNome(TextNormalizer.fold(value)));
+                    } else {
+                        Long id = parseId(value, errors);
+                        if (id != null) {
+                            clauses.add(new DevId(id));
+                        }
+                    }
+                }
+                case "titulo" -> titulos.add(value);
+                default -> errors.add("Campo desconhecido '" + m.group(1) + "'. Use genero, ano, classificacao, dev ou titulo");
+            }
+        }
+        if (!bareWords.isEmpty()) {
+            titulos.add(String.join(" ", bareWords));
+        }
+        if (!errors.isEmpty()) {
+            throw new FilterSyntaxException(errors);
+        }
+        clauses.sort(Comparator.comparing(Clause::shape));
+        return new JogoFilter(clauses, titulos);
+    }
+
+    /**
+     * Aplica o filtro à busca. Trechos de título usam o índice de trigramas quando possível.
+     */
+    public void applyTo(SearchQuery<Jogo> query, SearchIndexes indexes) {
+        List<SqlClause> all = new ArrayList<>(clauses);
+
+        long[] candidates = null;
+        boolean indexed = !titulos.isEmpty();
+        for (String titulo : titulos) {
+            long[] ids = indexes.jogoIds(titulo);
+            if (ids == null) {
+                indexed = false;
+                break;
+            }
+            candidates = candidates == null ? ids : intersect(candidates, ids);
+        }
+        if (indexed) {
+            query.whereIdIn(candidates);
+        } else {
+            for (String titulo : titulos) {
+                all.add(new TituloLike(TextNormalizer.likePattern(titulo)));
+            }
+        }
+        if (all.isEmpty()) {
+            return;
+        }
+        Condition condition = compile(all);
+        query.where(condition.jpql());
+        condition.params().forEach(query::param);
+    }
+
+    /**
+     * Ids dos jogos que atendem ao filtro, resolvidos pelos bitmaps do {@link FacetIndex} e pelo
+     * índice de trigramas, sem ir ao banco (usado nas contagens por faceta).
+     *
+     * @return null se algum trecho de título não puder ser resolvido pelo índice de trigramas; o
+     *         chamador lê então os ids no banco
+     */
+    public BitSet matchingIds(FacetIndex facets, SearchIndexes indexes) {
+        BitSet result = null;
+        for (String titulo : titulos) {
+            long[] ids = indexes.jogoIds(titulo);
+            if (ids == null) {
+                return null;
+            }
+            result = and(result, FacetIndex.bits(ids));
+        }
+        for (Clause clause : clauses) {
+            result = and(result, clause.bits(facets));
+        }
+        return result;
+    }
+
+    /**
+     * Condição JPQL do filtro (alias "e") com seus parâmetros, para statements fora de uma
+     * {@link SearchQuery}, como as operações em massa. Trechos de título usam sempre o LIKE na
+     * coluna normalizada.
+     *
+     * @throws FilterSyntaxException se o filtro não restringir nada (selecionaria todos os jogos) ou
+     *         tiver um trecho de título sem letras nem dígitos (só curingas e pontuação)
+     */
+    public Condition toCondition() {
+        List<SqlClause> all = new ArrayList<>(clauses);
+        List<String> errors = new ArrayList<>();
+        for (String titulo : titulos) {
+            if (TextNormalizer.hasSearchableText(titulo)) {
+                all.add(new TituloLike(TextNormalizer.likePattern(titulo)));
+            } else if (!titulo.isBlank()) {
+                errors.add("Trecho de título sem letras ou números '" + titulo + "'");
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new FilterSyntaxException(errors);
+        }
+        if (all.isEmpty()) {
+            throw new FilterSyntaxException(List.of("O filtro não restringe nenhum campo"));
+        }
+        return compile(all);
+    }
+
+    public record Condition(String jpql, Map<String, Object> params) {
+    }
+
+    private static Condition compile(List<SqlClause> all) {
+        String shape = all.stream().map(SqlClause::shape).reduce((a, b) -> a + " " + b).orElse("");
+        String condition = CONDITIONS_BY_SHAPE.get(shape);
+        if (condition == null) {
+            List<String> parts = new ArrayList<>(all.size());
+            for (int i = 0; i < all.size(); i++) {
+                parts.add(all.get(i).condition("f" + i));
+            }
+            condition = String.join(" and ", parts);
+            if (CONDITIONS_BY_SHAPE.size() < MAX_CACHED_SHAPES) {
+                CONDITIONS_BY_SHAPE.put(shape, condition);
+            }
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < all.size(); i++) {
+            all.get(i).bind("f" + i, params);
+        }
+        return new Condition(condition, params);
+    }
+
+    private static void parseGenero(String value, List<Clause> clauses, List<String> errors) {
+        List<String> values = Arrays.stream(value.split(",")).map(String::strip).filter(v -> !v.isEmpty()).toList();
+        if (values.isEmpty()) {
+            errors.add("Gênero inválido '" + value + "'");
+        } else if (values.stream().allMatch(v -> NUMBER.matcher(v).matches())) {
+            List<Long> ids = new ArrayList<>(values.size());
+            for (String v : values) {
+                Long id = parseId(v, errors);
+                if (id == null) {
+                    return;
+                }
+                ids.add(id);
+            }
+            clauses.add(new GeneroIds(ids));
+        } else {
+            clauses.add(new GeneroNomes(values.stream().map(TextNormalizer::fold).toList()));
+        }
+    }
+
+    private static void parseAno(String value, List<Clause> clauses, List<String> errors) {
+        Integer min;
+        Integer max;
+        Matcher range = RANGE.matcher(value);
+        Matcher comparison = COMPARISON.matcher(value);
+        if (range.matches()) {
+            if (range.group(1).isEmpty() && range.group(2).isEmpty()) {
+                errors.add("Intervalo de ano vazio '" + value + "'. Informe o início, o fim ou ambos (ex.: 2010..2015)");
+                return;
+            }
+            min = parseYear(range.group(1), true, errors);
+            max = parseYear(range.group(2), true, errors);
+        } else if (comparison.matches()) {
+            Integer ano = parseYear(comparison.group(2), false, errors);
+            if (ano == null) {
+                return;
+            }
+            switch (comparison.group(1)) {
+                case "<" -> { min = null; max = ano - 1; }
+                case "<=" -> { min = null; max = ano; }
+                case ">" -> { min = ano + 1; max = null; }
+                case ">=" -> { min = ano; max = null; }
+                default -> { min = ano; max = ano; }
+            }
+        } else {
+            min = parseYear(value, false, errors);
+            max = min;
+        }
+        // Limite inválido: o erro já foi registrado
+        if (min == null && max == null) {
+            return;
+        }
+        if (min != null && max != null && min > max) {
+            errors.add("Intervalo de ano inválido '" + value + "': início maior que o fim");
+            return;
+        }
+        clauses.add(new AnoRange(min, max));
+    }
+
+    private static Integer parseYear(String raw, boolean optional, List<String> errors) {
+        if (raw.isEmpty() && optional) {
+            return null;
+        }
+        if (!NUMBER.matcher(raw).matches()) {
+            errors.add("Ano inválido '" + raw + "'");
+            return null;
+        }
+        // NUMBER aceita qualquer quantidade de dígitos; zeros à esquerda são ignorados e o tamanho é
+        // conferido antes da conversão, que transbordaria
+        String digits = raw.replaceFirst("^0+(?=\\d)", "");
+        if (digits.length() > String.valueOf(MAX_YEAR).length() || Integer.parseInt(digits) > MAX_YEAR) {
+            errors.add("Ano fora do intervalo '" + raw + "'. Use valores até " + MAX_YEAR);
+            return null;
+        }
+        return Integer.valueOf(digits);
+    }
+
+    private static Long parseId(String raw, List<String> errors) {
+        try {
+            return Long.valueOf(raw);
+        } catch (NumberFormatException e) {
+            errors.add("Id fora do intervalo '" + raw + "'");
+            return null;
+        }
+    }
+
+    private static void parseClassificacao(String value, List<Clause> clauses, List<String> errors) {
+        EnumSet<ClassificacaoIndicativa> selected = EnumSet.noneOf(ClassificacaoIndicativa.class);
+        ClassificacaoIndicativa[] all = ClassificacaoIndicativa.values();
+        Matcher range = RANGE.matcher(value);
+        Matcher comparison = COMPARISON.matcher(value);
+        if (range.matches()) {
+            ClassificacaoIndicativa from = range.group(1).isEmpty() ? all[0] : parseRating(range.group(1), errors);
+            ClassificacaoIndicativa to = range.group(2).isEmpty() ? all[all.length - 1] : parseRating(range.group(2), errors);
+            if (from != null && to != null) {
+                if (from.compareTo(to) > 0) {
+                    errors.add("Intervalo de classificação inválido '" + value + "': início maior que o fim");
+                    return;
+                }
+                selected = EnumSet.range(from, to);
+            }
+        } else if (comparison.matches()) {
+            ClassificacaoIndicativa ref = parseRating(comparison.group(2), errors);
+            if (ref != null) {
+                for (ClassificacaoIndicativa c : all) {
+                    int cmp = c.compareTo(ref);
+                    boolean match = switch (comparison.group(1)) {
+                        case "<" -> cmp < 0;
+                        case "<=" -> cmp <= 0;
+                        case ">" -> cmp > 0;
+                        case ">=" -> cmp >= 0;
+                        default -> cmp == 0;
+                    };
+                    if (match) {
+                        selected.add(c);
+                    }
+                }
+            }
+        } else {
+            for (String raw : value.split(",")) {
+                ClassificacaoIndicativa c = parseRating(raw.strip(), errors);
+                if (c != null) {
+                    selected.add(c);
+                }
+            }
+        }
+        // Uma comparação que não seleciona nada (ex.: <LIVRE) é válida e não retorna jogos
+        clauses.add(new Classificacoes(List.copyOf(selected)));
+    }
+
+    private static ClassificacaoIndicativa parseRating(String raw, List<String> errors) {
+        try {
+            return ClassificacaoIndicativa.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            errors.add("Classificação inválida '" + raw + "'. Valores aceitos: " + Arrays.toString(ClassificacaoIndicativa.values()));
+            return null;
+        }
+    }
+
+    private static BitSet and(BitSet result, BitSet bits) {
+        if (result == null) {
+            return bits;
+        }
+        result.and(bits);
+        return result;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        return Arrays.stream(a).filter(id -> Arrays.binarySearch(b, id) >= 0).toArray();
+    }
+
+    /**
+     * Cláusula compilável. O formato identifica o JPQL gerado independentemente dos valores.
+     */
+    private interface SqlClause {
+        String shape();
+
+        String condition(String param);
+
+        void bind(String param, Map<String, Object> params);
+    }
+
+    /**
+     * Cláusula de um campo do filtro, que também pode ser resolvida pelos bitmaps de facetas.
+     */
+    private interface Clause extends SqlClause {
+        /** Jogos que atendem à cláusula, pelos bitmaps de facetas. */
+        BitSet bits(FacetIndex index);
+    }
+
+    private record GeneroIds(List<Long> ids) implements Clause {
+        public String shape() { return "genero:id"; }
+        public String condition(String p) { return "exists (select 1 from e.generos g_" + p + " where g_" + p + ".id in :" + p + ")"; }
+        public void bind(String p, Map<String, Object> params) { params.put(p, ids); }
+        public BitSet bits(FacetIndex index) { return index.generos(ids); }
+    }
+
+    private record GeneroNomes(List<String> nomes) implements Clause {
+        public String shape() { return "genero:nome"; }
+        public String condition(String p) { return "exists (select 1 from e.generos g_" + p + " where g_" + p + ".nomeNormalizado in :" + p + ")"; }
+        public void bind(String p, Map<String, Object> params) { params.put(p, nomes); }
+        public BitSet bits(FacetIndex index) { return index.generosPorNome(nomes); }
+    }
+
+    private record AnoRange(Integer min, Integer max) implements Clause {
+        public String shape() { return "ano:" + (min != null ? "min" : "") + (max != null ? "max" : ""); }
+
+        public String condition(String p) {
+            if (min != null && max != null) {
+                return "e.anoLancamento between :" + p + "min and :" + p + "max";
+            }
+            return min != null ? "e.anoLancamento >= :" + p + "min" : "e.anoLancamento <= :" + p + "max";
+        }
+
+        public void bind(String p, Map<String, Object> params) {
+            if (min != null) params.put(p + "min", min);
+            if (max != null) params.put(p + "max", max);
+        }
+
+        public BitSet bits(FacetIndex index) {
+            return index.anos(min, max);
+        }
+    }
+
+    private record Classificacoes(List<ClassificacaoIndicativa> valores) implements Clause {
+        public String shape() { return valores.isEmpty() ? "classificacao:none" : "classificacao"; }
+
+        public String condition(String p) {
+            return valores.isEmpty() ? "1 = 0" : "e.classificacaoIndicativa in :" + p;
+        }
+
+        public void bind(String p, Map<String, Object> params) {
+            if (!valores.isEmpty()) params.put(p, valores);
+        }
+
+        public BitSet bits(FacetIndex index) {
+            return index.classificacoes(valores);
+        }
+    }
+
+    private record DevId(Long id) implements Clause {
+        public String shape() { return "dev:id"; }
+        public String condition(String p) { return "e.desenvolvedora.id = :" + p; }
+        public void bind(String p, Map<String, Object> params) { params.put(p, id); }
+        public BitSet bits(FacetIndex index) { return index.desenvolvedora(id); }
+    }
+
+    private record DevNome(String nome) implements Clause {
+        public String shape() { return "dev:nome"; }
+        public String condition(String p) { return "e.desenvolvedora.nomeNormalizado = :" + p; }
+        public void bind(String p, Map<String, Object> params) { params.put(p, nome); }
+        public BitSet bits(FacetIndex index) { return index.desenvolvedoraPorNome(nome); }
+    }
+
+    // Trecho de título sem o índice de trigramas: só existe como condição SQL
+    private record TituloLike(String pattern) implements SqlClause {
+        public String shape() { return "titulo:like"; }
+        public String condition(String p) { return "e.tituloNormalizado like :" + p + " escape '\\'"; }
+        public void bind(String p, Map<String, Object> params) { params.put(p, pattern); }
+    }
+}
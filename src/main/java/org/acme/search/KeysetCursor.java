@@ -0,0 +1,32 @@
+package org.acme.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da paginação por keyset. Guarda o campo/direção de ordenação e a chave
+ * (valor de ordenação + id) da última linha entregue, para que a próxima página seja lida
+ * com um predicado de seek em vez de OFFSET.
+ */
+public record KeysetCursor(String sort, boolean descending, String lastValue, long lastId) {
+
+    private static final String SEPARATOR = "\n";
+
+    public String encode() {
+        String raw = sort + SEPARATOR + (descending ? "desc" : "asc") + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException se o cursor não tiver sido gerado por esta API.
+     */
+    public static KeysetCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // O valor vem por último para poder conter qualquer caractere
+        String[] parts = raw.split(SEPARATOR, 4);
+        if (parts.length != 4 || !("asc".equals(parts[1]) || "desc".equals(parts[1]))) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return new KeysetCursor(parts[0], "desc".equals(parts[1]), parts[3], Long.parseLong(parts[2]));
+    }
+}
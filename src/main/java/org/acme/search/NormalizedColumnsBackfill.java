@@ -0,0 +1,136 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import java.sql.PreparedStatement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.acme.UniqueConstraints;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+
+/**
+ * Preenche as colunas normalizadas (tituloNormalizado, nomeNormalizado, descricaoNormalizada,
+ * paisDeOrigemNormalizado) de linhas gravadas antes delas existirem ou inseridas por SQL direto
+ * (import.sql), que não passam pelos callbacks das entidades.
+ *
+ * Roda na inicialização, antes dos índices em memória, em lotes de chave crescente com uma
+ * transação curta por lote. Os UPDATEs de um lote vão ao banco juntos, em um único lote JDBC.
+ * Linhas já preenchidas (ou sem o valor original, como gêneros sem descrição) são ignoradas, então
+ * reiniciar no meio do processo apenas continua de onde parou.
+ *
+ * Os índices únicos das colunas normalizadas ({@link UniqueConstraints}) são criados aqui, depois
+ * do preenchimento, e não pelo Hibernate: no {@code update} de um banco existente ele criaria os
+ * índices com as colunas ainda vazias, e o preenchimento de dois títulos que só diferem em
+ * maiúsculas ou acentos violaria o índice no meio da inicialização. Antes de criar cada índice os
+ * valores repetidos são procurados; se houver, a inicialização falha listando-os, para que sejam
+ * resolvidos no banco.
+ */
+@ApplicationScoped
+public class NormalizedColumnsBackfill {
+
+    @ConfigProperty(name = "search.normalized-backfill.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "search.normalized-backfill.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    void onStart(@Observes @Priority(1) StartupEvent ev) {
+        if (enabled) {
+            backfill("Jogo", "titulo", "tituloNormalizado");
+            backfill("Genero", "nome", "nomeNormalizado");
+            backfill("Desenvolvedora", "nome", "nomeNormalizado");
+            backfill("Genero", "descricao", "descricaoNormalizada");
+            backfill("Desenvolvedora", "paisDeOrigem", "paisDeOrigemNormalizado");
+        }
+        createUniqueIndex(UniqueConstraints.JOGO_TITULO, "Jogo", "titulo", "tituloNormalizado");
+        createUniqueIndex(UniqueConstraints.GENERO_NOME, "Genero", "nome", "nomeNormalizado");
+        createUniqueIndex(UniqueConstraints.DESENVOLVEDORA_NOME, "Desenvolvedora", "nome", "nomeNormalizado");
+    }
+
+    /**
+     * @return quantidade de linhas atualizadas
+     */
+    long backfill(String entity, String source, String target) {
+        long start = System.nanoTime();
+        long lastId = 0;
+        long updated = 0;
+        while (true) {
+            long from = lastId;
+            List<Object[]> rows = QuarkusTransaction.requiringNew().call(() -> {
+                var em = Panache.getEntityManager();
+                List<Object[]> batch = em.createQuery(
+                                "select e.id, e." + source + " from " + entity + " e"
+                                        + " where e." + target + " is null and e." + source + " is not null"
+                                        + " and e.id > :lastId order by e.id",
+                                Object[].class)
+                        .setParameter("lastId", from)
+                        .setMaxResults(batchSize)
+                        .getResultList();
+                // Tabelas e colunas têm o nome da entidade e do atributo
+                em.unwrap(Session.class).doWork(connection -> {
+                    try (PreparedStatement update = connection.prepareStatement(
+                            "update " + entity + " set " + target + " = ? where id = ?")) {
+                        for (Object[] row : batch) {
+                            update.setString(1, TextNormalizer.fold((String) row[1]));
+                            update.setLong(2, (Long) row[0]);
+                            update.addBatch();
+                        }
+                        update.executeBatch();
+                    }
+                });
+                return batch;
+            });
+            if (rows.isEmpty()) {
+                break;
+            }
+            updated += rows.size();
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (updated > 0) {
+            // O statement JDBC não passa pelo Hibernate: cópias em cache das entidades ficariam sem a coluna
+            QuarkusTransaction.requiringNew().run(() ->
+                    Panache.getEntityManager().getEntityManagerFactory().getCache().evictAll());
+            Log.infof("Backfill de %s.%s: %d linhas em %d ms", entity, target, updated, (System.nanoTime() - start) / 1_000_000);
+        }
+        return updated;
+    }
+
+    /**
+     * Cria o índice único sobre a coluna normalizada, se ainda não existir.
+     *
+     * @throws IllegalStateException se houver valores repetidos na coluna, com os originais de cada um
+     */
+    void createUniqueIndex(String index, String entity, String source, String target) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            var em = Panache.getEntityManager();
+            List<Object[]> duplicados = em.createQuery(
+                            "select e." + target + ", e." + source + " from " + entity + " e where e." + target + " in ("
+                                    + "select d." + target + " from " + entity + " d group by d." + target + " having count(*) > 1)"
+                                    + " order by e." + target + ", e.id",
+                            Object[].class)
+                    .setMaxResults(100)
+                    .getResultList();
+            if (!duplicados.isEmpty()) {
+                String lista = duplicados.stream()
+                        .collect(Collectors.groupingBy(row -> (String) row[0], LinkedHashMap::new,
+                                Collectors.mapping(row -> "'" + row[1] + "'", Collectors.joining(", "))))
+                        .entrySet().stream()
+                        .map(entry -> entry.getKey() + ": " + entry.getValue())
+                        .collect(Collectors.joining("; "));
+                throw new IllegalStateException("Não é possível criar o índice único " + index + ": " + entity + "."
+                        + source + " tem valores iguais sem diferenciar maiúsculas nem acentos (" + lista
+                        + "). Renomeie ou remova os duplicados e reinicie a aplicação.");
+            }
+            // Tabelas e colunas têm o nome da entidade e do atributo
+            em.createNativeQuery("create unique index if not exists " + index + " on " + entity + " (" + target + ")")
+                    .executeUpdate();
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package org.acme.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Campo que pode ser pedido em {@code fields=}: nome exposto na API e expressões HQL lidas
+ * diretamente na query, sem carregar a entidade.
+ *
+ * Há três formas:
+ * - escalar: uma expressão sobre o alias "e";
+ * - objeto: várias expressões sobre uma associação a-um, com o join necessário;
+ * - coleção: lida depois da página, em uma query por página filtrada pelos ids do dono.
+ */
+public record ProjectedField(String name,
+                             String join,
+                             List<String> keys,
+                             List<String> expressions,
+                             String collectionQuery) {
+
+    public static ProjectedField of(String name, String expression) {
+        return new ProjectedField(name, null, null, List.of(expression), null);
+    }
+
+    /**
+     * @param keysAndExpressions pares chave/expressão, ex.: "id", "d.id", "nome", "d.nome"
+     */
+    public static ProjectedField object(String name, String join, String... keysAndExpressions) {
+        return new ProjectedField(name, join, evens(keysAndExpressions, 0), evens(keysAndExpressions, 1), null);
+    }
+
+    /**
+     * @param query HQL com parâmetro ":ids" cujo primeiro item do select é o id do dono
+     *              e os demais correspondem às chaves, na mesma ordem
+     */
+    public static ProjectedField collection(String name, String query, String... keys) {
+        return new ProjectedField(name, null, List.of(keys), List.of(), query);
+    }
+
+    /**
+     * Monta o whitelist de campos de uma entidade, preservando a ordem de declaração.
+     */
+    public static Map<String, ProjectedField> index(ProjectedField... fields) {
+        Map<String, ProjectedField> map = new LinkedHashMap<>();
+        for (ProjectedField field : fields) {
+            map.put(field.name(), field);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    boolean isCollection() {
+        return collectionQuery != null;
+    }
+
+    /**
+     * Valor do campo a partir das colunas da linha a partir de {@code offset}.
+     * Um objeto cuja primeira coluna é nula (associação ausente) vira null.
+     */
+    Object read(Object[] row, int offset) {
+        if (keys == null) {
+            return row[offset];
+        }
+        return toObject(row, offset);
+    }
+
+    Map<String, Object> toObject(Object[] row, int offset) {
+        if (row[offset] == null) {
+            return null;
+        }
+        Map<String, Object> value = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            value.put(keys.get(i), row[offset + i]);
+        }
+        return value;
+    }
+
+    private static List<String> evens(String[] values, int start) {
+        String[] result = new String[values.length / 2];
+        for (int i = start, j = 0; i < values.length; i += 2, j++) {
+            result[j] = values[i];
+        }
+        return List.of(result);
+    }
+}
@@ -0,0 +1,89 @@
+package org.acme.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Busca que lê apenas os campos de uma {@link FieldSelection}, reaproveitando filtros, ordenação
+ * e paginação da {@link SearchQuery} de origem.
+ *
+ * O select traz, além dos campos pedidos, o id e o valor de ordenação de cada linha, necessários
+ * para o cursor. Nenhuma entidade é carregada nem gerenciada pelo contexto de persistência.
+ */
+public final class ProjectedQuery {
+
+    // Colunas fixas no início de cada linha: id e valor de ordenação
+    private static final int OFFSET = 2;
+
+    private final SearchQuery<?> source;
+    private final FieldSelection fields;
+
+    ProjectedQuery(SearchQuery<?> source, FieldSelection fields) {
+        this.source = source;
+        this.fields = fields;
+    }
+
+    /**
+     * Todos os registros do filtro, sem paginação (listagens).
+     */
+    public List<Map<String, Object>> list() {
+        if (source.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object[]> rows = source.listQuery(select(false), fields.joins(), Object[].class).getResultList();
+        return toItems(rows);
+    }
+
+    SearchQuery<?> source() {
+        return source;
+    }
+
+    // Identifica os campos projetados (as chaves de coalescência incluem o formato das linhas)
+    String selectList() {
+        return fields.selectList();
+    }
+
+    SearchResult<Map<String, Object>> fetch() {
+        if (source.isEmpty()) {
+            return toResult(new ArrayList<>(), 0, null);
+        }
+        List<Object[]> rows = source.pageQuery(select(false), fields.joins(), Object[].class).getResultList();
+        return toResult(rows, -1, null);
+    }
+
+    /**
+     * Como {@link SearchQuery#fetchWithWindowCount()}: o total vem na última coluna.
+     */
+    SearchResult<Map<String, Object>> fetchWithWindowCount() {
+        if (source.isEmpty()) {
+            return toResult(new ArrayList<>(), 0, CountMode.WINDOW);
+        }
+        List<Object[]> rows = source.pageQuery(select(true), fields.joins(), Object[].class).getResultList();
+        long total = rows.isEmpty() ? -1 : ((Number) rows.get(0)[OFFSET + fields.columnCount()]).longValue();
+        return toResult(rows, total, CountMode.WINDOW);
+    }
+
+    private String select(boolean windowCount) {
+        String columns = fields.selectList();
+        return "select e.id, " + source.sortExpression()
+                + (columns.isEmpty() ? "" : ", " + columns)
+                + (windowCount ? ", count(*) over()" : "");
+    }
+
+    private SearchResult<Map<String, Object>> toResult(List<Object[]> rows, long total, CountMode countMode) {
+        SearchResult<Object[]> page = source.toResult(rows, total, countMode,
+                row -> ((Number) row[0]).longValue(),
+                row -> String.valueOf(row[1]));
+        return page.withItems(toItems(page.items));
+    }
+
+    private List<Map<String, Object>> toItems(List<Object[]> rows) {
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(fields.toMap(row, OFFSET));
+        }
+        fields.loadCollections(items);
+        return items;
+    }
+}
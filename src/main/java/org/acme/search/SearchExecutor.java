@@ -0,0 +1,166 @@
+package org.acme.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.interceptor.Interceptor;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.acme.CatalogBulkChange;
+import org.acme.CatalogChange;
+import org.acme.Jogo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Executa uma {@link SearchQuery} calculando o total conforme a {@link CountMode} do endpoint.
+ *
+ * Quando a estratégia pedida não se aplica à requisição o executor cai para EXACT, e o modo
+ * realmente usado é devolvido em {@link SearchResult#countMode}:
+ * - WINDOW em modo cursor (o count over() só enxergaria as linhas após o cursor) ou com página vazia;
+ * - ESTIMATED com filtro ou quando o banco não tem estatística disponível.
+ */
+@ApplicationScoped
+public class SearchExecutor {
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    // Filtros arbitrários geram chaves sem fim: acima do limite saem os totais menos usados
+    @ConfigProperty(name = "search.cached-count.max-entries", defaultValue = "10000")
+    long maxCachedCounts;
+
+    private Cache<String, CachedCount> cachedCounts;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        cachedCounts = Caffeine.newBuilder()
+                .maximumSize(maxCachedCounts)
+                .build();
+    }
+
+    public <T> SearchResult<T> execute(SearchQuery<T> query, CountMode mode) {
+        return execute(query, query::fetch, query::fetchWithWindowCount, mode);
+    }
+
+    /**
+     * Mesma estratégia de total para buscas projetadas ({@code fields=}).
+     */
+    public SearchResult<Map<String, Object>> execute(ProjectedQuery query, CountMode mode) {
+        return execute(query.source(), query::fetch, query::fetchWithWindowCount, mode);
+    }
+
+    private <R> SearchResult<R> execute(SearchQuery<?> query, Supplier<SearchResult<R>> fetch,
+                                        Supplier<SearchResult<R>> fetchWithWindowCount, CountMode mode) {
+        switch (mode) {
+            case WINDOW:
+                if (!query.isKeyset()) {
+                    SearchResult<R> result = fetchWithWindowCount.get();
+                    if (result.total >= 0) {
+                        return result;
+                    }
+                    if (query.isFirstPage()) {
+                        // Primeira página vazia: o filtro não tem resultados
+                        return result.withTotal(0, CountMode.WINDOW);
+                    }
+                    return result.withTotal(query.count(), CountMode.EXACT);
+                }
+                break;
+            case CACHED:
+                return fetch.get().withTotal(cachedCount(query), CountMode.CACHED);
+            case ESTIMATED:
+                if (!query.isFiltered()) {
+                    long estimate = estimatedCount(query.entityName());
+                    if (estimate >= 0) {
+                        return fetch.get().withTotal(estimate, CountMode.ESTIMATED);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return fetch.get().withTotal(query.count(), CountMode.EXACT);
+    }
+
+    /**
+     * Invalida os totais memorizados da entidade alterada. Como buscas de jogos podem filtrar por
+     * gênero ou desenvolvedora, alterações nessas entidades também invalidam os totais de Jogo.
+     *
+     * Roda depois dos observadores dos índices em memória (prioridade padrão): uma busca que leia
+     * a geração nova já encontra os índices atualizados, e o que ela memorizar não nasce obsoleto.
+     */
+    void onCatalogChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(Interceptor.Priority.LIBRARY_AFTER) CatalogChange change) {
+        invalidate(change.entityType());
+    }
+
+    void onCatalogBulkChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(Interceptor.Priority.LIBRARY_AFTER) CatalogBulkChange bulk) {
+        // Uma invalidação por tipo de entidade basta para o lote inteiro
+        bulk.changes().stream().map(CatalogChange::entityType).distinct().forEach(this::invalidate);
+    }
+
+    /**
+     * Geração atual da entidade da busca; muda a cada escrita confirmada que pode alterar o resultado.
+     */
+    long currentGeneration(SearchQuery<?> query) {
+        return generation(query.entityName()).get();
+    }
+
+    private void invalidate(Class<?> entityType) {
+        generation(entityType.getSimpleName()).incrementAndGet();
+        if (entityType != Jogo.class) {
+            generation(Jogo.class.getSimpleName()).incrementAndGet();
+        }
+    }
+
+    private long cachedCount(SearchQuery<?> query) {
+        String key = query.countKey();
+        // A geração é lida antes da query: se houver escrita no meio, o valor gravado já nasce obsoleto
+        long generation = generation(query.entityName()).get();
+        CachedCount cached = cachedCounts.getIfPresent(key);
+        if (cached != null && cached.generation == generation) {
+            return cached.total;
+        }
+        long total = query.count();
+        cachedCounts.put(key, new CachedCount(generation, total));
+        return total;
+    }
+
+    /**
+     * Estimativa de linhas da tabela a partir das estatísticas do banco, ou -1 se indisponível.
+     */
+    private long estimatedCount(String table) {
+        String sql;
+        String tableName;
+        if ("postgresql".equals(dbKind)) {
+            // reltuples é -1 enquanto a tabela nunca foi analisada
+            sql = "select cast(reltuples as bigint) from pg_class where relname = ?1";
+            tableName = table.toLowerCase(Locale.ROOT);
+        } else if ("h2".equals(dbKind)) {
+            sql = "select row_count_estimate from information_schema.tables where table_name = ?1";
+            tableName = table.toUpperCase(Locale.ROOT);
+        } else {
+            return -1;
+        }
+        var rows = Panache.getEntityManager().createNativeQuery(sql)
+                .setParameter(1, tableName)
+                .getResultList();
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return -1;
+        }
+        return ((Number) rows.get(0)).longValue();
+    }
+
+    private AtomicLong generation(String entityName) {
+        return generations.computeIfAbsent(entityName, k -> new AtomicLong());
+    }
+
+    private record CachedCount(long generation, long total) {}
+}
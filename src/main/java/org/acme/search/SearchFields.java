@@ -0,0 +1,62 @@
+package org.acme.search;
+
+import java.util.Map;
+import org.acme.Desenvolvedora;
+import org.acme.Genero;
+import org.acme.Jogo;
+
+/**
+ * Whitelists de ordenação das buscas (V1 e V2). O campo "id" é obrigatório em todas,
+ * pois é usado como critério de desempate da paginação por cursor.
+ *
+ * Os whitelists *_CAMPOS definem o que pode ser pedido em {@code fields=} nos endpoints V2.
+ */
+public final class SearchFields {
+
+    public static final Map<String, SortField<Jogo>> JOGO = SortField.index(
+            SortField.ofLong("id", "e.id", j -> j.id),
+            SortField.ofString("titulo", "e.titulo", j -> j.titulo),
+            SortField.ofInt("anoLancamento", "e.anoLancamento", j -> j.anoLancamento)
+    );
+
+    // descricao é opcional: o coalesce evita que valores nulos quebrem o predicado de seek
+    public static final Map<String, SortField<Genero>> GENERO = SortField.index(
+            SortField.ofLong("id", "e.id", g -> g.id),
+            SortField.ofString("nome", "e.nome", g -> g.nome),
+            SortField.ofString("descricao", "coalesce(e.descricao, '')", g -> g.descricao != null ? g.descricao : "")
+    );
+
+    public static final Map<String, SortField<Desenvolvedora>> DESENVOLVEDORA = SortField.index(
+            SortField.ofLong("id", "e.id", d -> d.id),
+            SortField.ofString("nome", "e.nome", d -> d.nome),
+            SortField.ofString("paisDeOrigem", "e.paisDeOrigem", d -> d.paisDeOrigem)
+    );
+
+    public static final Map<String, ProjectedField> JOGO_CAMPOS = ProjectedField.index(
+            ProjectedField.of("id", "e.id"),
+            ProjectedField.of("titulo", "e.titulo"),
+            ProjectedField.of("descricao", "e.descricao"),
+            ProjectedField.of("anoLancamento", "e.anoLancamento"),
+            ProjectedField.of("classificacaoIndicativa", "e.classificacaoIndicativa"),
+            ProjectedField.object("desenvolvedora", "left join e.desenvolvedora d", "id", "d.id", "nome", "d.nome"),
+            ProjectedField.collection("generos",
+                    "select j.id, g.id, g.nome from Jogo j join j.generos g where j.id in :ids order by g.id", "id", "nome")
+    );
+
+    public static final Map<String, ProjectedField> GENERO_CAMPOS = ProjectedField.index(
+            ProjectedField.of("id", "e.id"),
+            ProjectedField.of("nome", "e.nome"),
+            ProjectedField.of("descricao", "e.descricao")
+    );
+
+    public static final Map<String, ProjectedField> DESENVOLVEDORA_CAMPOS = ProjectedField.index(
+            ProjectedField.of("id", "e.id"),
+            ProjectedField.of("nome", "e.nome"),
+            ProjectedField.of("dataDeFundacao", "e.dataDeFundacao"),
+            ProjectedField.of("paisDeOrigem", "e.paisDeOrigem"),
+            ProjectedField.object("fichaTecnica", "left join e.fichaTecnica f", "id", "f.id", "historia", "f.historia",
+                    "principaisJogos", "f.principaisJogos", "premiosEReconhecimentos", "f.premiosEReconhecimentos")
+    );
+
+    private SearchFields() {}
+}
@@ -0,0 +1,136 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.transaction.Transactional;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.acme.CatalogBulkChange;
+import org.acme.CatalogChange;
+import org.acme.Desenvolvedora;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Índices de trigramas usados pelas buscas textuais de jogos, gêneros e desenvolvedoras.
+ *
+ * São construídos na inicialização e mantidos pelos eventos {@link CatalogChange} disparados
+ * nos caminhos de escrita das resources.
+ */
+@ApplicationScoped
+public class SearchIndexes {
+
+    // Acima deste número de candidatos a lista de ids deixa de compensar e a busca volta ao LIKE
+    @ConfigProperty(name = "search.trigram.max-candidates", defaultValue = "5000")
+    int maxCandidates;
+
+    private final TrigramIndex jogos = new TrigramIndex();
+    private final TrigramIndex generos = new TrigramIndex();
+    private final TrigramIndex desenvolvedoras = new TrigramIndex();
+    private final Map<String, Long> buildMillis = new ConcurrentHashMap<>();
+
+    // Desligado no perfil "import": a importação não consulta os índices (veja CatalogApplication)
+    @ConfigProperty(name = "search.indexes.load-on-start", defaultValue = "true")
+    boolean loadOnStart;
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        if (!loadOnStart) {
+            return;
+        }
+        build("jogos", jogos, "select e.id, e.titulo from Jogo e order by e.id");
+        build("generos", generos, "select e.id, e.nome, e.descricao from Genero e order by e.id");
+        build("desenvolvedoras", desenvolvedoras, "select e.id, e.nome, e.paisDeOrigem from Desenvolvedora e order by e.id");
+    }
+
+    /**
+     * Ids dos jogos cujo título contém o termo, ou null se o índice não puder responder
+     * (termo curto ou candidatos demais).
+     */
+    public long[] jogoIds(String term) {
+        return limit(jogos.search(term));
+    }
+
+    /** Gêneros cujo nome ou descrição contém o termo (mesma semântica do LIKE original). */
+    public long[] generoIds(String term) {
+        return limit(generos.search(term));
+    }
+
+    /** Desenvolvedoras cujo nome ou país de origem contém o termo. */
+    public long[] desenvolvedoraIds(String term) {
+        return limit(desenvolvedoras.search(term));
+    }
+
+    public Map<String, IndexStats> stats() {
+        Map<String, IndexStats> stats = new LinkedHashMap<>();
+        stats.put("jogos", IndexStats.of(jogos, buildMillis.get("jogos")));
+        stats.put("generos", IndexStats.of(generos, buildMillis.get("generos")));
+        stats.put("desenvolvedoras", IndexStats.of(desenvolvedoras, buildMillis.get("desenvolvedoras")));
+        return stats;
+    }
+
+    void onCatalogChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        apply(change);
+    }
+
+    void onCatalogBulkChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogBulkChange bulk) {
+        bulk.changes().forEach(this::apply);
+    }
+
+    private void apply(CatalogChange change) {
+        if (change.entityType() == Jogo.class) {
+            if (change.entity() instanceof Jogo jogo) {
+                jogos.put(jogo.id, jogo.titulo);
+            } else {
+                jogos.remove(change.id());
+            }
+        } else if (change.entityType() == Genero.class) {
+            if (change.entity() instanceof Genero genero) {
+                generos.put(genero.id, genero.nome, genero.descricao);
+            } else {
+                generos.remove(change.id());
+            }
+        } else if (change.entityType() == Desenvolvedora.class) {
+            if (change.entity() instanceof Desenvolvedora desenvolvedora) {
+                desenvolvedoras.put(desenvolvedora.id, desenvolvedora.nome, desenvolvedora.paisDeOrigem);
+            } else {
+                desenvolvedoras.remove(change.id());
+            }
+        }
+    }
+
+    // As queries de build vêm ordenadas por id: as listas de postings são mantidas ordenadas, e ids
+    // crescentes entram sempre no fim, sem deslocar a lista a cada inserção
+    private void build(String name, TrigramIndex index, String hql) {
+        long start = System.nanoTime();
+        try (Stream<Object[]> rows = Panache.getEntityManager()
+                .createQuery(hql, Object[].class)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .getResultStream()) {
+            rows.forEach(row -> {
+                String[] texts = new String[row.length - 1];
+                for (int i = 1; i < row.length; i++) {
+                    texts[i - 1] = (String) row[i];
+                }
+                index.put(((Number) row[0]).longValue(), texts);
+            });
+        }
+        buildMillis.put(name, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long[] limit(long[] ids) {
+        return ids != null && ids.length > maxCandidates ? null : ids;
+    }
+
+    public record IndexStats(int documentos, int trigramas, long memoriaEstimadaBytes, Long tempoConstrucaoMs) {
+        static IndexStats of(TrigramIndex index, Long buildMillis) {
+            return new IndexStats(index.documentCount(), index.trigramCount(), index.memoryBytes(), buildMillis);
+        }
+    }
+}
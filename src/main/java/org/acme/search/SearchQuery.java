@@ -0,0 +1,363 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Monta e executa as buscas paginadas dos endpoints de search.
+ *
+ * Suporta dois modos de paginação:
+ * - offset (page/size), mantido por compatibilidade;
+ * - keyset, quando um {@link KeysetCursor} é informado: a próxima página é lida com um
+ *   predicado de seek sobre (campo de ordenação, id), cujo custo não cresce com a profundidade.
+ *
+ * Em ambos os modos é lida uma linha a mais que o tamanho da página para calcular hasMore
+ * sem precisar de COUNT. O total é responsabilidade do {@link SearchExecutor}.
+ */
+public class SearchQuery<T> {
+
+    private static final String ALIAS = "e";
+
+    private final Class<T> entityClass;
+    private final Map<String, SortField<T>> sortFields;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new HashMap<>();
+    private String fetchJoins = "";
+
+    private SortField<T> sortField;
+    private boolean descending;
+    private KeysetCursor cursor;
+    private int page;
+    private int size = 5;
+    // Verdadeiro quando um filtro por ids já resolvido em memória não encontrou nada
+    private boolean empty;
+
+    private SearchQuery(Class<T> entityClass, Map<String, SortField<T>> sortFields) {
+        this.entityClass = entityClass;
+        this.sortFields = sortFields;
+        this.sortField = sortFields.get("id");
+    }
+
+    public static <T> SearchQuery<T> of(Class<T> entityClass, Map<String, SortField<T>> sortFields) {
+        return new SearchQuery<>(entityClass, sortFields);
+    }
+
+    /**
+     * Adiciona uma condição (combinada com AND). A entidade é referenciada pelo alias "e".
+     */
+    public SearchQuery<T> where(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * Restringe a busca a ids já resolvidos em memória (ex.: candidatos do índice de trigramas).
+     * Uma lista vazia resolve a busca sem ir ao banco.
+     */
+    public SearchQuery<T> whereIdIn(long[] ids) {
+        if (ids.length == 0) {
+            empty = true;
+            return this;
+        }
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        return where(ALIAS + ".id in :candidateIds").param("candidateIds", boxed);
+    }
+
+    /**
+     * Associações carregadas na própria query da página (ex.: "left join fetch e.desenvolvedora d").
+     * Use apenas associações a-um: um join fetch de coleção multiplica as linhas e quebra o
+     * limite da página. Coleções devem ser carregadas depois, em uma query por página.
+     */
+    public SearchQuery<T> fetchJoin(String joins) {
+        fetchJoins += " " + joins;
+        return this;
+    }
+
+    public SearchQuery<T> param(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    /**
+     * Campos fora do whitelist caem para "id", como nos endpoints originais.
+     */
+    public SearchQuery<T> sort(String sort, String direction) {
+        this.sortField = sortFields.getOrDefault(sort, sortFields.get("id"));
+        this.descending = "desc".equalsIgnoreCase(direction);
+        return this;
+    }
+
+    public SearchQuery<T> page(int page, int size) {
+        this.page = Math.max(page, 0);
+        this.size = Math.max(size, 1);
+        return this;
+    }
+
+    /**
+     * Ativa a paginação por keyset. A ordenação gravada no cursor prevalece sobre sort/direction.
+     *
+     * @throws IllegalArgumentException se o cursor referenciar um campo fora do whitelist.
+     */
+    public SearchQuery<T> after(KeysetCursor cursor) {
+        SortField<T> field = sortFields.get(cursor.sort());
+        if (field == null) {
+            throw new IllegalArgumentException("Campo de ordenação do cursor não permitido: " + cursor.sort());
+        }
+        // Valida o valor agora para que um cursor adulterado resulte em 400 e não em erro de query
+        field.parse(cursor.lastValue());
+        this.sortField = field;
+        this.descending = cursor.descending();
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * Lê apenas os campos pedidos em vez da entidade; use com {@link SearchExecutor} ou
+     * {@link ProjectedQuery#list()}.
+     */
+    public ProjectedQuery project(FieldSelection fields) {
+        return new ProjectedQuery(this, fields);
+    }
+
+    public String sortName() {
+        return sortField.name();
+    }
+
+    public String direction() {
+        return descending ? "desc" : "asc";
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lê a página sem calcular o total; use {@link SearchExecutor} para obter página e total.
+     */
+    public SearchResult<T> fetch() {
+        if (empty) {
+            return toResult(new ArrayList<>(), 0, null);
+        }
+        TypedQuery<T> query = pageQuery("select " + ALIAS, fetchJoins, entityClass);
+        return toResult(query.getResultList(), -1, null);
+    }
+
+    /**
+     * Lê a página e o total na mesma ida ao banco usando count(*) over().
+     * Quando a página vem vazia o total não é conhecido e é devolvido como -1.
+     */
+    SearchResult<T> fetchWithWindowCount() {
+        if (empty) {
+            return toResult(new ArrayList<>(), 0, CountMode.WINDOW);
+        }
+        TypedQuery<Object[]> query = pageQuery("select " + ALIAS + ", count(*) over()", fetchJoins, Object[].class);
+        List<Object[]> rows = query.getResultList();
+        List<T> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(entityClass.cast(row[0]));
+        }
+        long total = rows.isEmpty() ? -1 : ((Number) rows.get(0)[1]).longValue();
+        return toResult(items, total, CountMode.WINDOW);
+    }
+
+    /**
+     * Total de registros que satisfazem o filtro (ignora página e cursor).
+     */
+    public long count() {
+        if (empty) {
+            return 0;
+        }
+        TypedQuery<Long> query = Panache.getEntityManager().createQuery(
+                "select count(" + ALIAS + ") from " + entityName() + " " + ALIAS + whereClause(conditions),
+                Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    /**
+     * Ids de todos os registros que satisfazem o filtro (ignora página e cursor).
+     */
+    public BitSet matchingIds() {
+        BitSet ids = new BitSet();
+        if (empty) {
+            return ids;
+        }
+        TypedQuery<Long> query = Panache.getEntityManager().createQuery(
+                "select " + ALIAS + ".id from " + entityName() + " " + ALIAS + whereClause(conditions),
+                Long.class);
+        parameters.forEach(query::setParameter);
+        try (Stream<Long> rows = query.getResultStream()) {
+            rows.forEach(id -> ids.set(Math.toIntExact(id)));
+        }
+        return ids;
+    }
+
+    /**
+     * Registros com os ids informados, com os mesmos fetch joins da página e na ordem da lista.
+     * Ids que não existem mais são ignorados.
+     */
+    List<T> findByIds(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        TypedQuery<T> query = Panache.getEntityManager().createQuery(
+                "select " + ALIAS + " from " + entityName() + " " + ALIAS + fetchJoins + " where " + ALIAS + ".id in :ids",
+                entityClass);
+        query.setParameter("ids", boxed);
+        Map<Long, T> byId = new HashMap<>();
+        for (T item : query.getResultList()) {
+            byId.put(idOf(item), item);
+        }
+        List<T> items = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            T item = byId.get(id);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    long idOf(T item) {
+        return ((Number) sortFields.get("id").accessor().apply(item)).longValue();
+    }
+
+    int page() {
+        return page;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    boolean isFiltered() {
+        return empty || !conditions.isEmpty();
+    }
+
+    boolean isKeyset() {
+        return cursor != null;
+    }
+
+    boolean isFirstPage() {
+        return cursor == null && page == 0;
+    }
+
+    Class<T> entityClass() {
+        return entityClass;
+    }
+
+    String entityName() {
+        return entityClass.getSimpleName();
+    }
+
+    /**
+     * Chave normalizada do filtro (sem ordenação nem paginação), usada para memorizar totais.
+     */
+    String countKey() {
+        return entityName() + (empty ? " empty" : "") + whereClause(conditions) + new TreeMap<>(parameters);
+    }
+
+    /**
+     * Expressão HQL do campo de ordenação, lida junto das projeções para montar o cursor.
+     */
+    String sortExpression() {
+        return sortField.expression();
+    }
+
+    /**
+     * Todos os registros do filtro, na ordem pedida e sem paginação.
+     */
+    <R> TypedQuery<R> listQuery(String select, String joins, Class<R> resultType) {
+        TypedQuery<R> query = Panache.getEntityManager().createQuery(
+                select + " from " + entityName() + " " + ALIAS + joins + whereClause(conditions) + orderBy(),
+                resultType);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    <R> TypedQuery<R> pageQuery(String select, String joins, Class<R> resultType) {
+        List<String> where = new ArrayList<>(conditions);
+        if (cursor != null) {
+            where.add(seekPredicate());
+        }
+
+        TypedQuery<R> query = Panache.getEntityManager().createQuery(
+                select + " from " + entityName() + " " + ALIAS + joins + whereClause(where) + orderBy(),
+                resultType);
+        parameters.forEach(query::setParameter);
+        if (cursor != null) {
+            query.setParameter("keysetId", cursor.lastId());
+            if (!isIdSort()) {
+                query.setParameter("keysetValue", sortField.parse(cursor.lastValue()));
+            }
+        } else {
+            query.setFirstResult(page * size);
+        }
+        query.setMaxResults(size + 1);
+        return query;
+    }
+
+    private SearchResult<T> toResult(List<T> rows, long total, CountMode countMode) {
+        return toResult(rows, total, countMode,
+                this::idOf, sortField::valueOf);
+    }
+
+    /**
+     * Corta a linha extra da página e monta o cursor a partir do id e do valor de ordenação
+     * da última linha, lidos pelas funções informadas.
+     */
+    <R> SearchResult<R> toResult(List<R> rows, long total, CountMode countMode,
+                                 ToLongFunction<R> idOf, Function<R, String> sortValueOf) {
+        boolean hasMore = rows.size() > size;
+        List<R> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            R last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(sortField.name(), descending, sortValueOf.apply(last), idOf.applyAsLong(last)).encode();
+        }
+        return new SearchResult<>(items, hasMore, nextCursor, total, countMode);
+    }
+
+    private String seekPredicate() {
+        String op = descending ? "<" : ">";
+        if (isIdSort()) {
+            return ALIAS + ".id " + op + " :keysetId";
+        }
+        String expr = sortField.expression();
+        return "(" + expr + " " + op + " :keysetValue or (" + expr + " = :keysetValue and " + ALIAS + ".id " + op + " :keysetId))";
+    }
+
+    private String orderBy() {
+        String dir = descending ? " desc" : " asc";
+        if (isIdSort()) {
+            return " order by " + ALIAS + ".id" + dir;
+        }
+        // O id desempata valores repetidos e torna a ordem total, requisito do keyset
+        return " order by " + sortField.expression() + dir + ", " + ALIAS + ".id" + dir;
+    }
+
+    private boolean isIdSort() {
+        return "id".equals(sortField.name());
+    }
+
+    private static String whereClause(List<String> where) {
+        return where.isEmpty() ? "" : " where " + String.join(" and ", where);
+    }
+}
@@ -0,0 +1,32 @@
+package org.acme.search;
+
+import java.util.List;
+
+/**
+ * Página de resultados de uma {@link SearchQuery}, com o total calculado pelo {@link SearchExecutor}.
+ */
+public class SearchResult<T> {
+    public final List<T> items;
+    public final boolean hasMore;
+    // Cursor para a próxima página ou null quando não houver mais resultados
+    public final String nextCursor;
+    public final long total;
+    // Estratégia que efetivamente produziu o total (pode diferir da configurada, ver SearchExecutor)
+    public final CountMode countMode;
+
+    SearchResult(List<T> items, boolean hasMore, String nextCursor, long total, CountMode countMode) {
+        this.items = items;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.countMode = countMode;
+    }
+
+    SearchResult<T> withTotal(long total, CountMode countMode) {
+        return new SearchResult<>(items, hasMore, nextCursor, total, countMode);
+    }
+
+    <U> SearchResult<U> withItems(List<U> items) {
+        return new SearchResult<>(items, hasMore, nextCursor, total, countMode);
+    }
+}
@@ -0,0 +1,204 @@
+package org.acme.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.acme.SingleFlight;
+import org.acme.StatsResource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Resultados das buscas V2 por (entidade, q, ordenação, página, tamanho, cursor), guardados como
+ * os ids da página mais o total, hasMore e nextCursor. Um acerto troca a query de busca (LIKE,
+ * filtros, contagem) por uma leitura por chave primária dos ids guardados.
+ *
+ * Cada entrada leva a geração da entidade no {@link SearchExecutor}, que avança a cada escrita
+ * confirmada; uma entrada de geração anterior está obsoleta. Com stale-while-revalidate, a primeira
+ * requisição que encontra a entrada obsoleta recalcula a busca e as demais, enquanto isso, recebem
+ * a página antiga (com as entidades já atualizadas, e sem as que foram removidas). Sem a opção,
+ * todas recalculam (buscas idênticas simultâneas ainda compartilham a mesma execução, pelo
+ * {@link SingleFlight}). Um cliente que escreve e depois busca nunca vê o resultado antigo, a
+ * menos que outra requisição já esteja recalculando a mesma busca.
+ *
+ * Buscas com projeção (fields=) guardam as próprias linhas, com os campos pedidos na chave. Como
+ * as linhas não são relidas por chave, uma entrada projetada obsoleta nunca é servida.
+ */
+@ApplicationScoped
+public class SearchResultCache {
+
+    record Key(String entity, String scope, String fields, String q, String sort, String direction, int page, int size, String cursor, CountMode countMode) {
+    }
+
+    static final class Entry {
+        final long generation;
+        final long[] ids;
+        // Linhas de uma busca projetada (ids fica null)
+        final List<Map<String, Object>> rows;
+        final boolean hasMore;
+        final String nextCursor;
+        final long total;
+        final CountMode countMode;
+        // Marca a requisição que está recalculando a entrada obsoleta
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(long generation, long[] ids, List<Map<String, Object>> rows, SearchResult<?> result) {
+            this.generation = generation;
+            this.ids = ids;
+            this.rows = rows;
+            this.hasMore = result.hasMore;
+            this.nextCursor = result.nextCursor;
+            this.total = result.total;
+            this.countMode = result.countMode;
+        }
+    }
+
+    @ConfigProperty(name = "search.result-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "search.result-cache.max-entries", defaultValue = "10000")
+    long maxEntries;
+
+    @ConfigProperty(name = "search.result-cache.stale-while-revalidate", defaultValue = "true")
+    boolean staleWhileRevalidate;
+
+    @Inject
+    SearchExecutor searchExecutor;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    private Cache<Key, Entry> cache;
+    private final AtomicLong insercoes = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Executa a busca pelo {@link SearchExecutor}, ou a responde pelo cache.
+     *
+     * @param q      termo da busca como recebido (compõe a chave junto com a ordenação e a página da query)
+     * @param cursor cursor recebido, ou null
+     */
+    public <T> SearchResult<T> execute(SearchQuery<T> query, String q, String cursor, CountMode mode) {
+        return execute(query, "", q, cursor, mode);
+    }
+
+    /**
+     * Como {@link #execute(SearchQuery, String, String, CountMode)}, para listagens restritas por
+     * algo fora do q (ex.: "desenvolvedoras/3" nas páginas de jogos de uma desenvolvedora).
+     *
+     * @param scope identifica a restrição na chave; buscas sem restrição usam ""
+     */
+    public <T> SearchResult<T> execute(SearchQuery<T> query, String scope, String q, String cursor, CountMode mode) {
+        if (!enabled) {
+            return searchExecutor.execute(query, mode);
+        }
+        Key key = key(query, scope, "", q, cursor, mode);
+        // Lida antes da busca: se houver escrita no meio, a entrada gravada já nasce obsoleta
+        long generation = searchExecutor.currentGeneration(query);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (entry.generation == generation) {
+                return load(query, entry);
+            }
+            if (staleWhileRevalidate && !entry.refreshing.compareAndSet(false, true)) {
+                return load(query, entry);
+            }
+        }
+        try {
+            // Buscas idênticas simultâneas esperam uma só execução e leem apenas os ids dela
+            AtomicReference<SearchResult<T>> propria = new AtomicReference<>();
+            Entry computed = singleFlight.execute(List.of(key, generation), () -> {
+                Entry atual = cache.asMap().get(key);
+                if (atual != null && atual.generation == generation) {
+                    return atual;
+                }
+                SearchResult<T> result = searchExecutor.execute(query, mode);
+                propria.set(result);
+                long[] ids = new long[result.items.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = query.idOf(result.items.get(i));
+                }
+                Entry nova = new Entry(generation, ids, null, result);
+                cache.put(key, nova);
+                insercoes.incrementAndGet();
+                return nova;
+            });
+            return propria.get() != null ? propria.get() : load(query, computed);
+        } finally {
+            if (entry != null) {
+                // Se a busca falhou, a próxima requisição tenta de novo
+                entry.refreshing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Busca com projeção (fields=). A entrada guarda as linhas já montadas e só é servida na mesma
+     * geração; buscas idênticas simultâneas (mesmos campos) compartilham uma única execução.
+     */
+    public SearchResult<Map<String, Object>> execute(ProjectedQuery query, String scope, String q, String cursor, CountMode mode) {
+        if (!enabled) {
+            return searchExecutor.execute(query, mode);
+        }
+        Key key = key(query.source(), scope, query.selectList(), q, cursor, mode);
+        long generation = searchExecutor.currentGeneration(query.source());
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || entry.generation != generation) {
+            entry = singleFlight.execute(List.of(key, generation), () -> {
+                Entry atual = cache.asMap().get(key);
+                if (atual != null && atual.generation == generation) {
+                    return atual;
+                }
+                SearchResult<Map<String, Object>> result = searchExecutor.execute(query, mode);
+                // Os mapas do resultado não são alterados depois de montados e podem ser entregues a outras threads
+                Entry nova = new Entry(generation, null, List.copyOf(result.items), result);
+                cache.put(key, nova);
+                insercoes.incrementAndGet();
+                return nova;
+            });
+        }
+        return new SearchResult<>(entry.rows, entry.hasMore, entry.nextCursor, entry.total, entry.countMode);
+    }
+
+    /**
+     * Esvazia o cache (as próximas buscas voltam a consultar o banco).
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public StatsResource.CacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new StatsResource.CacheStats(stats.hitCount(), stats.missCount(), insercoes.get(), cache.estimatedSize());
+    }
+
+    private static <T> SearchResult<T> load(SearchQuery<T> query, Entry entry) {
+        List<T> items = query.findByIds(entry.ids);
+        return new SearchResult<>(items, entry.hasMore, entry.nextCursor, entry.total, entry.countMode);
+    }
+
+    private static Key key(SearchQuery<?> query, String scope, String fields, String q, String cursor, CountMode mode) {
+        return new Key(query.entityName(), scope, fields, normalize(q), query.sortName(), query.direction(),
+                query.page(), query.size(), cursor != null && !cursor.isBlank() ? cursor : null, mode);
+    }
+
+    // Todos os filtros comparam sem diferenciar maiúsculas; espaços e acentos podem mudar o resultado
+    private static String normalize(String q) {
+        return q == null || q.isBlank() ? "" : q.toLowerCase(Locale.ROOT);
+    }
+}
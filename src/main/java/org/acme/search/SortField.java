@@ -0,0 +1,48 @@
+package org.acme.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Campo de ordenação permitido em uma busca: nome exposto na API, expressão HQL
+ * usada no ORDER BY / predicado de seek e como ler e converter o valor da chave.
+ */
+public record SortField<T>(String name,
+                           String expression,
+                           Function<T, Object> accessor,
+                           Function<String, Object> parser) {
+
+    public static <T> SortField<T> ofLong(String name, String expression, Function<T, Object> accessor) {
+        return new SortField<>(name, expression, accessor, Long::valueOf);
+    }
+
+    public static <T> SortField<T> ofInt(String name, String expression, Function<T, Object> accessor) {
+        return new SortField<>(name, expression, accessor, Integer::valueOf);
+    }
+
+    public static <T> SortField<T> ofString(String name, String expression, Function<T, Object> accessor) {
+        return new SortField<>(name, expression, accessor, raw -> raw);
+    }
+
+    /**
+     * Monta o whitelist de ordenação de uma entidade, preservando a ordem de declaração.
+     */
+    @SafeVarargs
+    public static <T> Map<String, SortField<T>> index(SortField<T>... fields) {
+        Map<String, SortField<T>> map = new LinkedHashMap<>();
+        for (SortField<T> field : fields) {
+            map.put(field.name(), field);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    String valueOf(T entity) {
+        return String.valueOf(accessor.apply(entity));
+    }
+
+    Object parse(String raw) {
+        return parser.apply(raw);
+    }
+}
@@ -0,0 +1,18 @@
+package org.acme.search;
+
+/**
+ * Sugestão de autocomplete. As instâncias são criadas na construção do índice e
+ * compartilhadas entre requisições.
+ */
+public record Suggestion(Kind tipo, long id, String texto) {
+
+    public enum Kind { JOGO, DESENVOLVEDORA, GENERO }
+
+    long ownerKey() {
+        return ownerKey(tipo, id);
+    }
+
+    static long ownerKey(Kind kind, long id) {
+        return ((long) kind.ordinal() << 56) | id;
+    }
+}
@@ -0,0 +1,51 @@
+package org.acme.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Dobra de texto para comparação: remove diacríticos e converte para minúsculas
+ * ("Ação" e "ACAO" resultam em "acao").
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final String LIKE_ESCAPE = "\\";
+
+    public static String fold(String text) {
+        if (text == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Padrão LIKE para comparar com uma coluna normalizada. Termos curtos demais para o índice de
+     * trigramas viram busca por prefixo ("ac%"), que o índice B-tree da coluna consegue atender;
+     * os demais continuam como "contém". Curingas do termo ({@code %} e {@code _}) são escapados
+     * com barra invertida, que a query precisa declarar ({@code like :p escape '\'}).
+     */
+    public static String likePattern(String term) {
+        String folded = fold(term).strip();
+        String escaped = escapeLike(folded);
+        return folded.length() < TrigramIndex.MIN_TERM_LENGTH ? escaped + "%" : "%" + escaped + "%";
+    }
+
+    /**
+     * Indica se o texto tem alguma letra ou dígito depois da dobra; termos só com pontuação ou
+     * curingas não restringem uma busca.
+     */
+    public static boolean hasSearchableText(String text) {
+        return text != null && fold(text).codePoints().anyMatch(Character::isLetterOrDigit);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace(LIKE_ESCAPE, LIKE_ESCAPE + LIKE_ESCAPE)
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
+    }
+
+    private TextNormalizer() {}
+}
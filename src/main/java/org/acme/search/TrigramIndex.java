@@ -0,0 +1,239 @@
+package org.acme.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de trigramas para busca por substring ("like '%termo%'") em memória.
+ * Os textos são dobrados com {@link TextNormalizer#fold}, então a busca ignora acentos e caixa.
+ *
+ * Cada trigrama aponta para uma posting list de ids ordenada em um long[] (sem boxing).
+ * A busca intersecta as listas dos trigramas do termo e confirma cada candidato contra o texto
+ * original, de modo que o resultado é exato e não apenas um superconjunto.
+ */
+public class TrigramIndex {
+
+    public static final int MIN_TERM_LENGTH = 3;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexa (ou reindexa) os textos de um documento. Textos nulos são ignorados.
+     */
+    public void put(long id, String... texts) {
+        String[] normalized = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            normalized[i] = texts[i] != null ? normalize(texts[i]) : "";
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            documents.put(id, normalized);
+            for (String text : normalized) {
+                for (long trigram : trigrams(text)) {
+                    postings.computeIfAbsent(trigram, k -> new PostingList()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids (ordenados) cujos textos contêm o termo, ignorando acentos e maiúsculas/minúsculas.
+     *
+     * @return null quando o termo é curto demais para o índice; o chamador deve usar outro caminho.
+     */
+    public long[] search(String term) {
+        String normalized = normalize(term);
+        if (normalized.length() < MIN_TERM_LENGTH) {
+            return null;
+        }
+        long[] termTrigrams = trigrams(normalized);
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(termTrigrams.length);
+            for (long trigram : termTrigrams) {
+                PostingList list = postings.get(trigram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            // Começa pela menor lista para que a interseção encolha o mais cedo possível
+            lists.sort(Comparator.comparingInt(l -> l.size));
+            long[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = intersect(candidates, count, lists.get(i));
+            }
+
+            int matches = 0;
+            for (int i = 0; i < count; i++) {
+                if (containsTerm(documents.get(candidates[i]), normalized)) {
+                    candidates[matches++] = candidates[i];
+                }
+            }
+            return Arrays.copyOf(candidates, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimativa do heap ocupado pelo índice (posting lists, chaves, textos e entradas de mapa).
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                // entrada do HashMap + Long da chave + objeto PostingList + array
+                bytes += 32 + 16 + 24 + 16 + 8L * list.ids.length;
+            }
+            for (String[] texts : documents.values()) {
+                bytes += 32 + 16 + 16 + 4L * texts.length;
+                for (String text : texts) {
+                    bytes += 40 + text.length();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        return TextNormalizer.fold(text);
+    }
+
+    private void removeUnlocked(long id) {
+        String[] previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String text : previous) {
+            for (long trigram : trigrams(text)) {
+                PostingList list = postings.get(trigram);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    private static boolean containsTerm(String[] texts, String term) {
+        if (texts == null) {
+            return false;
+        }
+        for (String text : texts) {
+            if (text.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mantém em candidates[0..count) apenas os ids presentes em other. Retorna o novo tamanho.
+     */
+    private static int intersect(long[] candidates, int count, PostingList other) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int pos = Arrays.binarySearch(other.ids, from, other.size, candidates[i]);
+            if (pos >= 0) {
+                candidates[kept++] = candidates[i];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+            if (from >= other.size) {
+                break;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Trigramas distintos do texto, cada um empacotado em um long (3 x 21 bits de code unit).
+     */
+    private static long[] trigrams(String text) {
+        if (text.length() < MIN_TERM_LENGTH) {
+            return new long[0];
+        }
+        long[] result = new long[text.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) text.charAt(i) << 42) | ((long) text.charAt(i + 1) << 21) | text.charAt(i + 2);
+        }
+        return Arrays.stream(result).distinct().toArray();
+    }
+
+    /**
+     * Lista ordenada de ids com crescimento amortizado.
+     */
+    private static final class PostingList {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
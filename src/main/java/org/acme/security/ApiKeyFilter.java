@@ -8,7 +8,8 @@ import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
 
 /**
- * Filtro de autenticação que verifica o cabeçalho X-API-KEY para rotas protegidas (V1).
+ * Filtro de autenticação que verifica o cabeçalho X-API-KEY para rotas protegidas (V1 e
+ * estatísticas de gerenciamento).
  */
 @Provider
 @Priority(500) // Prioridade para que este filtro seja executado cedo
@@ -22,12 +23,16 @@ public class ApiKeyFilter implements ContainerRequestFilter {
     // Protege todos os endpoints que contêm "/v1" no caminho.
     private static final String PROTECTED_PATH_SEGMENT = "/v1";
 
+    // Estatísticas internas (caches, índices, idempotência). A geração da chave de demonstração,
+    // também em /management, continua aberta
+    private static final String PROTECTED_STATS_PATH = "/management/stats";
+
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
         String path = requestContext.getUriInfo().getPath();
 
-        // Aplica o filtro apenas nas rotas da V1
-        if (path.contains(PROTECTED_PATH_SEGMENT)) {
+        // Aplica o filtro apenas nas rotas da V1 e nas estatísticas
+        if (path.contains(PROTECTED_PATH_SEGMENT) || path.contains(PROTECTED_STATS_PATH)) {
 
             // 1. Captura a Chave
             String apiKey = requestContext.getHeaderString(API_KEY_HEADER);
@@ -0,0 +1,56 @@
+package org.acme.v2;
+
+import io.smallrye.common.annotation.NonBlocking;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import org.acme.AutocompleteResponse;
+import org.acme.search.AutocompleteService;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+
+@Path("/v2/autocomplete")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "Autocomplete V2", description = "Sugestões de busca para digitação (Versão 2)")
+public class AutocompleteResourceV2 {
+
+    private static final int MAX_LIMIT = 50;
+
+    @Inject
+    AutocompleteService autocompleteService;
+
+    @GET
+    @NonBlocking // Só lê memória: roda no event loop, sem troca para worker thread
+    @Operation(
+            summary = "Sugestões de títulos de jogos, desenvolvedoras e gêneros (V2)",
+            description = "Respondido a partir de um índice de prefixos em memória, sem acesso ao banco. Ignora acentos e maiúsculas/minúsculas."
+    )
+    @APIResponse(
+            responseCode = "200",
+            description = "Sugestões retornadas com sucesso",
+            content = @Content(schema = @Schema(implementation = AutocompleteResponse.class))
+    )
+    public AutocompleteResponse complete(
+            @Parameter(description = "Texto digitado até o momento")
+            @QueryParam("q") String q,
+
+            @Parameter(description = "Quantidade máxima de sugestões (até 50)")
+            @QueryParam("limit") @DefaultValue("10") int limit
+    ) {
+        var response = new AutocompleteResponse();
+        response.q = q;
+        if (q != null && !q.isBlank()) {
+            response.sugestoes = autocompleteService.complete(q, Math.min(Math.max(limit, 1), MAX_LIMIT));
+        }
+        return response;
+    }
+}
@@ -1,42 +1,96 @@
 package org.acme.v2;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import jakarta.inject.Inject;
+import org.acme.CatalogChange;
+import org.acme.CatalogVersions;
 import org.acme.Desenvolvedora;
 import org.acme.FichaTecnica;
-import org.acme.IdempotencyService;
+import org.acme.Idempotent;
 import org.acme.Jogo;
 import org.acme.SearchDesenvolvedoraResponse;
+import org.acme.SearchJogoResponse;
+import org.acme.SingleFlight;
+import org.acme.UniqueConstraints;
+import org.acme.export.CatalogExporter;
+import org.acme.format.BinaryFormats;
+import org.acme.search.CountMode;
+import org.acme.search.FieldSelection;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.SearchResultCache;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.hibernate.Hibernate;
 
 
 @Path("/v2/desenvolvedoras")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Desenvolvedoras V2", description = "Endpoints para o catálogo de desenvolvedoras (Versão 2)")
 public class DesenvolvedoraResourceV2 {
 
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    @Inject
+    CatalogExporter catalogExporter;
+
+    @Inject
+    CatalogVersions catalogVersions;
+
+    @Inject
+    RelatedJogos relatedJogos;
+
     @Inject
-    IdempotencyService idempotencyService;
+    SearchIndexes searchIndexes;
+
+    // Estratégia de contagem do total da busca (exact, window, cached ou estimated)
+    @ConfigProperty(name = "search.v2.desenvolvedoras.count-mode", defaultValue = "cached")
+    String countMode;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    // Validade, em segundos, da ficha técnica em caches HTTP: ela muda muito menos que o catálogo
+    @ConfigProperty(name = "desenvolvedoras.ficha.max-age", defaultValue = "3600")
+    int fichaMaxAge;
 
     @GET
     @Path("/search")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
     @Operation(
             summary = "Busca desenvolvedoras com paginação e ordenação (V2)",
             description = "Mantém a funcionalidade de busca e paginação."
@@ -62,45 +116,70 @@ public class DesenvolvedoraResourceV2 {
             @QueryParam("page") @DefaultValue("0") int page,
 
             @Parameter(description = "Quantidade de itens por página")
-            @QueryParam("size") @DefaultValue("5") int size
+            @QueryParam("size") @DefaultValue("5") int size,
+
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor,
+
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,nome,paisDeOrigem). Sem o parâmetro, retorna o objeto completo")
+            @QueryParam("fields") String fields
     ){
-        // Lógica de busca e paginação (mantida da V1)
-        Set<String> allowedSortFields = Set.of("id", "nome", "paisDeOrigem");
-        if (!allowedSortFields.contains(sort)) {
-            sort = "id";
+        SearchQuery<Desenvolvedora> query = SearchQuery.of(Desenvolvedora.class, SearchFields.DESENVOLVEDORA)
+                .sort(sort, direction)
+                .page(page, size);
+
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.DESENVOLVEDORA_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
         }
 
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
+            }
+        }
 
-        int effectivePage = Math.max(page, 0);
+        if (q != null && !q.isBlank()) {
+            // Busca por nome ou país de origem (case-insensitive)
+            long[] ids = searchIndexes.desenvolvedoraIds(q);
+            if (ids != null) {
+                query.whereIdIn(ids);
+            } else {
+                query.where("(e.nomeNormalizado like :termo escape '\\' or e.paisDeOrigemNormalizado like :termo escape '\\')")
+                        .param("termo", TextNormalizer.likePattern(q));
+            }
+        }
 
-        PanacheQuery<Desenvolvedora> query;
-        if (q == null || q.isBlank()) {
-            query = Desenvolvedora.findAll(sortObj);
+        SearchResult<?> result;
+        if (selection != null) {
+            result = searchResultCache.execute(query.project(selection), "", q, cursor, CountMode.from(countMode));
         } else {
-            query = Desenvolvedora.find(
-                    "lower(nome) like ?1 or lower(paisDeOrigem) like ?1",
-                    sortObj,
-                    "%" + q.toLowerCase() + "%"
-            );
+            SearchResult<Desenvolvedora> entities = searchResultCache.execute(query, q, cursor, CountMode.from(countMode));
+            result = entities;
         }
 
-        List<Desenvolvedora> desenvolvedoras = query.page(effectivePage, size).list();
-
         var response = new SearchDesenvolvedoraResponse();
-        response.desenvolvedoras = desenvolvedoras;
-        response.totalDesenvolvedoras = query.count();
-        response.totalPages = query.pageCount();
-        response.hasMore = effectivePage < (query.pageCount() - 1);
+        response.desenvolvedoras = result.items;
+        response.totalDesenvolvedoras = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalDesenvolvedoras + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
 
         if (response.hasMore) {
-            // OBS: A URL precisa ser corrigida para apontar para a V2
-            String nextPageUrl = String.format("http://localhost:8080/v2/desenvolvedoras/search?q=%s&page=%d&size=%d&sort=%s&direction=%s",
-                    (q != null ? q : ""), (effectivePage + 1), size, sort, direction);
-            response.nextPage = nextPageUrl;
+            // O link da próxima página usa o cursor, evitando OFFSET em páginas profundas
+            response.nextPage = String.format("http://localhost:8080/v2/desenvolvedoras/search?q=%s&size=%d&sort=%s&direction=%s&cursor=%s",
+                    URLEncoder.encode(q != null ? q : "", StandardCharsets.UTF_8), query.size(),
+                    query.sortName(), query.direction(), result.nextCursor)
+                    + (selection != null ? "&fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8) : "");
         } else {
             response.nextPage = "";
         }
@@ -111,21 +190,148 @@ public class DesenvolvedoraResourceV2 {
     @GET
     @Operation(summary = "Retorna todas as desenvolvedoras (V2)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Desenvolvedora.class, type = SchemaType.ARRAY)))
-    public Response getAll() {
-        return Response.ok(Desenvolvedora.listAll()).build();
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response getAll(@Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,nome,paisDeOrigem). Sem o parâmetro, retorna o objeto completo")
+                           @QueryParam("fields") String fields,
+                           @Context Request request, @Context HttpHeaders headers) {
+        EntityTag etag = catalogVersions.collectionTag(Desenvolvedora.class, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.DESENVOLVEDORA_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+        if (selection == null) {
+            return Response.ok(Desenvolvedora.listAll(Sort.by("id"))).tag(etag).build();
+        }
+        // Projeção: apenas as colunas pedidas são lidas do banco
+        return Response.ok(SearchQuery.of(Desenvolvedora.class, SearchFields.DESENVOLVEDORA)
+                .project(selection)
+                .list()).tag(etag).build();
+    }
+
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, CatalogExporter.NDJSON})
+    @Operation(summary = "Exporta todas as desenvolvedoras (V2)", description = "Lê as linhas por cursor e as escreve conforme chegam, com memória constante (sem a ficha técnica). format=json (array) ou ndjson (um objeto por linha).")
+    @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Desenvolvedora.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Formato inválido")
+    public Response export(@Parameter(description = "json (padrão) ou ndjson")
+                           @QueryParam("format") String format) {
+        CatalogExporter.Format exportFormat;
+        try {
+            exportFormat = CatalogExporter.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .type(MediaType.APPLICATION_JSON)
+                    .build();
+        }
+        return Response.ok(catalogExporter.desenvolvedoras(exportFormat), exportFormat.mediaType()).build();
     }
 
     @GET
     @Path("{id}")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
     @Operation(summary = "Retorna uma desenvolvedora por ID (V2)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Desenvolvedora.class)))
     @APIResponse(responseCode = "404", description = "Desenvolvedora não encontrada")
-    public Response getById(@Parameter(description = "ID da desenvolvedora", required = true) @PathParam("id") long id) {
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response getById(@Parameter(description = "ID da desenvolvedora", required = true) @PathParam("id") long id, @Context Request request, @Context HttpHeaders headers) {
+        EntityTag etag = catalogVersions.entityTag(Desenvolvedora.class, id, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        // Uma só leitura por id entre requisições simultâneas; as demais encontram a desenvolvedora
+        // no cache de segundo nível
+        singleFlight.run(List.of(Desenvolvedora.class, id), () -> Desenvolvedora.findById(id));
         Desenvolvedora entity = Desenvolvedora.findById(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        return Response.ok(entity).build();
+        return Response.ok(entity).tag(etag).build();
+    }
+
+    @GET
+    @Path("{id}/ficha")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
+    @Operation(summary = "Retorna a ficha técnica de uma desenvolvedora (V2)", description = "História, principais jogos e prêmios, que não fazem parte da representação padrão da desenvolvedora. A resposta pode ser guardada em cache pelo cliente (Cache-Control).")
+    @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = FichaTecnica.class)))
+    @APIResponse(responseCode = "404", description = "Desenvolvedora não encontrada ou sem ficha técnica")
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response getFicha(@Parameter(description = "ID da desenvolvedora", required = true) @PathParam("id") long id, @Context Request request, @Context HttpHeaders headers) {
+        // A ficha só muda pela desenvolvedora, então a versão dela vale para a ficha
+        EntityTag etag = catalogVersions.entityTag(Desenvolvedora.class, id, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        singleFlight.run(List.of(FichaTecnica.class, id), () -> {
+            Desenvolvedora desenvolvedora = Desenvolvedora.findById(id);
+            if (desenvolvedora != null) {
+                Hibernate.initialize(desenvolvedora.fichaTecnica);
+            }
+        });
+        Desenvolvedora entity = Desenvolvedora.findById(id);
+        if (entity == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        if (entity.fichaTecnica == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("message", "A desenvolvedora não possui ficha técnica."))
+                    .build();
+        }
+        // Inicializa o proxy lazy (normalmente pelo cache de segundo nível) e serializa a entidade real
+        FichaTecnica ficha = (FichaTecnica) Hibernate.unproxy(entity.fichaTecnica);
+
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(fichaMaxAge);
+        return Response.ok(ficha).tag(etag).cacheControl(cacheControl).build();
+    }
+
+    @GET
+    @Path("{id}/jogos")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
+    @Operation(summary = "Lista os jogos de uma desenvolvedora (V2)", description = "Página de jogos de uma desenvolvedora, com ordenação e paginação por cursor como na busca de jogos.")
+    @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = SearchJogoResponse.class)))
+    @APIResponse(responseCode = "400", description = "Cursor ou campos inválidos")
+    @APIResponse(responseCode = "404", description = "Desenvolvedora não encontrada")
+    public Response listJogos(
+            @Parameter(description = "ID da desenvolvedora", required = true) @PathParam("id") long id,
+
+            @Parameter(description = "Campo para ordenação (id, titulo, anoLancamento)")
+            @QueryParam("sort") @DefaultValue("id") String sort,
+
+            @Parameter(description = "Direção da ordenação (asc ou desc)")
+            @QueryParam("direction") @DefaultValue("asc") String direction,
+
+            @Parameter(description = "Número da página")
+            @QueryParam("page") @DefaultValue("0") int page,
+
+            @Parameter(description = "Quantidade de itens por página")
+            @QueryParam("size") @DefaultValue("5") int size,
+
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor,
+
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,titulo,anoLancamento). Sem o parâmetro, retorna o objeto completo")
+            @QueryParam("fields") String fields
+    ) {
+        // findById costuma vir do cache de segundo nível; distingue desenvolvedora inexistente de sem jogos
+        if (Desenvolvedora.findById(id) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return relatedJogos.daDesenvolvedora(id, sort, direction, page, size, cursor, fields);
     }
 
     @POST
@@ -134,40 +340,20 @@ public class DesenvolvedoraResourceV2 {
     @APIResponse(responseCode = "201", description = "Desenvolvedora criada", content = @Content(schema = @Schema(implementation = Desenvolvedora.class)))
     @APIResponse(responseCode = "400", description = "Requisição inválida")
     @APIResponse(responseCode = "409", description = "Conflito - Desenvolvedora com o mesmo nome já existe")
-    public Response insert(@Valid Desenvolvedora desenvolvedora,
-                           @Parameter(description = "Chave única para garantir a idempotência da requisição.")
-                           @HeaderParam("Idempotency-Key") String idempotencyKey) {
-
-        // 1. Lógica de Idempotência
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Response cachedResponse = idempotencyService.getResponse(idempotencyKey);
-            if (cachedResponse != null) {
-                return cachedResponse;
-            }
-        }
-
-        // 2. Lógica de Negócio: Validação e Persistência
-        if (Desenvolvedora.find("nome", desenvolvedora.nome).count() > 0) {
-            Response conflictResponse = Response.status(Response.Status.CONFLICT)
-                    .entity("{\"message\": \"Uma desenvolvedora com o nome '" + desenvolvedora.nome + "' já está cadastrada.\"}")
-                    .build();
-
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                idempotencyService.cacheResponse(idempotencyKey, conflictResponse);
-            }
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência da requisição.")
+    public Response insert(@Valid Desenvolvedora desenvolvedora) {
+        // Persistência: a unicidade do nome é garantida pelo índice único; o flush leva o insert
+        // ao banco aqui para que uma violação (inclusive de uma requisição concorrente) vire 409
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.DESENVOLVEDORA_NOME,
+                "Uma desenvolvedora com o nome '" + desenvolvedora.nome + "' já está cadastrada.", desenvolvedora::persistAndFlush);
+        if (conflictResponse != null) {
             return conflictResponse;
         }
 
-        Desenvolvedora.persist(desenvolvedora);
+        catalogChanges.fire(CatalogChange.created(Desenvolvedora.class, desenvolvedora.id, desenvolvedora));
         URI location = UriBuilder.fromPath("/v2/desenvolvedoras/{id}").build(desenvolvedora.id); // URIs de retorno V2
-        Response response = Response.created(location).entity(desenvolvedora).build();
-
-        // 3. Cache a Resposta
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyService.cacheResponse(idempotencyKey, response);
-        }
-
-        return response;
+        return Response.created(location).entity(desenvolvedora).build();
     }
 
     @PUT
@@ -176,6 +362,7 @@ public class DesenvolvedoraResourceV2 {
     @Operation(summary = "Atualiza uma desenvolvedora existente (V2)")
     @APIResponse(responseCode = "200", description = "Desenvolvedora atualizada", content = @Content(schema = @Schema(implementation = Desenvolvedora.class)))
     @APIResponse(responseCode = "404", description = "Desenvolvedora não encontrada")
+    @APIResponse(responseCode = "409", description = "Conflito - Outra desenvolvedora já usa o nome")
     public Response update(@PathParam("id") long id, @Valid Desenvolvedora newDesenvolvedora) {
         // Lógica de atualização (mantida da V1)
         Desenvolvedora entity = Desenvolvedora.findById(id);
@@ -197,6 +384,13 @@ public class DesenvolvedoraResourceV2 {
             entity.fichaTecnica = null;
         }
 
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.DESENVOLVEDORA_NOME,
+                "Uma desenvolvedora com o nome '" + newDesenvolvedora.nome + "' já está cadastrada.", Desenvolvedora::flush);
+        if (conflictResponse != null) {
+            return conflictResponse;
+        }
+
+        catalogChanges.fire(CatalogChange.updated(Desenvolvedora.class, entity.id, entity));
         return Response.ok(entity).build();
     }
 
@@ -220,6 +414,7 @@ public class DesenvolvedoraResourceV2 {
                     .build();
         }
         Desenvolvedora.deleteById(id);
+        catalogChanges.fire(CatalogChange.deleted(Desenvolvedora.class, id));
         return Response.noContent().build();
     }
 }
\ No newline at end of file
@@ -1,22 +1,45 @@
 package org.acme.v2;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import jakarta.inject.Inject;
+import org.acme.CatalogChange;
+import org.acme.CatalogVersions;
 import org.acme.Genero;
-import org.acme.IdempotencyService;
+import org.acme.Idempotent;
 import org.acme.Jogo;
 import org.acme.SearchGeneroResponse;
+import org.acme.SearchJogoResponse;
+import org.acme.SingleFlight;
+import org.acme.UniqueConstraints;
+import org.acme.export.CatalogExporter;
+import org.acme.format.BinaryFormats;
+import org.acme.search.CountMode;
+import org.acme.search.FieldSelection;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.SearchResultCache;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -26,16 +49,40 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
 
 @Path("/v2/generos")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Gêneros V2", description = "Endpoints para o catálogo de gêneros (Versão 2)")
 public class GeneroResourceV2 {
 
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    @Inject
+    CatalogExporter catalogExporter;
+
+    @Inject
+    CatalogVersions catalogVersions;
+
     @Inject
-    IdempotencyService idempotencyService;
+    RelatedJogos relatedJogos;
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    // Estratégia de contagem do total da busca (exact, window, cached ou estimated)
+    @ConfigProperty(name = "search.v2.generos.count-mode", defaultValue = "cached")
+    String countMode;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
 
     @GET
     @Path("/search")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
     @Operation(
             summary = "Busca gêneros com paginação e ordenação (V2)",
             description = "Mantém a funcionalidade de busca e paginação."
@@ -61,45 +108,69 @@ public class GeneroResourceV2 {
             @QueryParam("page") @DefaultValue("0") int page,
 
             @Parameter(description = "Quantidade de itens por página")
-            @QueryParam("size") @DefaultValue("5") int size
+            @QueryParam("size") @DefaultValue("5") int size,
+
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor,
+
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,nome). Sem o parâmetro, retorna o objeto completo")
+            @QueryParam("fields") String fields
     ){
-        // Lógica de busca e paginação (mantida da V1)
-        Set<String> allowedSortFields = Set.of("id", "nome", "descricao");
-        if (!allowedSortFields.contains(sort)) {
-            sort = "id";
+        SearchQuery<Genero> query = SearchQuery.of(Genero.class, SearchFields.GENERO)
+                .sort(sort, direction)
+                .page(page, size);
+
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.GENERO_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
         }
 
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
+            }
+        }
 
-        int effectivePage = Math.max(page, 0);
+        if (q != null && !q.isBlank()) {
+            long[] ids = searchIndexes.generoIds(q);
+            if (ids != null) {
+                query.whereIdIn(ids);
+            } else {
+                query.where("(e.nomeNormalizado like :termo escape '\\' or e.descricaoNormalizada like :termo escape '\\')")
+                        .param("termo", TextNormalizer.likePattern(q));
+            }
+        }
 
-        PanacheQuery<Genero> query;
-        if (q == null || q.isBlank()) {
-            query = Genero.findAll(sortObj);
+        SearchResult<?> result;
+        if (selection != null) {
+            result = searchResultCache.execute(query.project(selection), "", q, cursor, CountMode.from(countMode));
         } else {
-            query = Genero.find(
-                    "lower(nome) like ?1 or lower(descricao) like ?1",
-                    sortObj,
-                    "%" + q.toLowerCase() + "%"
-            );
+            SearchResult<Genero> entities = searchResultCache.execute(query, q, cursor, CountMode.from(countMode));
+            result = entities;
         }
 
-        List<Genero> generos = query.page(effectivePage, size).list();
-
         var response = new SearchGeneroResponse();
-        response.generos = generos;
-        response.totalGeneros = query.count();
-        response.totalPages = query.pageCount();
-        response.hasMore = effectivePage < (query.pageCount() - 1);
+        response.generos = result.items;
+        response.totalGeneros = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalGeneros + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
 
         if (response.hasMore) {
-            // OBS: A URL precisa ser corrigida para apontar para a V2
-            String nextPageUrl = String.format("http://localhost:8080/v2/generos/search?q=%s&page=%d&size=%d&sort=%s&direction=%s",
-                    (q != null ? q : ""), (effectivePage + 1), size, sort, direction);
-            response.nextPage = nextPageUrl;
+            // O link da próxima página usa o cursor, evitando OFFSET em páginas profundas
+            response.nextPage = String.format("http://localhost:8080/v2/generos/search?q=%s&size=%d&sort=%s&direction=%s&cursor=%s",
+                    URLEncoder.encode(q != null ? q : "", StandardCharsets.UTF_8), query.size(),
+                    query.sortName(), query.direction(), result.nextCursor)
+                    + (selection != null ? "&fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8) : "");
         } else {
             response.nextPage = "";
         }
@@ -110,21 +181,109 @@ public class GeneroResourceV2 {
     @GET
     @Operation(summary = "Retorna todos os gêneros (V2)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Genero.class, type = SchemaType.ARRAY)))
-    public Response getAll() {
-        return Response.ok(Genero.listAll()).build();
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response getAll(@Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,nome). Sem o parâmetro, retorna o objeto completo")
+                           @QueryParam("fields") String fields,
+                           @Context Request request, @Context HttpHeaders headers) {
+        EntityTag etag = catalogVersions.collectionTag(Genero.class, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.GENERO_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+        if (selection == null) {
+            return Response.ok(Genero.listAll()).tag(etag).build();
+        }
+        // Projeção: apenas as colunas pedidas são lidas do banco
+        return Response.ok(SearchQuery.of(Genero.class, SearchFields.GENERO)
+                .project(selection)
+                .list()).tag(etag).build();
+    }
+
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, CatalogExporter.NDJSON})
+    @Operation(summary = "Exporta todos os gêneros (V2)", description = "Lê as linhas por cursor e as escreve conforme chegam, com memória constante. format=json (array) ou ndjson (um objeto por linha).")
+    @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Genero.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Formato inválido")
+    public Response export(@Parameter(description = "json (padrão) ou ndjson")
+                           @QueryParam("format") String format) {
+        CatalogExporter.Format exportFormat;
+        try {
+            exportFormat = CatalogExporter.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .type(MediaType.APPLICATION_JSON)
+                    .build();
+        }
+        return Response.ok(catalogExporter.generos(exportFormat), exportFormat.mediaType()).build();
     }
 
     @GET
     @Path("{id}")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
     @Operation(summary = "Retorna um gênero por ID (V2)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Genero.class)))
     @APIResponse(responseCode = "404", description = "Gênero não encontrado")
-    public Response getById(@Parameter(description = "ID do gênero", required = true) @PathParam("id") long id) {
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response getById(@Parameter(description = "ID do gênero", required = true) @PathParam("id") long id, @Context Request request, @Context HttpHeaders headers) {
+        EntityTag etag = catalogVersions.entityTag(Genero.class, id, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        // Leituras simultâneas do mesmo id esperam uma só ida ao banco, que deixa o gênero no cache
+        // de segundo nível; cada requisição o lê de lá em seguida, na própria sessão
+        singleFlight.run(List.of(Genero.class, id), () -> Genero.findById(id));
         Genero entity = Genero.findById(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        return Response.ok(entity).build();
+        return Response.ok(entity).tag(etag).build();
+    }
+
+    @GET
+    @Path("{id}/jogos")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
+    @Operation(summary = "Lista os jogos de um gênero (V2)", description = "Página de jogos de um gênero, com ordenação e paginação por cursor como na busca de jogos.")
+    @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = SearchJogoResponse.class)))
+    @APIResponse(responseCode = "400", description = "Cursor ou campos inválidos")
+    @APIResponse(responseCode = "404", description = "Gênero não encontrado")
+    public Response listJogos(
+            @Parameter(description = "ID do gênero", required = true) @PathParam("id") long id,
+
+            @Parameter(description = "Campo para ordenação (id, titulo, anoLancamento)")
+            @QueryParam("sort") @DefaultValue("id") String sort,
+
+            @Parameter(description = "Direção da ordenação (asc ou desc)")
+            @QueryParam("direction") @DefaultValue("asc") String direction,
+
+            @Parameter(description = "Número da página")
+            @QueryParam("page") @DefaultValue("0") int page,
+
+            @Parameter(description = "Quantidade de itens por página")
+            @QueryParam("size") @DefaultValue("5") int size,
+
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor,
+
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,titulo,anoLancamento). Sem o parâmetro, retorna o objeto completo")
+            @QueryParam("fields") String fields
+    ) {
+        if (Genero.findById(id) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return relatedJogos.doGenero(id, sort, direction, page, size, cursor, fields);
     }
 
     @POST
@@ -133,40 +292,20 @@ public class GeneroResourceV2 {
     @APIResponse(responseCode = "201", description = "Gênero criado", content = @Content(schema = @Schema(implementation = Genero.class)))
     @APIResponse(responseCode = "400", description = "Requisição inválida")
     @APIResponse(responseCode = "409", description = "Conflito - Gênero com o mesmo nome já existe")
-    public Response insert(@Valid Genero genero,
-                           @Parameter(description = "Chave única para garantir a idempotência da requisição.")
-                           @HeaderParam("Idempotency-Key") String idempotencyKey) {
-
-        // 1. Lógica de Idempotência
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Response cachedResponse = idempotencyService.getResponse(idempotencyKey);
-            if (cachedResponse != null) {
-                return cachedResponse;
-            }
-        }
-
-        // 2. Lógica de Negócio: Validação e Persistência
-        if (Genero.find("nome", genero.nome).count() > 0) {
-            Response conflictResponse = Response.status(Response.Status.CONFLICT)
-                    .entity("{\"message\": \"Um gênero com o nome '" + genero.nome + "' já está cadastrado.\"}")
-                    .build();
-
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                idempotencyService.cacheResponse(idempotencyKey, conflictResponse);
-            }
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência da requisição.")
+    public Response insert(@Valid Genero genero) {
+        // Persistência: a unicidade do nome é garantida pelo índice único; o flush leva o insert
+        // ao banco aqui para que uma violação (inclusive de uma requisição concorrente) vire 409
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.GENERO_NOME,
+                "Um gênero com o nome '" + genero.nome + "' já está cadastrado.", genero::persistAndFlush);
+        if (conflictResponse != null) {
             return conflictResponse;
         }
 
-        Genero.persist(genero);
+        catalogChanges.fire(CatalogChange.created(Genero.class, genero.id, genero));
         URI location = UriBuilder.fromPath("/v2/generos/{id}").build(genero.id); // URIs de retorno V2
-        Response response = Response.created(location).entity(genero).build();
-
-        // 3. Cache a Resposta
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyService.cacheResponse(idempotencyKey, response);
-        }
-
-        return response;
+        return Response.created(location).entity(genero).build();
     }
 
     @PUT
@@ -175,6 +314,7 @@ public class GeneroResourceV2 {
     @Operation(summary = "Atualiza um gênero existente (V2)")
     @APIResponse(responseCode = "200", description = "Gênero atualizado", content = @Content(schema = @Schema(implementation = Genero.class)))
     @APIResponse(responseCode = "404", description = "Gênero não encontrado")
+    @APIResponse(responseCode = "409", description = "Conflito - Outro gênero já usa o nome")
     public Response update(@PathParam("id") long id, @Valid Genero newGenero) {
         // Lógica de atualização (mantida da V1)
         Genero entity = Genero.findById(id);
@@ -183,6 +323,13 @@ public class GeneroResourceV2 {
         }
         entity.nome = newGenero.nome;
         entity.descricao = newGenero.descricao;
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.GENERO_NOME,
+                "Um gênero com o nome '" + newGenero.nome + "' já está cadastrado.", Genero::flush);
+        if (conflictResponse != null) {
+            return conflictResponse;
+        }
+
+        catalogChanges.fire(CatalogChange.updated(Genero.class, entity.id, entity));
         return Response.ok(entity).build();
     }
 
@@ -207,6 +354,7 @@ public class GeneroResourceV2 {
                     .build();
         }
         Genero.deleteById(id);
+        catalogChanges.fire(CatalogChange.deleted(Genero.class, id));
         return Response.noContent().build();
     }
 }
\ No newline at end of file
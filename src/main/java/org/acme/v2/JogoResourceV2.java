@@ -1,24 +1,56 @@
 package org.acme.v2;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.HashSet;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.function.Supplier;
 import jakarta.inject.Inject;
-import org.acme.Desenvolvedora;
-import org.acme.Genero;
-import org.acme.IdempotencyService;
+import org.acme.BatchJogoResponse;
+import org.acme.CatalogChange;
+import org.acme.CatalogVersions;
+import org.acme.EntityResponseCache;
+import org.acme.Idempotent;
 import org.acme.Jogo;
+import org.acme.JogoBatchService;
+import org.acme.JogoBulkService;
+import org.acme.JogoPatch;
+import org.acme.ReferenceResolver;
 import org.acme.SearchJogoResponse;
+import org.acme.UniqueConstraints;
+import org.acme.export.CatalogExporter;
+import org.acme.format.BinaryFormats;
+import org.acme.search.CountMode;
+import org.acme.search.FacetIndex;
+import org.acme.search.FieldSelection;
+import org.acme.search.FilterSyntaxException;
+import org.acme.search.JogoFilter;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchIndexes;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.SearchResultCache;
+import org.acme.search.TextNormalizer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -28,16 +60,50 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
 
 @Path("/v2/jogos")
-@Produces(MediaType.APPLICATION_JSON)
+// JSON é o padrão; CBOR e Smile pelo Accept (Protobuf apenas nas leituras com mensagem no esquema)
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Jogos V2", description = "Endpoints para o catálogo de jogos (Versão 2)")
 public class JogoResourceV2 {
 
+
+    @Inject
+    ReferenceResolver referenceResolver;
+
+    @Inject
+    JogoBatchService jogoBatchService;
+
+    @Inject
+    JogoBulkService jogoBulkService;
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Inject
+    CatalogExporter catalogExporter;
+
+    @Inject
+    CatalogVersions catalogVersions;
+
     @Inject
-    IdempotencyService idempotencyService;
+    EntityResponseCache responseCache;
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    @Inject
+    FacetIndex facetIndex;
+
+    // Estratégia de contagem do total da busca (exact, window, cached ou estimated)
+    @ConfigProperty(name = "search.v2.jogos.count-mode", defaultValue = "window")
+    String countMode;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
 
     @GET
     @Path("/search")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
     @Operation(
             summary = "Busca jogos com paginação e ordenação (V2)",
             description = "Mantém a funcionalidade de busca e paginação."
@@ -50,7 +116,7 @@ public class JogoResourceV2 {
             )
     )
     public Response search(
-            @Parameter(description = "Query para buscar por título ou ano de lançamento")
+            @Parameter(description = "Título ou ano de lançamento, ou filtro estruturado: genero:RPG ano:2010..2015 classificacao:<=DEZESSEIS dev:3 titulo:witcher")
             @QueryParam("q") String q,
 
             @Parameter(description = "Campo para ordenação (id, titulo, anoLancamento)")
@@ -63,50 +129,103 @@ public class JogoResourceV2 {
             @QueryParam("page") @DefaultValue("0") int page,
 
             @Parameter(description = "Quantidade de itens por página")
-            @QueryParam("size") @DefaultValue("5") int size
-    ){
-        // Lógica de busca e paginação (mantida da V1)
-        Set<String> allowedSortFields = Set.of("id", "titulo", "anoLancamento");
-        if (!allowedSortFields.contains(sort)) {
-            sort = "id";
-        }
+            @QueryParam("size") @DefaultValue("5") int size,
 
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
+            @Parameter(description = "Cursor retornado em nextCursor. Quando informado, a página é lida por keyset e substitui page, sort e direction")
+            @QueryParam("cursor") String cursor,
 
-        int effectivePage = Math.max(page, 0);
+            @Parameter(description = "Inclui as contagens por gênero, classificação, década e desenvolvedora do resultado")
+            @QueryParam("facets") @DefaultValue("false") boolean facets,
 
-        PanacheQuery<Jogo> query;
-        if (q == null || q.isBlank()) {
-            query = Jogo.findAll(sortObj);
-        } else {
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,titulo,anoLancamento). Sem o parâmetro, retorna o objeto completo")
+            @QueryParam("fields") String fields
+    ){
+        SearchQuery<Jogo> query = SearchQuery.of(Jogo.class, SearchFields.JOGO)
+                .fetchJoin(Jogo.FETCH_A_UM)
+                .sort(sort, direction)
+                .page(page, size);
+
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.JOGO_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+
+        if (cursor != null && !cursor.isBlank()) {
             try {
-                int ano = Integer.parseInt(q);
-                query = Jogo.find("anoLancamento = ?1", sortObj, ano);
-            } catch (NumberFormatException e) {
-                query = Jogo.find(
-                        "lower(titulo) like ?1",
-                        sortObj,
-                        "%" + q.toLowerCase() + "%"
-                );
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
             }
         }
 
-        List<Jogo> jogos = query.page(effectivePage, size).list();
+        // Ids do resultado inteiro para as facetas: resolvidos pelos índices em memória sempre que
+        // possível; a leitura dos ids no banco fica para o LIKE fora do índice de trigramas
+        Supplier<BitSet> facetIds = query::matchingIds;
+        if (q != null && !q.isBlank()) {
+            if (JogoFilter.isStructured(q)) {
+                // Filtro estruturado, ex.: genero:RPG ano:2010..2015 classificacao:<=DEZESSEIS dev:3
+                try {
+                    JogoFilter filter = JogoFilter.parse(q);
+                    filter.applyTo(query, searchIndexes);
+                    facetIds = () -> {
+                        BitSet ids = filter.matchingIds(facetIndex, searchIndexes);
+                        return ids != null ? ids : query.matchingIds();
+                    };
+                } catch (FilterSyntaxException e) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(Map.of("message", "Filtro inválido: " + e.getMessage(), "erros", e.getErrors()))
+                            .build();
+                }
+            } else {
+                try {
+                    int ano = Integer.parseInt(q);
+                    query.where("e.anoLancamento = :ano").param("ano", ano);
+                    facetIds = () -> facetIndex.anos(ano, ano);
+                } catch (NumberFormatException e) {
+                    long[] ids = searchIndexes.jogoIds(q);
+                    if (ids != null) {
+                        query.whereIdIn(ids);
+                        facetIds = () -> FacetIndex.bits(ids);
+                    } else {
+                        query.where("e.tituloNormalizado like :termo escape '\\'").param("termo", TextNormalizer.likePattern(q));
+                    }
+                }
+            }
+        }
+
+        SearchResult<?> result;
+        if (selection != null) {
+            result = searchResultCache.execute(query.project(selection), "", q, cursor, CountMode.from(countMode));
+        } else {
+            SearchResult<Jogo> entities = searchResultCache.execute(query, q, cursor, CountMode.from(countMode));
+            Jogo.carregarGeneros(entities.items);
+            result = entities;
+        }
 
         var response = new SearchJogoResponse();
-        response.jogos = jogos;
-        response.totalJogos = query.count();
-        response.totalPages = query.pageCount();
-        response.hasMore = effectivePage < (query.pageCount() - 1);
+        response.jogos = result.items;
+        response.totalJogos = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalJogos + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
+        if (facets) {
+            // Sem q, as contagens do catálogo inteiro já estão calculadas no índice
+            response.facets = q == null || q.isBlank() ? facetIndex.countAll() : facetIndex.count(facetIds.get());
+        }
 
         if (response.hasMore) {
-            // OBS: A URL precisa ser corrigida para apontar para a V2
-            String nextPageUrl = String.format("http://localhost:8080/v2/jogos/search?q=%s&page=%d&size=%d&sort=%s&direction=%s",
-                    (q != null ? q : ""), (effectivePage + 1), size, sort, direction);
-            response.nextPage = nextPageUrl;
+            // O link da próxima página usa o cursor, evitando OFFSET em páginas profundas
+            response.nextPage = String.format("http://localhost:8080/v2/jogos/search?q=%s&size=%d&sort=%s&direction=%s&cursor=%s",
+                    URLEncoder.encode(q != null ? q : "", StandardCharsets.UTF_8), query.size(),
+                    query.sortName(), query.direction(), result.nextCursor)
+                    + (selection != null ? "&fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8) : "");
         } else {
             response.nextPage = "";
         }
@@ -114,25 +233,87 @@ public class JogoResourceV2 {
         return Response.ok(response).build();
     }
 
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, CatalogExporter.NDJSON})
+    @Operation(summary = "Exporta o catálogo de jogos (V2)", description = "Lê as linhas por cursor e as escreve conforme chegam, com memória constante (desenvolvedora e gêneros). format=json (array) ou ndjson (um objeto por linha).")
+    @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Jogo.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Formato inválido")
+    public Response export(@Parameter(description = "json (padrão) ou ndjson")
+                           @QueryParam("format") String format) {
+        CatalogExporter.Format exportFormat;
+        try {
+            exportFormat = CatalogExporter.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .type(MediaType.APPLICATION_JSON)
+                    .build();
+        }
+        return Response.ok(catalogExporter.jogos(exportFormat), exportFormat.mediaType()).build();
+    }
+
     @GET
     @Operation(summary = "Retorna todos os jogos (V2 - Novo filtro de negócio)", description = "Retorna todos os jogos, mas o endpoint foi alterado na V2 para retornar apenas jogos com classificação LIVRE.")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Jogo.class, type = SchemaType.ARRAY)))
-    public List<Jogo> listAll() {
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response listAll(@Parameter(description = "Campos a retornar, separados por vírgula (ex.: id,titulo,anoLancamento). Sem o parâmetro, retorna o objeto completo")
+                           @QueryParam("fields") String fields,
+                           @Context Request request, @Context HttpHeaders headers) {
+        EntityTag etag = catalogVersions.collectionTag(Jogo.class, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
         // Novo comportamento para V2: retorna apenas jogos LIVRE
-        return Jogo.list("classificacaoIndicativa = 'LIVRE'");
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.JOGO_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+        if (selection == null) {
+            return Response.ok(Jogo.listComRelacionamentos("e.classificacaoIndicativa = 'LIVRE'")).tag(etag).build();
+        }
+        // Projeção: apenas as colunas pedidas são lidas do banco
+        return Response.ok(SearchQuery.of(Jogo.class, SearchFields.JOGO)
+                .where("e.classificacaoIndicativa = 'LIVRE'")
+                .project(selection)
+                .list()).tag(etag).build();
     }
 
     @GET
     @Path("{id}")
+    @Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF})
     @Operation(summary = "Retorna um jogo por ID (V2)")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Jogo.class)))
     @APIResponse(responseCode = "404", description = "Jogo não encontrado")
-    public Response getById(@PathParam("id") long id) {
+    @APIResponse(responseCode = "304", description = "Não modificado: a ETag enviada em If-None-Match ainda é a atual")
+    public Response getById(@PathParam("id") long id, @Context Request request, @Context HttpHeaders headers) {
+        // Versão conhecida em memória: o 304 sai sem consultar o banco
+        EntityTag etag = catalogVersions.entityTag(Jogo.class, id, headers);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        // JSON sai do cache de respostas serializadas; os formatos binários são codificados a partir dele
+        Response cached = responseCache.jogo(id, headers, etag);
+        if (cached != null) {
+            return cached;
+        }
+        MediaType formato = BinaryFormats.negotiated(headers);
+        if (formato != null) {
+            return responseCache.jogo(id, formato, etag);
+        }
+
         Jogo entity = Jogo.findById(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        return Response.ok(entity).build();
+        return Response.ok(entity).tag(etag).build();
     }
 
     @POST
@@ -141,67 +322,122 @@ public class JogoResourceV2 {
     @APIResponse(responseCode = "201", description = "Jogo criado", content = @Content(schema = @Schema(implementation = Jogo.class)))
     @APIResponse(responseCode = "400", description = "Requisição inválida")
     @APIResponse(responseCode = "409", description = "Conflito - Jogo com o mesmo título já existe")
-    public Response insert(@Valid Jogo jogo,
-                           @Parameter(description = "Chave única para garantir a idempotência da requisição.")
-                           @HeaderParam("Idempotency-Key") String idempotencyKey) {
-
-        // 1. Lógica de Idempotência: Verifica se a chave já existe no cache
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Response cachedResponse = idempotencyService.getResponse(idempotencyKey);
-            if (cachedResponse != null) {
-                return cachedResponse;
-            }
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência da requisição.")
+    public Response insert(@Valid Jogo jogo) {
+        // Desenvolvedora e gêneros resolvidos de uma vez; todos os ids inexistentes voltam no mesmo 400
+        ReferenceResolver.Referencias referencias = referenceResolver.resolve(jogo.desenvolvedora, jogo.generos);
+        if (!referencias.valid()) {
+            return referencias.badRequest();
         }
-
-        // 2. Lógica de Negócio: Validação e Persistência
-        if (Jogo.find("titulo", jogo.titulo).count() > 0) {
-            Response conflictResponse = Response.status(Response.Status.CONFLICT)
-                    .entity("{\"message\": \"Um jogo com o título '" + jogo.titulo + "' já está cadastrado.\"}")
-                    .build();
-
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                idempotencyService.cacheResponse(idempotencyKey, conflictResponse);
-            }
+        jogo.desenvolvedora = referencias.desenvolvedora();
+        jogo.generos = referencias.generos();
+
+        // Persistência: a unicidade do título é garantida pelo índice único; o flush leva o insert
+        // ao banco aqui para que uma violação (inclusive de uma requisição concorrente) vire 409
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.JOGO_TITULO,
+                "Um jogo com o título '" + jogo.titulo + "' já está cadastrado.", jogo::persistAndFlush);
+        if (conflictResponse != null) {
             return conflictResponse;
         }
 
-        if (jogo.desenvolvedora != null && jogo.desenvolvedora.id != null) {
-            Desenvolvedora d = Desenvolvedora.findById(jogo.desenvolvedora.id);
-            if (d == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Desenvolvedora com id " + jogo.desenvolvedora.id + " não existe").build();
-            }
-            jogo.desenvolvedora = d;
-        } else {
-            jogo.desenvolvedora = null;
+        catalogChanges.fire(CatalogChange.created(Jogo.class, jogo.id, jogo));
+        URI location = UriBuilder.fromPath("/v2/jogos/{id}").build(jogo.id); // URIs de retorno V2
+        return Response.created(location).entity(jogo).build();
+    }
+
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, "application/x-ndjson"})
+    @Operation(summary = "Cria jogos em lote (V2 - Idempotente)", description = "Recebe um array JSON ou NDJSON (um jogo por linha). Os jogos são gravados em blocos, cada bloco em uma transação com inserts em lote. O resultado informa, por item, se foi criado, se conflitou com um título existente ou se é inválido. Utiliza Idempotency-Key para o lote inteiro.")
+    @APIResponse(responseCode = "200", description = "Resultado por item", content = @Content(schema = @Schema(implementation = BatchJogoResponse.class)))
+    @APIResponse(responseCode = "400", description = "Corpo malformado ou acima do limite de itens")
+    @Idempotent
+    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Chave única para garantir a idempotência do lote inteiro.")
+    public Response batch(InputStream body) {
+        List<Jogo> jogos;
+        try {
+            jogos = jogoBatchService.read(body);
+        } catch (JsonProcessingException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Lote inválido: " + e.getOriginalMessage()))
+                    .build();
+        } catch (IOException | IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Lote inválido: " + e.getMessage()))
+                    .build();
         }
 
-        if (jogo.generos != null && !jogo.generos.isEmpty()) {
-            Set<Genero> resolved = new HashSet<>();
-            for (Genero g : jogo.generos) {
-                if (g == null || g.id == 0) continue;
-                Genero fetched = Genero.findById(g.id);
-                if (fetched == null) {
-                    return Response.status(Response.Status.BAD_REQUEST)
-                            .entity("Gênero com id " + g.id + " não existe").build();
-                }
-                resolved.add(fetched);
-            }
-            jogo.generos = resolved;
-        } else {
-            jogo.generos = new HashSet<>();
+        // Sem @Transactional: cada bloco do lote é gravado em sua própria transação
+        return Response.ok(jogoBatchService.persist(jogos)).build();
+    }
+
+    @DELETE
+    @Transactional
+    @Operation(summary = "Remove jogos em massa por filtro (V2)", description = "Remove todos os jogos que atendem ao filtro, com a mesma sintaxe do parâmetro q da busca (ex.: dev:3 ano:..2005). As associações com gêneros e os jogos são removidos com statements por conjunto, sem carregar os jogos.")
+    @APIResponse(responseCode = "200", description = "Quantidade de jogos removidos (afetados)")
+    @APIResponse(responseCode = "400", description = "Filtro ausente, inválido ou que seleciona jogos demais")
+    public Response deleteByFilter(@Parameter(description = "Filtro obrigatório, ex.: dev:3 classificacao:DEZOITO")
+                                   @QueryParam("filter") String filter) {
+        JogoFilter.Condition condition;
+        try {
+            condition = parseBulkFilter(filter);
+        } catch (FilterSyntaxException e) {
+            return invalidFilter(e);
         }
+        try {
+            return Response.ok(Map.of("afetados", jogoBulkService.delete(condition))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+    }
 
-        Jogo.persist(jogo);
-        URI location = UriBuilder.fromPath("/v2/jogos/{id}").build(jogo.id); // URIs de retorno V2
-        Response response = Response.created(location).entity(jogo).build();
+    @PATCH
+    @Transactional
+    @Operation(summary = "Altera jogos em massa por filtro (V2)", description = "Aplica os campos informados (descricao, anoLancamento, classificacaoIndicativa, desenvolvedora) a todos os jogos que atendem ao filtro, em um UPDATE por conjunto. Campos ausentes não são alterados.")
+    @APIResponse(responseCode = "200", description = "Quantidade de jogos alterados (afetados)")
+    @APIResponse(responseCode = "400", description = "Filtro ausente ou inválido, corpo sem campos, referência inexistente ou filtro que seleciona jogos demais")
+    public Response updateByFilter(@Parameter(description = "Filtro obrigatório, ex.: dev:3 classificacao:DEZOITO")
+                                   @QueryParam("filter") String filter,
+                                   @Valid JogoPatch patch) {
+        JogoFilter.Condition condition;
+        try {
+            condition = parseBulkFilter(filter);
+        } catch (FilterSyntaxException e) {
+            return invalidFilter(e);
+        }
+        if (patch == null || patch.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Informe ao menos um campo a alterar"))
+                    .build();
+        }
+        ReferenceResolver.Referencias referencias = referenceResolver.resolve(patch.desenvolvedora, null);
+        if (!referencias.valid()) {
+            return referencias.badRequest();
+        }
+        try {
+            return Response.ok(Map.of("afetados", jogoBulkService.update(condition, patch, referencias.desenvolvedora()))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+    }
 
-        // 3. Cache a Resposta
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyService.cacheResponse(idempotencyKey, response);
+    private static JogoFilter.Condition parseBulkFilter(String filter) {
+        // Sem filtro a operação atingiria o catálogo inteiro
+        if (filter == null || filter.isBlank()) {
+            throw new FilterSyntaxException(List.of("O parâmetro filter é obrigatório"));
         }
+        return JogoFilter.parse(filter).toCondition();
+    }
 
-        return response;
+    private static Response invalidFilter(FilterSyntaxException e) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("message", "Filtro inválido: " + e.getMessage(), "erros", e.getErrors()))
+                .build();
     }
 
     @PUT
@@ -210,44 +446,33 @@ public class JogoResourceV2 {
     @Operation(summary = "Atualiza um jogo existente (V2)")
     @APIResponse(responseCode = "200", description = "Jogo atualizado", content = @Content(schema = @Schema(implementation = Jogo.class)))
     @APIResponse(responseCode = "404", description = "Jogo não encontrado")
+    @APIResponse(responseCode = "409", description = "Conflito - Outro jogo já usa o título")
     public Response update(@PathParam("id") long id, @Valid Jogo newJogo) {
         // Lógica de atualização (mantida da V1)
         Jogo entity = Jogo.findById(id);
         if (entity == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
+        // Referências validadas antes de alterar a entidade: um 400 não deixa alterações pendentes
+        ReferenceResolver.Referencias referencias = referenceResolver.resolve(newJogo.desenvolvedora, newJogo.generos);
+        if (!referencias.valid()) {
+            return referencias.badRequest();
+        }
         entity.titulo = newJogo.titulo;
         entity.descricao = newJogo.descricao;
         entity.anoLancamento = newJogo.anoLancamento;
         entity.classificacaoIndicativa = newJogo.classificacaoIndicativa;
+        entity.desenvolvedora = referencias.desenvolvedora();
+        entity.generos.clear();
+        entity.generos.addAll(referencias.generos());
 
-        if (newJogo.desenvolvedora != null && newJogo.desenvolvedora.id != null) {
-            Desenvolvedora d = Desenvolvedora.findById(newJogo.desenvolvedora.id);
-            if (d == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Desenvolvedora com id " + newJogo.desenvolvedora.id + " não existe").build();
-            }
-            entity.desenvolvedora = d;
-        } else {
-            entity.desenvolvedora = null;
-        }
-
-        if (newJogo.generos != null) {
-            Set<Genero> resolved = new HashSet<>();
-            for (Genero g : newJogo.generos) {
-                if (g == null || g.id == 0) continue;
-                Genero fetched = Genero.findById(g.id);
-                if (fetched == null) {
-                    return Response.status(Response.Status.BAD_REQUEST)
-                            .entity("Gênero com id " + g.id + " não existe").build();
-                }
-                resolved.add(fetched);
-            }
-            entity.generos = resolved;
-        } else {
-            entity.generos = new HashSet<>();
+        Response conflictResponse = UniqueConstraints.conflictOn(UniqueConstraints.JOGO_TITULO,
+                "Um jogo com o título '" + newJogo.titulo + "' já está cadastrado.", Jogo::flush);
+        if (conflictResponse != null) {
+            return conflictResponse;
         }
 
+        catalogChanges.fire(CatalogChange.updated(Jogo.class, entity.id, entity));
         return Response.ok(entity).build();
     }
 
@@ -258,14 +483,10 @@ public class JogoResourceV2 {
     @APIResponse(responseCode = "204", description = "Jogo removido")
     @APIResponse(responseCode = "404", description = "Jogo não encontrado")
     public Response delete(@PathParam("id") long id) {
-        // Lógica de exclusão (mantida da V1)
-        Jogo entity = Jogo.findById(id);
-        if (entity == null) {
+        // Mesmo caminho da remoção em massa: dois DELETEs, sem carregar o jogo nem seus gêneros
+        if (jogoBulkService.deleteByIds(List.of(id)) == 0) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        entity.generos.clear();
-        entity.persist();
-        Jogo.deleteById(id);
         return Response.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package org.acme.v2;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.acme.Jogo;
+import org.acme.SearchJogoResponse;
+import org.acme.search.CountMode;
+import org.acme.search.FieldSelection;
+import org.acme.search.KeysetCursor;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.SearchResultCache;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Páginas de jogos de uma desenvolvedora ou de um gênero (GET /v2/desenvolvedoras/{id}/jogos e
+ * GET /v2/generos/{id}/jogos).
+ *
+ * A página é lida pela mesma {@link SearchQuery} da busca de jogos, restrita à desenvolvedora ou
+ * ao gênero: com os índices jogo(desenvolvedora_id, id) e jogo_genero(genero_id, jogo_id), a
+ * consulta é uma leitura por faixa do índice, e não a carga da coleção inteira do pai. As páginas
+ * passam pelo {@link SearchResultCache}, como as da busca.
+ */
+@ApplicationScoped
+class RelatedJogos {
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    // Mesma estratégia de contagem da busca de jogos
+    @ConfigProperty(name = "search.v2.jogos.count-mode", defaultValue = "window")
+    String countMode;
+
+    Response daDesenvolvedora(long desenvolvedoraId, String sort, String direction, int page, int size,
+                              String cursor, String fields) {
+        SearchQuery<Jogo> query = SearchQuery.of(Jogo.class, SearchFields.JOGO)
+                .where("e.desenvolvedora.id = :desenvolvedoraId")
+                .param("desenvolvedoraId", desenvolvedoraId);
+        return listar(query, "desenvolvedoras/" + desenvolvedoraId, sort, direction, page, size, cursor, fields);
+    }
+
+    Response doGenero(long generoId, String sort, String direction, int page, int size,
+                      String cursor, String fields) {
+        // Semi-join pela tabela de junção: filtra jogo_genero por genero_id sem multiplicar as
+        // linhas da página, como faria um join direto com a coleção
+        SearchQuery<Jogo> query = SearchQuery.of(Jogo.class, SearchFields.JOGO)
+                .where("e.id in (select j.id from Jogo j join j.generos g where g.id = :generoId)")
+                .param("generoId", generoId);
+        return listar(query, "generos/" + generoId, sort, direction, page, size, cursor, fields);
+    }
+
+    private Response listar(SearchQuery<Jogo> query, String pai, String sort, String direction, int page, int size,
+                            String cursor, String fields) {
+        query.fetchJoin(Jogo.FETCH_A_UM)
+                .sort(sort, direction)
+                .page(page, size);
+
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, SearchFields.JOGO_CAMPOS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build();
+        }
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                query.after(KeysetCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Cursor de paginação inválido.\"}")
+                        .build();
+            }
+        }
+
+        // O pai entra na chave do cache de resultados: sem q, as páginas de pais diferentes se confundiriam
+        SearchResult<?> result;
+        if (selection != null) {
+            result = searchResultCache.execute(query.project(selection), pai, null, cursor, CountMode.from(countMode));
+        } else {
+            SearchResult<Jogo> entities = searchResultCache.execute(query, pai, null, cursor, CountMode.from(countMode));
+            Jogo.carregarGeneros(entities.items);
+            result = entities;
+        }
+
+        var response = new SearchJogoResponse();
+        response.jogos = result.items;
+        response.totalJogos = result.total;
+        response.countMode = result.countMode;
+        response.totalPages = (int) ((response.totalJogos + query.size() - 1) / query.size());
+        response.hasMore = result.hasMore;
+        response.nextCursor = result.nextCursor;
+
+        if (response.hasMore) {
+            response.nextPage = String.format("http://localhost:8080/v2/%s/jogos?size=%d&sort=%s&direction=%s&cursor=%s",
+                    pai, query.size(), query.sortName(), query.direction(), result.nextCursor)
+                    + (selection != null ? "&fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8) : "");
+        } else {
+            response.nextPage = "";
+        }
+
+        return Response.ok(response).build();
+    }
+}
@@ -18,10 +18,14 @@ INSERT INTO Genero (nome, descricao) VALUES
                                          ('Mundo Aberto', 'Jogos que apresentam um vasto mundo para o jogador explorar livremente.');
 
 -- Inserir Jogo
-INSERT INTO Jogo (titulo, descricao, anoLancamento, classificacaoIndicativa, desenvolvedora_id) VALUES
-                                                                                                    ('The Elder Scrolls V: Skyrim', 'Um RPG de mundo aberto onde você é o Dragonborn, um herói com o poder de absorver almas de dragão.', 2011, 'DEZOITO', 1),
-                                                                                                    ('The Witcher 3: Wild Hunt', 'Jogue como Geralt de Rivia, um caçador de monstros, em busca de sua filha adotiva em um vasto mundo aberto.', 2015, 'DEZESSEIS', 2),
-                                                                                                    ('The Legend of Zelda: Breath of the Wild', 'Explore o vasto reino de Hyrule para derrotar Calamity Ganon.', 2017, 'DEZ', 3);
+INSERT INTO Jogo (id, titulo, descricao, anoLancamento, classificacaoIndicativa, desenvolvedora_id) VALUES
+                                                                                                    (1, 'The Elder Scrolls V: Skyrim', 'Um RPG de mundo aberto onde você é o Dragonborn, um herói com o poder de absorver almas de dragão.', 2011, 'DEZOITO', 1),
+                                                                                                    (2, 'The Witcher 3: Wild Hunt', 'Jogue como Geralt de Rivia, um caçador de monstros, em busca de sua filha adotiva em um vasto mundo aberto.', 2015, 'DEZESSEIS', 2),
+                                                                                                    (3, 'The Legend of Zelda: Breath of the Wild', 'Explore o vasto reino de Hyrule para derrotar Calamity Ganon.', 2017, 'DEZ', 3);
+
+-- Jogo usa a sequence jogo_seq (blocos de 50, otimizador pooled): o valor da sequence é o fim
+-- do próximo bloco, então 53 faz o primeiro bloco gerado pela aplicação ser 4..53
+ALTER SEQUENCE jogo_seq RESTART WITH 53;
 
 -- Associações jogo-genero (Many-to-Many)
 INSERT INTO jogo_genero (jogo_id, genero_id) VALUES (1, 1), (1, 4);
@@ -0,0 +1,44 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.lang.reflect.Proxy;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Com o mapa de versões menor que o número de entidades escritas, as descartadas passam ao piso do
+ * tipo e nenhuma volta à ETag que tinha antes da própria escrita.
+ */
+class CatalogVersionsTest {
+
+    private static final int ENTIDADES = 20;
+
+    // Sem Accept nem Accept-Encoding
+    private static final HttpHeaders SEM_CABECALHOS = (HttpHeaders) Proxy.newProxyInstance(
+            CatalogVersionsTest.class.getClassLoader(), new Class<?>[]{HttpHeaders.class}, (proxy, method, args) -> null);
+
+    @Test
+    void evictedEntityNeverReturnsToItsPreviousTag() {
+        var versions = new CatalogVersions();
+        versions.maxEntities = 2;
+        versions.init();
+
+        EntityTag[] anteriores = new EntityTag[ENTIDADES];
+        for (int id = 0; id < ENTIDADES; id++) {
+            anteriores[id] = versions.entityTag(Genero.class, id, SEM_CABECALHOS);
+            var change = CatalogChange.updated(Genero.class, (long) id, null);
+            versions.onCatalogChangeFired(change);
+            versions.onCatalogChange(change);
+            assertNotEquals(anteriores[id], versions.entityTag(Genero.class, id, SEM_CABECALHOS));
+        }
+        versions.entidades.cleanUp();
+        assertTrue(versions.entidades.estimatedSize() <= 2);
+
+        for (int id = 0; id < ENTIDADES; id++) {
+            assertNotEquals(anteriores[id], versions.entityTag(Genero.class, id, SEM_CABECALHOS), "id " + id);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Massa de dados dos testes que gravam direto pelas entidades, sem passar pela API (e, portanto,
+ * sem os eventos que atualizam índices e caches). Nomes e títulos levam o prefixo do teste e um
+ * sufixo único, para não colidir com os índices únicos entre testes e execuções.
+ *
+ * {@link #criar} grava em uma transação nova; os métodos de uma entidade só a persistem e exigem
+ * uma transação aberta.
+ */
+public final class CatalogoDeTeste {
+
+    private static final AtomicLong SEQUENCIA = new AtomicLong();
+
+    /**
+     * Entidades gravadas, já desanexadas: leia apenas ids e campos simples.
+     */
+    public record Catalogo(Desenvolvedora desenvolvedora, List<Genero> generos, List<Jogo> jogos) {
+
+        public long desenvolvedoraId() {
+            return desenvolvedora.id;
+        }
+
+        /** Id do primeiro gênero. */
+        public long generoId() {
+            return generos.get(0).id;
+        }
+
+        /** Id do primeiro jogo. */
+        public long jogoId() {
+            return jogos.get(0).id;
+        }
+
+        public List<Long> jogoIds() {
+            return jogos.stream().map(jogo -> jogo.id).toList();
+        }
+    }
+
+    /**
+     * Uma desenvolvedora, {@code generos} gêneros e {@code jogos} jogos dela, cada um com todos
+     * esses gêneros.
+     */
+    public static Catalogo criar(String prefixo, int generos, int jogos) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Desenvolvedora desenvolvedora = desenvolvedora(prefixo);
+            List<Genero> criados = new ArrayList<>(generos);
+            for (int i = 0; i < generos; i++) {
+                criados.add(genero(prefixo));
+            }
+            List<Jogo> lista = new ArrayList<>(jogos);
+            for (int i = 0; i < jogos; i++) {
+                lista.add(jogo(prefixo, desenvolvedora, criados.toArray(Genero[]::new)));
+            }
+            return new Catalogo(desenvolvedora, List.copyOf(criados), List.copyOf(lista));
+        });
+    }
+
+    public static Desenvolvedora desenvolvedora(String prefixo) {
+        var desenvolvedora = new Desenvolvedora();
+        desenvolvedora.nome = "Estúdio " + unico(prefixo);
+        desenvolvedora.paisDeOrigem = "Brasil";
+        desenvolvedora.persist();
+        return desenvolvedora;
+    }
+
+    public static Genero genero(String prefixo) {
+        var genero = new Genero();
+        genero.nome = unico(prefixo);
+        genero.persist();
+        return genero;
+    }
+
+    public static Jogo jogo(String prefixo, Desenvolvedora desenvolvedora, Genero... generos) {
+        var jogo = new Jogo(null, unico(prefixo), "Jogo de teste (" + prefixo + ")", 2010, ClassificacaoIndicativa.LIVRE);
+        jogo.desenvolvedora = desenvolvedora;
+        jogo.generos.addAll(List.of(generos));
+        jogo.persist();
+        return jogo;
+    }
+
+    private static String unico(String prefixo) {
+        return prefixo + " " + System.nanoTime() + "-" + SEQUENCIA.incrementAndGet();
+    }
+
+    private CatalogoDeTeste() {}
+}
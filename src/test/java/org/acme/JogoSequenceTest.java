@@ -0,0 +1,51 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Um jogo gravado por SQL com id à frente da sequence (como em um banco que vinha da coluna
+ * IDENTITY) faz o ajuste da inicialização reiniciar a sequence depois dele.
+ */
+@QuarkusTest
+class JogoSequenceTest {
+
+    @Inject
+    JogoSequence jogoSequence;
+
+    @Test
+    void sequenceBehindExistingIdsIsMovedPastThem() {
+        long id = QuarkusTransaction.requiringNew().call(() -> {
+            var em = Panache.getEntityManager();
+            long adiante = proximoValor() + 10 * Jogo.ID_ALLOCATION_SIZE;
+            em.createNativeQuery("""
+                            insert into Jogo (id, titulo, tituloNormalizado, descricao, anoLancamento, classificacaoIndicativa)
+                            values (:id, :titulo, :titulo, 'Inserido por SQL', 2020, 'LIVRE')
+                            """)
+                    .setParameter("id", adiante)
+                    .setParameter("titulo", "sequence " + System.nanoTime())
+                    .executeUpdate();
+            return adiante;
+        });
+        try {
+            jogoSequence.onStart(null);
+
+            long proximo = QuarkusTransaction.requiringNew().call(JogoSequenceTest::proximoValor);
+            // O bloco seguinte ao valor lido começa depois do id gravado
+            assertTrue(proximo - Jogo.ID_ALLOCATION_SIZE + 1 > id, "sequence em " + proximo + ", id " + id);
+        } finally {
+            QuarkusTransaction.requiringNew().run(() -> Jogo.delete("id", id));
+        }
+    }
+
+    private static long proximoValor() {
+        return ((Number) Panache.getEntityManager()
+                .createNativeQuery("select next value for " + Jogo.ID_SEQUENCE)
+                .getSingleResult()).longValue();
+    }
+}
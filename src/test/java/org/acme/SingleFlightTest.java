@@ -0,0 +1,186 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.acme.format.BinaryFormats;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Leituras simultâneas da mesma chave executam uma única carga (e, com os caches frios, as queries
+ * de uma leitura isolada, também em CBOR e Protobuf), e quem espera por uma carga travada desiste
+ * após o timeout e carrega por conta própria.
+ */
+@QuarkusTest
+class SingleFlightTest {
+
+    private static final int REQUISICOES = 100;
+    private static final int THREADS = 32;
+
+    @Inject
+    EntityResponseCache responseCache;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        SingleFlight singleFlight = singleFlight(Duration.ofSeconds(30));
+        AtomicInteger cargas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> resultados = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                resultados.add(executor.submit(() -> singleFlight.execute("chave", () -> {
+                    cargas.incrementAndGet();
+                    await(liberar);
+                    return "valor";
+                })));
+            }
+            // A carga só termina depois que todas as outras chamadas estão esperando por ela
+            while (singleFlight.stats().coalescidas() < THREADS - 1) {
+                Thread.sleep(5);
+            }
+            liberar.countDown();
+
+            for (Future<String> resultado : resultados) {
+                assertEquals("valor", resultado.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, cargas.get());
+        assertEquals(1, singleFlight.stats().cargas());
+        assertEquals(0, singleFlight.stats().emAndamento());
+    }
+
+    @Test
+    void waiterFallsBackToItsOwnLoadAfterTimeout() throws Exception {
+        SingleFlight singleFlight = singleFlight(Duration.ofMillis(100));
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> travada = executor.submit(() -> singleFlight.execute("chave", () -> {
+                iniciada.countDown();
+                await(liberar);
+                return "lenta";
+            }));
+            iniciada.await();
+
+            assertEquals("direta", singleFlight.execute("chave", () -> "direta"));
+            assertEquals(1, singleFlight.stats().esperasEsgotadas());
+
+            liberar.countDown();
+            assertEquals("lenta", travada.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentColdReadsRunTheQueriesOfOneRead() throws Exception {
+        long id = CatalogoDeTeste.criar("Rajada", 1, 1).jogoId();
+        Statistics statistics = sessionFactory.getStatistics();
+
+        esfriarCaches();
+        long antes = statistics.getPrepareStatementCount();
+        assertNotNull(QuarkusTransaction.requiringNew().call(() -> responseCache.entrada(id)));
+        long isolada = statistics.getPrepareStatementCount() - antes;
+
+        // As rajadas chamam o cache de respostas diretamente: pelo HTTP o rate limiter da V2 recusaria quase todas
+        esfriarCaches();
+        antes = statistics.getPrepareStatementCount();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<EntityResponseCache.Entry>> respostas = new ArrayList<>(REQUISICOES);
+            for (int i = 0; i < REQUISICOES; i++) {
+                respostas.add(executor.submit(() -> {
+                    largada.await();
+                    return QuarkusTransaction.requiringNew().call(() -> responseCache.entrada(id));
+                }));
+            }
+            largada.countDown();
+            for (Future<EntityResponseCache.Entry> resposta : respostas) {
+                assertNotNull(resposta.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(isolada, statistics.getPrepareStatementCount() - antes);
+    }
+
+    @Test
+    void concurrentColdBinaryReadsRunTheQueriesOfOneRead() throws Exception {
+        long id = CatalogoDeTeste.criar("Rajada CBOR", 1, 1).jogoId();
+        Statistics statistics = sessionFactory.getStatistics();
+
+        esfriarCaches();
+        long antes = statistics.getPrepareStatementCount();
+        assertEquals(200, QuarkusTransaction.requiringNew().call(() -> responseCache.jogo(id, BinaryFormats.CBOR_TYPE, null)).getStatus());
+        long isolada = statistics.getPrepareStatementCount() - antes;
+
+        // Os formatos binários partem da mesma entrada JSON, lida uma vez pela rajada inteira
+        esfriarCaches();
+        antes = statistics.getPrepareStatementCount();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<Response>> respostas = new ArrayList<>(REQUISICOES);
+            for (int i = 0; i < REQUISICOES; i++) {
+                MediaType formato = i % 2 == 0 ? BinaryFormats.CBOR_TYPE : BinaryFormats.PROTOBUF_TYPE;
+                respostas.add(executor.submit(() -> {
+                    largada.await();
+                    return QuarkusTransaction.requiringNew().call(() -> responseCache.jogo(id, formato, null));
+                }));
+            }
+            largada.countDown();
+            for (Future<Response> resposta : respostas) {
+                assertEquals(200, resposta.get(30, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(isolada, statistics.getPrepareStatementCount() - antes);
+    }
+
+    private void esfriarCaches() {
+        responseCache.clear();
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    private static SingleFlight singleFlight(Duration waitTimeout) {
+        SingleFlight singleFlight = new SingleFlight();
+        singleFlight.waitTimeout = waitTimeout;
+        return singleFlight;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.acme;
+
+import static io.restassured.RestAssured.given;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * As estatísticas de gerenciamento exigem a chave de API; a geração da chave de demonstração
+ * continua aberta.
+ */
+@QuarkusTest
+class StatsResourceTest {
+
+    private static final String API_KEY = "DEV_API_GAME_CATALOG_12345";
+
+    @Test
+    void statsRequireApiKey() {
+        for (String stats : new String[]{"indices", "cache", "respostas", "buscas", "coalescencia", "idempotencia"}) {
+            given().when().get("/api/management/stats/" + stats)
+                    .then().statusCode(401);
+            given().header("X-API-KEY", API_KEY)
+                    .when().get("/api/management/stats/" + stats)
+                    .then().statusCode(200);
+        }
+
+        given().when().get("/api/management/keys/generate")
+                .then().statusCode(200);
+    }
+}
@@ -0,0 +1,26 @@
+package org.acme.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Um prefixo igual a uma chave repetida (a mesma palavra em vários títulos) devolve as sugestões
+ * desde a primeira ocorrência da chave.
+ */
+class AutocompleteIndexTest {
+
+    @Test
+    void repeatedKeyStartsAtFirstOccurrence() {
+        List<Suggestion> entries = new ArrayList<>();
+        for (long id = 1; id <= 9; id++) {
+            entries.add(new Suggestion(Suggestion.Kind.JOGO, id, "Saga " + id + " Remastered"));
+        }
+        AutocompleteIndex index = AutocompleteIndex.build(entries);
+
+        assertEquals(entries, index.complete("Remastered", 20));
+        assertEquals(entries.subList(0, 3), index.complete("remastered", 3));
+    }
+}
@@ -0,0 +1,121 @@
+package org.acme.search;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.acme.UniqueConstraints;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Títulos são comparados pela coluna normalizada (sem acentos, minúsculas): o backfill a preenche
+ * para linhas inseridas por SQL direto, o LIKE sobre ela ignora acentos e caixa do termo, e a busca
+ * V2 encontra o jogo com qualquer grafia (e o gênero pela descrição, no LIKE dos termos curtos
+ * demais para o índice de trigramas). O índice único só é criado sobre a coluna preenchida e
+ * sem valores repetidos; com repetidos, a criação falha listando-os.
+ */
+@QuarkusTest
+class NormalizedSearchTest {
+
+    @Inject
+    NormalizedColumnsBackfill backfill;
+
+    @Test
+    void backfillFillsColumnForRowsInsertedBySql() {
+        String sufixo = String.valueOf(System.nanoTime());
+        long id = QuarkusTransaction.requiringNew().call(() -> {
+            var em = Panache.getEntityManager();
+            long novo = ((Number) em.createNativeQuery("select next value for jogo_seq").getSingleResult()).longValue();
+            em.createNativeQuery("""
+                            insert into Jogo (id, titulo, descricao, anoLancamento, classificacaoIndicativa)
+                            values (:id, :titulo, 'Inserido por SQL', 2020, 'LIVRE')
+                            """)
+                    .setParameter("id", novo)
+                    .setParameter("titulo", "Coração Ávido " + sufixo)
+                    .executeUpdate();
+            return novo;
+        });
+        try {
+            assertTrue(backfill.backfill("Jogo", "titulo", "tituloNormalizado") >= 1);
+
+            String normalizado = QuarkusTransaction.requiringNew().call(() -> Panache.getEntityManager()
+                    .createQuery("select e.tituloNormalizado from Jogo e where e.id = :id", String.class)
+                    .setParameter("id", id)
+                    .getSingleResult());
+            assertEquals("coracao avido " + sufixo, normalizado);
+
+            long encontrados = QuarkusTransaction.requiringNew().call(() ->
+                    Jogo.count("tituloNormalizado like ?1", TextNormalizer.likePattern("CORAÇÃO avido " + sufixo)));
+            assertEquals(1, encontrados);
+        } finally {
+            QuarkusTransaction.requiringNew().run(() -> Jogo.delete("id", id));
+        }
+    }
+
+    @Test
+    void searchIgnoresAccentsAndCase() {
+        String sufixo = String.valueOf(System.nanoTime());
+        given().contentType(ContentType.JSON)
+                .body("{\"titulo\": \"Ação Épica " + sufixo + "\", \"descricao\": \"Jogo de teste\","
+                        + " \"anoLancamento\": 2021, \"classificacaoIndicativa\": \"LIVRE\"}")
+                .when().post("/api/v2/jogos")
+                .then().statusCode(201);
+
+        for (String termo : new String[]{"acao epica " + sufixo, "AÇÃO ÉPICA " + sufixo, "Acão épica " + sufixo}) {
+            given().queryParam("q", termo)
+                    .when().get("/api/v2/jogos/search")
+                    .then().statusCode(200)
+                    .body("totalJogos", equalTo(1))
+                    .body("jogos[0].titulo", equalTo("Ação Épica " + sufixo));
+        }
+    }
+
+    @Test
+    void shortTermMatchesFoldedDescription() {
+        String nome = "Gênero " + System.nanoTime();
+        given().contentType(ContentType.JSON)
+                .body("{\"nome\": \"" + nome + "\", \"descricao\": \"Ébano e marfim\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        given().queryParam("q", "EB").queryParam("size", 50)
+                .when().get("/api/v2/generos/search")
+                .then().statusCode(200)
+                .body("generos.nome", hasItem(nome));
+    }
+
+    @Test
+    void uniqueIndexRefusesFoldedDuplicates() {
+        String sufixo = String.valueOf(System.nanoTime());
+        // Simula o banco de antes da versão: sem o índice e com nomes que só diferem em caixa e acentos
+        QuarkusTransaction.requiringNew().run(() -> {
+            var em = Panache.getEntityManager();
+            em.createNativeQuery("drop index if exists " + UniqueConstraints.GENERO_NOME).executeUpdate();
+            for (String nome : new String[]{"Ação " + sufixo, "ACAO " + sufixo}) {
+                em.createNativeQuery("insert into Genero (nome, descricao) values (:nome, 'Inserido por SQL')")
+                        .setParameter("nome", nome)
+                        .executeUpdate();
+            }
+        });
+        try {
+            backfill.backfill("Genero", "nome", "nomeNormalizado");
+
+            IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                    backfill.createUniqueIndex(UniqueConstraints.GENERO_NOME, "Genero", "nome", "nomeNormalizado"));
+            assertTrue(e.getMessage().contains("acao " + sufixo + ": 'Ação " + sufixo + "', 'ACAO " + sufixo + "'"), e.getMessage());
+        } finally {
+            QuarkusTransaction.requiringNew().run(() -> Genero.delete("nomeNormalizado", "acao " + sufixo));
+            backfill.createUniqueIndex(UniqueConstraints.GENERO_NOME, "Genero", "nome", "nomeNormalizado");
+        }
+    }
+}
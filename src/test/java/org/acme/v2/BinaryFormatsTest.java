@@ -0,0 +1,115 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import java.util.Map;
+import org.acme.format.BinaryFormats;
+import org.junit.jupiter.api.Test;
+
+/**
+ * O mesmo jogo lido em CBOR, Smile e Protobuf decodifica para os mesmos campos do JSON, e as
+ * mensagens de erro saem nos formatos binários como objeto (em Protobuf, uma Mensagem), não como
+ * uma string com o JSON dentro; um texto que parece JSON mas não é vira a mensagem inteira.
+ * Uma página de busca é menor em qualquer formato binário que em JSON (o tempo de codificação de
+ * cada formato é medido em BinaryFormatBenchmark, no perfil benchmark).
+ */
+@QuarkusTest
+class BinaryFormatsTest {
+
+    @Inject
+    BinaryFormats formats;
+
+    @Test
+    void jogoRoundTripsInEveryFormat() throws Exception {
+        String titulo = "Formato " + System.nanoTime();
+        int id = given().contentType(ContentType.JSON)
+                .body("{\"titulo\": \"" + titulo + "\", \"descricao\": \"Teste de formatos\", \"anoLancamento\": 2004,"
+                        + " \"classificacaoIndicativa\": \"DOZE\", \"generos\": [{\"id\": 1}]}")
+                .when().post("/api/v2/jogos")
+                .then().statusCode(201)
+                .extract().path("id");
+
+        Map<String, ObjectReader> readers = Map.of(
+                BinaryFormats.CBOR, new CBORMapper().readerFor(JsonNode.class),
+                BinaryFormats.SMILE, new SmileMapper().readerFor(JsonNode.class),
+                BinaryFormats.PROTOBUF, new ProtobufMapper().readerFor(JsonNode.class)
+                        .with(BinaryFormats.loadSchema().withRootType("Jogo")));
+        for (Map.Entry<String, ObjectReader> format : readers.entrySet()) {
+            var response = given().accept(format.getKey())
+                    .when().get("/api/v2/jogos/" + id)
+                    .then().statusCode(200).extract();
+            assertEquals(format.getKey(), response.contentType().split(";")[0]);
+
+            JsonNode jogo = format.getValue().readValue(response.asByteArray());
+            assertEquals(id, jogo.get("id").asLong(), format.getKey());
+            assertEquals(titulo, jogo.get("titulo").asText(), format.getKey());
+            assertEquals(2004, jogo.get("anoLancamento").asInt(), format.getKey());
+            assertEquals(1, jogo.get("generos").get(0).get("id").asLong(), format.getKey());
+        }
+    }
+
+    @Test
+    void binaryPagesAreSmallerThanJson() {
+        int json = pagina("application/json");
+        for (String format : new String[]{BinaryFormats.CBOR, BinaryFormats.SMILE, BinaryFormats.PROTOBUF}) {
+            int bytes = pagina(format);
+            assertTrue(bytes < json, format + ": " + bytes + " bytes, JSON: " + json + " bytes");
+        }
+    }
+
+    @Test
+    void errorMessageIsAnObjectInCbor() throws Exception {
+        String body = "{\"nome\": \"Formatos " + System.nanoTime() + "\"}";
+        given().contentType(ContentType.JSON).body(body)
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        byte[] conflict = given().contentType(ContentType.JSON).accept(BinaryFormats.CBOR).body(body)
+                .when().post("/api/v2/generos")
+                .then().statusCode(409)
+                .extract().asByteArray();
+
+        JsonNode message = new CBORMapper().readTree(conflict);
+        assertTrue(message.isObject(), "Esperado um objeto, veio: " + message);
+        assertTrue(message.get("message").asText().contains("já está cadastrado"));
+    }
+
+    @Test
+    void errorMessageIsAMensagemInProtobuf() throws Exception {
+        byte[] invalid = given().accept(BinaryFormats.PROTOBUF).queryParam("cursor", "nao-e-um-cursor")
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(400)
+                .contentType(BinaryFormats.PROTOBUF)
+                .extract().asByteArray();
+
+        JsonNode message = new ProtobufMapper().readerFor(JsonNode.class)
+                .with(BinaryFormats.loadSchema().withRootType("Mensagem"))
+                .readValue(invalid);
+        assertEquals("Cursor de paginação inválido.", message.get("message").asText());
+    }
+
+    @Test
+    void malformedJsonTextBecomesAMensagem() {
+        String texto = "{\"message\": \"sem fechamento";
+        assertEquals(Map.of("message", texto), formats.encodable(texto, MediaType.valueOf(BinaryFormats.PROTOBUF)));
+        assertEquals(Map.of("message", texto), formats.encodable(texto, MediaType.valueOf(BinaryFormats.CBOR)));
+    }
+
+    private static int pagina(String mediaType) {
+        return given().accept(mediaType).queryParam("size", 20)
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(200)
+                .extract().asByteArray().length;
+    }
+}
@@ -0,0 +1,72 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.acme.CatalogoDeTeste;
+import org.acme.CatalogoDeTeste.Catalogo;
+import org.acme.Jogo;
+import org.acme.export.CatalogExporter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GET /v2/jogos/export em JSON e NDJSON traz um registro por jogo do banco, cada um com os seus
+ * gêneros (nenhum nulo), inclusive jogos com mais de um gênero, que o cursor lê em várias linhas.
+ */
+@QuarkusTest
+class CatalogExportTest {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void jsonAndNdjsonExportEveryJogoWithItsGeneros() throws Exception {
+        // Dois gêneros: o cursor lê o jogo em duas linhas
+        Catalogo semeado = CatalogoDeTeste.criar("Exportado", 2, 1);
+        Set<String> nomesDosGeneros = new TreeSet<>();
+        semeado.generos().forEach(genero -> nomesDosGeneros.add(genero.nome));
+        long total = QuarkusTransaction.requiringNew().call(() -> Jogo.count());
+
+        String json = given().queryParam("format", "json")
+                .when().get("/api/v2/jogos/export")
+                .then().statusCode(200)
+                .contentType("application/json")
+                .extract().asString();
+        List<JsonNode> array = new ArrayList<>();
+        objectMapper.readTree(json).forEach(array::add);
+
+        String ndjson = given().queryParam("format", "ndjson")
+                .when().get("/api/v2/jogos/export")
+                .then().statusCode(200)
+                .contentType(CatalogExporter.NDJSON)
+                .extract().asString();
+        List<JsonNode> linhas = new ArrayList<>();
+        for (String linha : ndjson.split("\n")) {
+            linhas.add(objectMapper.readTree(linha));
+        }
+
+        for (List<JsonNode> exportados : List.of(array, linhas)) {
+            assertEquals(total, exportados.size());
+            for (JsonNode jogo : exportados) {
+                jogo.get("generos").forEach(genero -> assertFalse(genero.isNull(), "Gênero nulo em " + jogo));
+            }
+            JsonNode jogo = exportados.stream()
+                    .filter(j -> j.get("id").asLong() == semeado.jogoId())
+                    .findFirst().orElseThrow();
+            Set<String> generos = new TreeSet<>();
+            jogo.get("generos").forEach(genero -> generos.add(genero.get("nome").asText()));
+            assertEquals(nomesDosGeneros, generos);
+            assertEquals(semeado.desenvolvedora().nome, jogo.get("desenvolvedora").get("nome").asText());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ETags das leituras V2: If-None-Match com a versão atual recebe 304, e qualquer escrita do tipo
+ * (aqui, um POST de gênero) faz a mesma ETag voltar a receber o corpo completo.
+ */
+@QuarkusTest
+class ConditionalGetTest {
+
+    @Test
+    void collectionIsNotModifiedUntilAWrite() {
+        String etag = given().when().get("/api/v2/generos")
+                .then().statusCode(200)
+                .extract().header("ETag");
+        assertNotNull(etag);
+
+        given().header("If-None-Match", etag)
+                .when().get("/api/v2/generos")
+                .then().statusCode(304);
+
+        given().contentType(ContentType.JSON).body("{\"nome\": \"Metroidvania " + System.nanoTime() + "\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        String novaEtag = given().header("If-None-Match", etag)
+                .when().get("/api/v2/generos")
+                .then().statusCode(200)
+                .extract().header("ETag");
+        assertNotEquals(etag, novaEtag);
+    }
+
+    @Test
+    void entityTagChangesOnUpdate() {
+        int id = given().contentType(ContentType.JSON).body("{\"nome\": \"Plataforma " + System.nanoTime() + "\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201)
+                .extract().path("id");
+
+        String etag = given().when().get("/api/v2/generos/" + id)
+                .then().statusCode(200)
+                .extract().header("ETag");
+        given().header("If-None-Match", etag)
+                .when().get("/api/v2/generos/" + id)
+                .then().statusCode(304);
+
+        given().contentType(ContentType.JSON).body("{\"nome\": \"Plataforma " + System.nanoTime() + "\", \"descricao\": \"Pulos\"}")
+                .when().put("/api/v2/generos/" + id)
+                .then().statusCode(200);
+
+        given().header("If-None-Match", etag)
+                .when().get("/api/v2/generos/" + id)
+                .then().statusCode(200);
+    }
+}
@@ -0,0 +1,81 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A ficha técnica é aceita na escrita da desenvolvedora, mas não sai nas listagens de jogos nem na
+ * própria desenvolvedora: é lida em GET /v2/desenvolvedoras/{id}/ficha, que pode ficar em cache
+ * no cliente. A V1 continua a devolvê-la junto da desenvolvedora, inclusive na repetição de um POST
+ * com Idempotency-Key.
+ */
+@QuarkusTest
+class FichaTecnicaPayloadTest {
+
+    private static final String API_KEY = "DEV_API_GAME_CATALOG_12345";
+
+    @Test
+    void fichaOnlyComesFromItsOwnEndpoint() {
+        String sufixo = String.valueOf(System.nanoTime());
+        int desenvolvedoraId = given().contentType(ContentType.JSON)
+                .body("{\"nome\": \"Estúdio Ficha " + sufixo + "\", \"paisDeOrigem\": \"Brasil\","
+                        + " \"fichaTecnica\": {\"historia\": \"História " + sufixo + "\","
+                        + " \"principaisJogos\": \"Jogo A\", \"premiosEReconhecimentos\": \"Nenhum\"}}")
+                .when().post("/api/v2/desenvolvedoras")
+                .then().statusCode(201)
+                .body("$", not(hasKey("fichaTecnica")))
+                .extract().path("id");
+        given().contentType(ContentType.JSON)
+                .body("{\"titulo\": \"Sem Ficha " + sufixo + "\", \"descricao\": \"Teste do payload\","
+                        + " \"anoLancamento\": 2020, \"classificacaoIndicativa\": \"LIVRE\","
+                        + " \"desenvolvedora\": {\"id\": " + desenvolvedoraId + "}}")
+                .when().post("/api/v2/jogos")
+                .then().statusCode(201);
+
+        given().when().get("/api/v2/jogos")
+                .then().statusCode(200)
+                .body("desenvolvedora.id", hasItem(desenvolvedoraId))
+                .body(not(containsString("fichaTecnica")))
+                .body(not(containsString("História " + sufixo)));
+
+        given().when().get("/api/v2/desenvolvedoras/" + desenvolvedoraId + "/ficha")
+                .then().statusCode(200)
+                .header("Cache-Control", containsString("max-age=3600"))
+                .body("historia", equalTo("História " + sufixo));
+    }
+
+    @Test
+    void v1StillReturnsTheFicha() {
+        String sufixo = String.valueOf(System.nanoTime());
+        String corpo = "{\"nome\": \"Estúdio V1 " + sufixo + "\", \"paisDeOrigem\": \"Brasil\","
+                + " \"fichaTecnica\": {\"historia\": \"História " + sufixo + "\"}}";
+        int desenvolvedoraId = given().contentType(ContentType.JSON)
+                .header("X-API-KEY", API_KEY).header("Idempotency-Key", "ficha-v1-" + sufixo).body(corpo)
+                .when().post("/api/v1/desenvolvedoras")
+                .then().statusCode(201)
+                .body("fichaTecnica.historia", equalTo("História " + sufixo))
+                .extract().path("id");
+        given().contentType(ContentType.JSON)
+                .header("X-API-KEY", API_KEY).header("Idempotency-Key", "ficha-v1-" + sufixo).body(corpo)
+                .when().post("/api/v1/desenvolvedoras")
+                .then().statusCode(201)
+                .body("id", equalTo(desenvolvedoraId))
+                .body("fichaTecnica.historia", equalTo("História " + sufixo));
+
+        given().header("X-API-KEY", API_KEY)
+                .when().get("/api/v1/desenvolvedoras/" + desenvolvedoraId)
+                .then().statusCode(200)
+                .body("fichaTecnica.historia", equalTo("História " + sufixo));
+        given().when().get("/api/v2/desenvolvedoras/" + desenvolvedoraId)
+                .then().statusCode(200)
+                .body("$", not(hasKey("fichaTecnica")));
+    }
+}
@@ -0,0 +1,96 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.acme.Genero;
+import org.acme.search.TextNormalizer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * POSTs idênticos e simultâneos de um gênero: o índice único deixa passar exatamente um, e os
+ * demais recebem o 409 (sem a consulta prévia, que deixava duplicados passarem na corrida). A
+ * mensagem do 409 é JSON válido mesmo com aspas no nome.
+ */
+@QuarkusTest
+class GeneroUniqueConstraintTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void parallelIdenticalPostsCreateOneRow() throws Exception {
+        String nome = "Roguelike " + System.nanoTime();
+        String body = "{\"nome\": \"" + nome + "\", \"descricao\": \"Partidas curtas e morte permanente\"}";
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var start = new CountDownLatch(1);
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return given().contentType(ContentType.JSON).body(body)
+                            .when().post("/api/v2/generos")
+                            .then().extract().statusCode();
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            int conflicts = 0;
+            for (Future<Integer> status : statuses) {
+                switch (status.get()) {
+                    case 201 -> created++;
+                    case 409 -> conflicts++;
+                    default -> throw new AssertionError("Status inesperado: " + status.get());
+                }
+            }
+            assertEquals(1, created);
+            assertEquals(THREADS - 1, conflicts);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long rows = QuarkusTransaction.requiringNew().call(() -> Genero.count("nomeNormalizado", TextNormalizer.fold(nome)));
+        assertEquals(1, rows);
+    }
+
+    @Test
+    void nameDifferingOnlyInCaseAndAccentsConflicts() {
+        String nome = "Simulação " + System.nanoTime();
+        given().contentType(ContentType.JSON).body("{\"nome\": \"" + nome + "\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        String message = given().contentType(ContentType.JSON).body("{\"nome\": \"" + TextNormalizer.fold(nome).toUpperCase() + "\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(409)
+                .extract().path("message");
+        assertTrue(message.contains("já está cadastrado"));
+    }
+
+    @Test
+    void conflictMessageWithQuotesIsValidJson() {
+        String nome = "Jogos \"de festa\" " + System.nanoTime();
+        String body = "{\"nome\": \"" + nome.replace("\"", "\\\"") + "\"}";
+        given().contentType(ContentType.JSON).body(body)
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        String message = given().contentType(ContentType.JSON).body(body)
+                .when().post("/api/v2/generos")
+                .then().statusCode(409)
+                .extract().path("message");
+        assertTrue(message.contains("'" + nome + "'"), message);
+    }
+}
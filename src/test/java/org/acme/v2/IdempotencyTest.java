@@ -0,0 +1,106 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.acme.format.BinaryFormats;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Um POST repetido com a mesma Idempotency-Key recebe a resposta guardada da primeira
+ * requisição (mesmo status, Location e corpo), sem criar outro registro, inclusive quando as
+ * repetições chegam ao mesmo tempo que ela. O corpo repetido vem no formato da primeira resposta.
+ */
+@QuarkusTest
+class IdempotencyTest {
+
+    @Test
+    void retryReplaysStoredResponse() {
+        String chave = "genero-" + System.nanoTime();
+        String corpo = "{\"nome\": \"Idempotente " + System.nanoTime() + "\"}";
+
+        ExtractableResponse<Response> primeira = given().contentType(ContentType.JSON)
+                .header("Idempotency-Key", chave).body(corpo)
+                .when().post("/api/v2/generos")
+                .then().statusCode(201)
+                .extract();
+        ExtractableResponse<Response> repetida = given().contentType(ContentType.JSON)
+                .header("Idempotency-Key", chave).body(corpo)
+                .when().post("/api/v2/generos")
+                .then().statusCode(201)
+                .contentType(ContentType.JSON)
+                .extract();
+
+        assertEquals(primeira.header("Location"), repetida.header("Location"));
+        assertEquals(primeira.<Integer>path("id"), repetida.<Integer>path("id"));
+    }
+
+    @Test
+    void retryReplaysCborBody() throws Exception {
+        String chave = "genero-cbor-" + System.nanoTime();
+        String nome = "Idempotente CBOR " + System.nanoTime();
+
+        List<JsonNode> corpos = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            byte[] corpo = given().contentType(ContentType.JSON).accept(BinaryFormats.CBOR)
+                    .header("Idempotency-Key", chave).body("{\"nome\": \"" + nome + "\"}")
+                    .when().post("/api/v2/generos")
+                    .then().statusCode(201)
+                    .contentType(BinaryFormats.CBOR)
+                    .extract().asByteArray();
+            corpos.add(new CBORMapper().readTree(corpo));
+        }
+
+        assertEquals(nome, corpos.get(1).get("nome").asText());
+        assertEquals(corpos.get(0).get("id").asLong(), corpos.get(1).get("id").asLong());
+    }
+
+    @Test
+    void concurrentRetriesWaitForTheFirstRequest() throws Exception {
+        String chave = "genero-simultaneo-" + System.nanoTime();
+        String corpo = "{\"nome\": \"Simultâneo " + System.nanoTime() + "\"}";
+        int requisicoes = 5;
+
+        ExecutorService executor = Executors.newFixedThreadPool(requisicoes);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<ExtractableResponse<Response>>> respostas = new ArrayList<>();
+            for (int i = 0; i < requisicoes; i++) {
+                respostas.add(executor.submit(() -> {
+                    largada.await();
+                    return given().contentType(ContentType.JSON)
+                            .header("Idempotency-Key", chave).body(corpo)
+                            .when().post("/api/v2/generos")
+                            .then().extract();
+                }));
+            }
+            largada.countDown();
+
+            String location = null;
+            for (Future<ExtractableResponse<Response>> resposta : respostas) {
+                // Sem a espera pela primeira requisição, as demais receberiam 409 do índice único
+                assertEquals(201, resposta.get().statusCode());
+                if (location == null) {
+                    location = resposta.get().header("Location");
+                }
+                assertEquals(location, resposta.get().header("Location"));
+            }
+            assertNotNull(location);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
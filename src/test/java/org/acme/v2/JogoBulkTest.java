@@ -0,0 +1,142 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import java.util.Map;
+import org.acme.CatalogoDeTeste;
+import org.acme.CatalogoDeTeste.Catalogo;
+import org.acme.Genero;
+import org.acme.Jogo;
+import org.junit.jupiter.api.Test;
+
+/**
+ * DELETE/PATCH /v2/jogos?filter=: o filtro é obrigatório, filtros que selecionam mais jogos que
+ * {@code jogos.bulk.max-items} (aqui, {@value #MAX_ITEMS}) são recusados sem alterar nada, e a
+ * remoção leva junto as linhas de jogo_genero. Curingas de LIKE no título (% e _) não contam como
+ * restrição. Um DELETE por id de um jogo inexistente não conta como escrita (a ETag da listagem
+ * não muda).
+ */
+@QuarkusTest
+@TestProfile(JogoBulkTest.Limite.class)
+class JogoBulkTest {
+
+    static final int MAX_ITEMS = 3;
+
+    public static class Limite implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("jogos.bulk.max-items", String.valueOf(MAX_ITEMS));
+        }
+    }
+
+    @Test
+    void filterIsRequired() {
+        given().when().delete("/api/v2/jogos")
+                .then().statusCode(400)
+                .body("erros", hasItem("O parâmetro filter é obrigatório"));
+
+        given().contentType(ContentType.JSON).queryParam("filter", " ")
+                .body("{\"descricao\": \"Sem filtro\"}")
+                .when().patch("/api/v2/jogos")
+                .then().statusCode(400)
+                .body("erros", hasItem("O parâmetro filter é obrigatório"));
+    }
+
+    @Test
+    void wildcardTitleIsRejected() {
+        Catalogo massa = criarMassa(1);
+
+        given().queryParam("filter", "titulo:%")
+                .when().delete("/api/v2/jogos")
+                .then().statusCode(400)
+                .body("erros", hasItem("Trecho de título sem letras ou números '%'"));
+        given().contentType(ContentType.JSON).queryParam("filter", "titulo:_")
+                .body("{\"descricao\": \"Alterado em massa\"}")
+                .when().patch("/api/v2/jogos")
+                .then().statusCode(400)
+                .body("erros", hasItem("Trecho de título sem letras ou números '_'"));
+
+        assertEquals(1, QuarkusTransaction.requiringNew().call(() -> Jogo.count("id in ?1", massa.jogoIds())));
+    }
+
+    @Test
+    void filterOverTheLimitChangesNothing() {
+        Catalogo massa = criarMassa(MAX_ITEMS + 1);
+
+        given().queryParam("filter", "dev:" + massa.desenvolvedoraId())
+                .when().delete("/api/v2/jogos")
+                .then().statusCode(400)
+                .body("message", containsString("mais de " + MAX_ITEMS));
+        given().contentType(ContentType.JSON).queryParam("filter", "dev:" + massa.desenvolvedoraId())
+                .body("{\"descricao\": \"Alterado em massa\"}")
+                .when().patch("/api/v2/jogos")
+                .then().statusCode(400)
+                .body("message", containsString("mais de " + MAX_ITEMS));
+
+        assertEquals(MAX_ITEMS + 1, QuarkusTransaction.requiringNew().call(() ->
+                Jogo.count("desenvolvedora.id = ?1 and descricao <> ?2", massa.desenvolvedoraId(), "Alterado em massa")));
+    }
+
+    @Test
+    void patchUpdatesEveryMatch() {
+        Catalogo massa = criarMassa(2);
+
+        given().contentType(ContentType.JSON).queryParam("filter", "dev:" + massa.desenvolvedoraId())
+                .body("{\"descricao\": \"Alterado em massa\"}")
+                .when().patch("/api/v2/jogos")
+                .then().statusCode(200)
+                .body("afetados", is(2));
+
+        assertEquals(2, QuarkusTransaction.requiringNew().call(() ->
+                Jogo.count("desenvolvedora.id = ?1 and descricao = ?2", massa.desenvolvedoraId(), "Alterado em massa")));
+    }
+
+    @Test
+    void deleteRemovesGenreLinks() {
+        Catalogo massa = criarMassa(2);
+
+        given().queryParam("filter", "dev:" + massa.desenvolvedoraId())
+                .when().delete("/api/v2/jogos")
+                .then().statusCode(200)
+                .body("afetados", is(2));
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(0, Jogo.count("id in ?1", massa.jogoIds()));
+            Number links = (Number) Panache.getEntityManager()
+                    .createNativeQuery("select count(*) from jogo_genero where jogo_id in (:ids)")
+                    .setParameter("ids", massa.jogoIds())
+                    .getSingleResult();
+            assertEquals(0, links.longValue());
+            // O gênero continua cadastrado: só a associação sai
+            assertEquals(1, Genero.count("id", massa.generoId()));
+        });
+    }
+
+    @Test
+    void deletingMissingJogoIsNotAWrite() {
+        String etag = given().when().get("/api/v2/jogos")
+                .then().statusCode(200)
+                .extract().header("ETag");
+
+        given().when().delete("/api/v2/jogos/" + Long.MAX_VALUE)
+                .then().statusCode(404);
+
+        given().header("If-None-Match", etag)
+                .when().get("/api/v2/jogos")
+                .then().statusCode(304);
+    }
+
+    private static Catalogo criarMassa(int jogos) {
+        return CatalogoDeTeste.criar("Em massa", 1, jogos);
+    }
+}
@@ -0,0 +1,74 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+/**
+ * As facetas sem filtro (contagens do catálogo inteiro, reaproveitadas entre requisições) mudam a
+ * cada escrita, e as de um filtro estruturado, resolvidas pelos bitmaps do índice de facetas,
+ * batem com o total da busca, que vem do banco.
+ */
+@QuarkusTest
+class JogoFacetsTest {
+
+    @Test
+    void unfilteredFacetsFollowWrites() {
+        int antes = decada1950(facets(null));
+
+        criarJogo("Facetado " + System.nanoTime(), 1955, null);
+
+        assertEquals(antes + 1, decada1950(facets(null)));
+    }
+
+    @Test
+    void structuredFilterFacetsMatchTheResult() {
+        String sufixo = String.valueOf(System.nanoTime());
+        int generoId = given().contentType(ContentType.JSON)
+                .body("{\"nome\": \"Faceta " + sufixo + "\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201)
+                .extract().path("id");
+        criarJogo("Facetado A " + sufixo, 1998, generoId);
+        criarJogo("Facetado B " + sufixo, 2012, generoId);
+
+        JsonPath genero = facets("genero:" + generoId);
+        assertEquals(2, genero.getInt("totalJogos"));
+        assertEquals(2, genero.getInt("facets.generos.find { it.valor == '" + generoId + "' }.total"));
+        assertEquals(1, genero.getInt("facets.anos.find { it.valor == '1990' }.total"));
+        assertEquals(1, genero.getInt("facets.anos.find { it.valor == '2010' }.total"));
+
+        JsonPath intervalo = facets("genero:" + generoId + " ano:..2000");
+        assertEquals(1, intervalo.getInt("totalJogos"));
+        assertEquals(1, intervalo.getInt("facets.generos.find { it.valor == '" + generoId + "' }.total"));
+        assertEquals(1, intervalo.getList("facets.anos").size());
+    }
+
+    private static JsonPath facets(String q) {
+        var request = given().queryParam("facets", true);
+        if (q != null) {
+            request.queryParam("q", q);
+        }
+        return request.when().get("/api/v2/jogos/search")
+                .then().statusCode(200)
+                .extract().jsonPath();
+    }
+
+    private static int decada1950(JsonPath busca) {
+        Integer total = busca.get("facets.anos.find { it.valor == '1950' }.total");
+        return total != null ? total : 0;
+    }
+
+    private static void criarJogo(String titulo, int ano, Integer generoId) {
+        given().contentType(ContentType.JSON)
+                .body("{\"titulo\": \"" + titulo + "\", \"descricao\": \"Teste de facetas\", \"anoLancamento\": " + ano
+                        + ", \"classificacaoIndicativa\": \"LIVRE\""
+                        + (generoId != null ? ", \"generos\": [{\"id\": " + generoId + "}]" : "") + "}")
+                .when().post("/api/v2/jogos")
+                .then().statusCode(201);
+    }
+}
@@ -0,0 +1,51 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * O JSON de GET /v2/jogos/{id} vem do cache de respostas; a atualização da desenvolvedora embutida
+ * deve descartar a entrada do jogo, e a próxima leitura já traz o nome novo.
+ */
+@QuarkusTest
+class JogoResponseCacheTest {
+
+    @Test
+    void developerUpdateEvictsEmbeddingGame() {
+        String sufixo = Long.toString(System.nanoTime());
+        int desenvolvedoraId = given().contentType(ContentType.JSON)
+                .body("{\"nome\": \"Estúdio Cache " + sufixo + "\", \"paisDeOrigem\": \"Brasil\"}")
+                .when().post("/api/v2/desenvolvedoras")
+                .then().statusCode(201)
+                .extract().path("id");
+        int jogoId = given().contentType(ContentType.JSON)
+                .body("{\"titulo\": \"Cacheado " + sufixo + "\", \"descricao\": \"Teste do cache de respostas\","
+                        + " \"anoLancamento\": 2020, \"classificacaoIndicativa\": \"LIVRE\","
+                        + " \"desenvolvedora\": {\"id\": " + desenvolvedoraId + "}}")
+                .when().post("/api/v2/jogos")
+                .then().statusCode(201)
+                .extract().path("id");
+
+        // Duas leituras: a segunda é um acerto no cache
+        for (int i = 0; i < 2; i++) {
+            String nome = given().when().get("/api/v2/jogos/" + jogoId)
+                    .then().statusCode(200)
+                    .extract().path("desenvolvedora.nome");
+            assertEquals("Estúdio Cache " + sufixo, nome);
+        }
+
+        given().contentType(ContentType.JSON)
+                .body("{\"nome\": \"Estúdio Renomeado " + sufixo + "\", \"paisDeOrigem\": \"Brasil\"}")
+                .when().put("/api/v2/desenvolvedoras/" + desenvolvedoraId)
+                .then().statusCode(200);
+
+        String nome = given().when().get("/api/v2/jogos/" + jogoId)
+                .then().statusCode(200)
+                .extract().path("desenvolvedora.nome");
+        assertEquals("Estúdio Renomeado " + sufixo, nome);
+    }
+}
@@ -0,0 +1,51 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Números que não cabem no tipo do campo (ano, id de desenvolvedora ou de gênero) são erros do
+ * filtro, respondidos com 400 e a lista de erros, e não exceções de conversão (500). Um intervalo
+ * de ano sem nenhum dos limites também é erro, e não um filtro que aceita tudo.
+ */
+@QuarkusTest
+class JogoSearchFilterTest {
+
+    @Test
+    void overflowingYearIsRejected() {
+        given().queryParam("q", "ano:99999999999")
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(400)
+                .body("erros", hasItem(startsWith("Ano fora do intervalo '99999999999'")));
+
+        given().queryParam("q", "ano:2010..99999999999")
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(400)
+                .body("erros", hasItem(startsWith("Ano fora do intervalo")));
+    }
+
+    @Test
+    void overflowingIdsAreRejected() {
+        given().queryParam("q", "dev:99999999999999999999")
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(400)
+                .body("erros", hasItem("Id fora do intervalo '99999999999999999999'"));
+
+        given().queryParam("q", "genero:1,99999999999999999999")
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(400)
+                .body("erros", hasItem("Id fora do intervalo '99999999999999999999'"));
+    }
+
+    @Test
+    void emptyYearRangeIsRejected() {
+        given().queryParam("q", "ano:..")
+                .when().get("/api/v2/jogos/search")
+                .then().statusCode(400)
+                .body("erros", hasItem(startsWith("Intervalo de ano vazio '..'")));
+    }
+}
@@ -0,0 +1,82 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.CatalogoDeTeste;
+import org.acme.FichaTecnica;
+import org.acme.search.SearchResultCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Garante que a busca de jogos carrega desenvolvedora e gêneros em um número fixo e pequeno de
+ * queries, independentemente do tamanho da página (sem N+1 durante a serialização), com o cache
+ * de segundo nível frio.
+ */
+@QuarkusTest
+class JogoSearchStatementCountTest {
+
+    // Página (com a desenvolvedora e o total na mesma query) e gêneros, mais uma de folga
+    private static final int MAX_STATEMENTS = 3;
+
+    private static boolean seeded;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        QuarkusTransaction.requiringNew().run(() -> {
+            // Uma desenvolvedora (com ficha) e um gênero por jogo: cada linha da página referencia
+            // entidades diferentes, e um select por linha apareceria na contagem
+            for (int i = 0; i < 60; i++) {
+                var desenvolvedora = CatalogoDeTeste.desenvolvedora("N+1");
+                desenvolvedora.fichaTecnica = new FichaTecnica("História " + i, "Jogo " + i, "Nenhum");
+                CatalogoDeTeste.jogo("N+1", desenvolvedora, CatalogoDeTeste.genero("N+1"));
+            }
+        });
+        seeded = true;
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        long pageOf5 = statementsForPage(5);
+        long pageOf50 = statementsForPage(50);
+
+        assertEquals(pageOf5, pageOf50, "A página de 50 jogos deveria usar o mesmo número de queries que a de 5");
+        assertTrue(pageOf50 <= MAX_STATEMENTS, "A busca usou " + pageOf50 + " queries; esperado no máximo " + MAX_STATEMENTS);
+    }
+
+    private long statementsForPage(int size) {
+        // O seed não passa pela API, e o que se mede aqui é a busca, não o cache de resultados.
+        // Desenvolvedoras e gêneros do seed ficam no cache de segundo nível após o insert: sem
+        // esvaziá-lo, uma volta ao select por linha seria atendida pelo cache e passaria despercebida
+        searchResultCache.clear();
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .queryParam("size", size)
+                .when().get("/api/v2/jogos/search")
+                .then()
+                .statusCode(200)
+                .body("jogos", hasSize(size));
+
+        return statistics.getPrepareStatementCount();
+    }
+}
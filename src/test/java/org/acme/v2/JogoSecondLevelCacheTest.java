@@ -0,0 +1,51 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.EntityResponseCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GET /v2/jogos/{id} com o cache de segundo nível quente resolve desenvolvedora e gêneros sem ir
+ * ao banco (menos queries que com as regiões vazias, e com acertos no cache), e a resposta já
+ * serializada não executa query nenhuma.
+ */
+@QuarkusTest
+class JogoSecondLevelCacheTest {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    EntityResponseCache responseCache;
+
+    @Test
+    void warmCacheServesReferencesWithoutQueries() {
+        Statistics statistics = sessionFactory.getStatistics();
+
+        sessionFactory.getCache().evictAllRegions();
+        responseCache.clear();
+        long frio = statements(statistics, 1);
+
+        // Sem o cache de respostas, mas com as regiões preenchidas pela leitura anterior
+        responseCache.clear();
+        long acertosAntes = statistics.getSecondLevelCacheHitCount();
+        long quente = statements(statistics, 1);
+        assertTrue(quente < frio, "Cache quente deveria usar menos que as " + frio + " queries do frio, usou " + quente);
+        assertTrue(statistics.getSecondLevelCacheHitCount() > acertosAntes);
+
+        assertEquals(0, statements(statistics, 1));
+    }
+
+    private static long statements(Statistics statistics, long id) {
+        long antes = statistics.getPrepareStatementCount();
+        given().when().get("/api/v2/jogos/" + id).then().statusCode(200);
+        return statistics.getPrepareStatementCount() - antes;
+    }
+}
@@ -0,0 +1,106 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import java.util.ArrayList;
+import java.util.List;
+import org.acme.CatalogoDeTeste;
+import org.acme.Jogo;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GET /v2/desenvolvedoras/{id}/jogos e /v2/generos/{id}/jogos: só os jogos do pai, um jogo com
+ * vários gêneros aparece uma vez na página do gênero (semi-join, sem multiplicar linhas) e a
+ * paginação por cursor percorre todos os jogos sem repetir nenhum.
+ */
+@QuarkusTest
+class RelatedJogosTest {
+
+    @Test
+    void desenvolvedoraListsOnlyItsJogos() {
+        Catalogo catalogo = criarCatalogo();
+
+        JsonPath pagina = given().queryParam("size", 10)
+                .when().get("/api/v2/desenvolvedoras/" + catalogo.desenvolvedoraId() + "/jogos")
+                .then().statusCode(200)
+                .extract().jsonPath();
+
+        assertEquals(catalogo.daDesenvolvedora(), ids(pagina));
+        assertEquals(catalogo.daDesenvolvedora().size(), pagina.getInt("totalJogos"));
+        assertFalse(pagina.getBoolean("hasMore"));
+    }
+
+    @Test
+    void generoListsEachJogoOnceAcrossCursorPages() {
+        Catalogo catalogo = criarCatalogo();
+        String path = "/api/v2/generos/" + catalogo.generoId() + "/jogos";
+
+        JsonPath primeira = given().queryParam("size", 2)
+                .when().get(path)
+                .then().statusCode(200)
+                .body("nextPage", containsString("/v2/generos/" + catalogo.generoId() + "/jogos?size=2"))
+                .extract().jsonPath();
+        assertTrue(primeira.getBoolean("hasMore"));
+        assertEquals(catalogo.doGenero().size(), primeira.getInt("totalJogos"));
+
+        JsonPath segunda = given().queryParam("size", 2).queryParam("cursor", primeira.getString("nextCursor"))
+                .when().get(path)
+                .then().statusCode(200)
+                .extract().jsonPath();
+        assertFalse(segunda.getBoolean("hasMore"));
+        assertEquals("", segunda.getString("nextPage"));
+
+        List<Long> todos = new ArrayList<>(ids(primeira));
+        todos.addAll(ids(segunda));
+        assertEquals(catalogo.doGenero(), todos);
+    }
+
+    @Test
+    void missingParentIsNotFound() {
+        given().when().get("/api/v2/desenvolvedoras/" + Long.MAX_VALUE + "/jogos")
+                .then().statusCode(404);
+    }
+
+    private static List<Long> ids(JsonPath pagina) {
+        return pagina.getList("jogos.id", Long.class);
+    }
+
+    /**
+     * @param daDesenvolvedora ids, em ordem, dos jogos da desenvolvedora
+     * @param doGenero         ids, em ordem, dos jogos do gênero (um deles com dois gêneros)
+     */
+    private record Catalogo(long desenvolvedoraId, long generoId, List<Long> daDesenvolvedora, List<Long> doGenero) {
+    }
+
+    // Uma desenvolvedora com três jogos (dois no gênero), uma outra com um jogo no gênero e um jogo
+    // fora dele; um dos jogos do gênero tem também um segundo gênero
+    private static Catalogo criarCatalogo() {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            var desenvolvedora = CatalogoDeTeste.desenvolvedora("Relacionado");
+            var outra = CatalogoDeTeste.desenvolvedora("Relacionado");
+            var genero = CatalogoDeTeste.genero("Relacionado");
+            var segundo = CatalogoDeTeste.genero("Relacionado");
+
+            List<Long> daDesenvolvedora = new ArrayList<>();
+            List<Long> doGenero = new ArrayList<>();
+            Jogo a = CatalogoDeTeste.jogo("Relacionado", desenvolvedora, genero, segundo);
+            daDesenvolvedora.add(a.id);
+            doGenero.add(a.id);
+            Jogo b = CatalogoDeTeste.jogo("Relacionado", desenvolvedora, genero);
+            daDesenvolvedora.add(b.id);
+            doGenero.add(b.id);
+            Jogo c = CatalogoDeTeste.jogo("Relacionado", desenvolvedora, segundo);
+            daDesenvolvedora.add(c.id);
+            Jogo d = CatalogoDeTeste.jogo("Relacionado", outra, genero);
+            doGenero.add(d.id);
+            return new Catalogo(desenvolvedora.id, genero.id, daDesenvolvedora, doGenero);
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.v2;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.acme.CatalogoDeTeste;
+import org.acme.Genero;
+import org.acme.StatsResource;
+import org.acme.search.CountMode;
+import org.acme.search.FieldSelection;
+import org.acme.search.SearchFields;
+import org.acme.search.SearchQuery;
+import org.acme.search.SearchResult;
+import org.acme.search.SearchResultCache;
+import org.acme.search.TextNormalizer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A mesma busca repetida vem do cache de resultados; um POST de gênero avança a geração e a
+ * busca seguinte já inclui o gênero novo. Buscas projetadas simultâneas executam uma única vez e
+ * as repetições seguintes vêm do cache.
+ */
+@QuarkusTest
+class SearchResultCacheTest {
+
+    private static final int THREADS = 16;
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Test
+    void writeInvalidatesCachedSearch() {
+        String termo = "Roguelite " + System.nanoTime();
+        given().contentType(ContentType.JSON).body("{\"nome\": \"" + termo + " A\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        for (int i = 0; i < 2; i++) {
+            given().queryParam("q", termo)
+                    .when().get("/api/v2/generos/search")
+                    .then().statusCode(200)
+                    .body("totalGeneros", equalTo(1));
+        }
+
+        given().contentType(ContentType.JSON).body("{\"nome\": \"" + termo + " B\"}")
+                .when().post("/api/v2/generos")
+                .then().statusCode(201);
+
+        given().queryParam("q", termo.toUpperCase())
+                .when().get("/api/v2/generos/search")
+                .then().statusCode(200)
+                .body("totalGeneros", equalTo(2))
+                .body("generos.size()", equalTo(2));
+    }
+
+    @Test
+    void projectedSearchIsCoalescedAndCached() throws Exception {
+        // Chamadas direto ao bean: o limite de requisições da V2 não interfere na rajada
+        String termo = "Metroidvania " + System.nanoTime();
+        long id = CatalogoDeTeste.criar(termo, 1, 0).generoId();
+        StatsResource.CacheStats antes = searchResultCache.stats();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<SearchResult<Map<String, Object>>>> resultados = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return buscarProjetado(termo);
+                }));
+            }
+            largada.countDown();
+
+            for (Future<SearchResult<Map<String, Object>>> resultado : resultados) {
+                SearchResult<Map<String, Object>> pagina = resultado.get(10, TimeUnit.SECONDS);
+                assertEquals(1, pagina.total);
+                assertEquals(id, ((Number) pagina.items.get(0).get("id")).longValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Quem não esperou pela execução da rajada leu a entrada que ela gravou
+        assertEquals(antes.insercoes() + 1, searchResultCache.stats().insercoes());
+
+        long acertos = searchResultCache.stats().acertos();
+        assertEquals(1, buscarProjetado(termo).total);
+        assertEquals(acertos + 1, searchResultCache.stats().acertos());
+        assertEquals(antes.insercoes() + 1, searchResultCache.stats().insercoes());
+    }
+
+    private SearchResult<Map<String, Object>> buscarProjetado(String termo) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            SearchQuery<Genero> query = SearchQuery.of(Genero.class, SearchFields.GENERO)
+                    .sort("id", "asc")
+                    .page(0, 5)
+                    .where("e.nomeNormalizado like :nome escape '\\'")
+                    .param("nome", TextNormalizer.likePattern(termo));
+            FieldSelection campos = FieldSelection.parse("id,nome", SearchFields.GENERO_CAMPOS);
+            return searchResultCache.execute(query.project(campos), "", termo, null, CountMode.EXACT);
+        });
+    }
+}